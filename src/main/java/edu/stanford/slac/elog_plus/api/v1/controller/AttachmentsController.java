@@ -4,6 +4,7 @@ import edu.stanford.slac.ad.eed.baselib.api.v1.dto.ApiResultResponse;
 import edu.stanford.slac.ad.eed.baselib.exception.NotAuthorized;
 import edu.stanford.slac.ad.eed.baselib.service.AuthService;
 import edu.stanford.slac.elog_plus.api.v1.dto.AttachmentDTO;
+import edu.stanford.slac.elog_plus.api.v1.dto.AttachmentMiniPreviewDTO;
 import edu.stanford.slac.elog_plus.api.v1.dto.EntrySummaryDTO;
 import edu.stanford.slac.elog_plus.api.v1.dto.LogbookSummaryDTO;
 import edu.stanford.slac.elog_plus.model.FileObjectDescription;
@@ -25,6 +26,7 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationTypeDTO.Read;
 import static edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationTypeDTO.Write;
@@ -35,6 +37,10 @@ import static edu.stanford.slac.ad.eed.baselib.exception.Utility.assertion;
 @AllArgsConstructor
 @Schema(description = "Set of api for attachment manipulation")
 public class AttachmentsController {
+    private static final CacheControl MINI_PREVIEW_CACHE_CONTROL = CacheControl
+            .maxAge(365, TimeUnit.DAYS)
+            .cachePrivate()
+            .immutable();
     AuthService authService;
     EntryService entryService;
     AttachmentService attachmentService;
@@ -115,6 +121,50 @@ public class AttachmentsController {
         return new ResponseEntity<>(new InputStreamResource(desc.getIs()), headers, HttpStatus.OK);
     }
 
+    @GetMapping(
+            path = "/{attachmentId}/mini-preview.jpg"
+    )
+    @Operation(summary = "Load an attachment mini preview using an unique attachment id, the mini preview never changes so it can be cached")
+    @PreAuthorize("@baseAuthorizationService.checkAuthenticated(#authentication)")
+    public ResponseEntity<Resource> downloadMiniPreview(
+            Authentication authentication,
+            @Parameter(name = "attachmentId", description = "The unique id of the attachment", required = true)
+            @PathVariable String attachmentId
+    ) throws Exception {
+        FileObjectDescription desc = attachmentService.getMiniPreviewContent(attachmentId);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.valueOf(desc.getContentType()));
+        headers.setContentDisposition(
+                ContentDisposition
+                        .inline()
+                        .filename(desc.getFileName(), StandardCharsets.UTF_8)
+                        .build()
+        );
+        headers.setCacheControl(MINI_PREVIEW_CACHE_CONTROL);
+        headers.setETag("\"%s\"".formatted(attachmentId));
+        return new ResponseEntity<>(new InputStreamResource(desc.getIs()), headers, HttpStatus.OK);
+    }
+
+    @GetMapping(
+            path = "/mini-preview",
+            produces = {MediaType.APPLICATION_JSON_VALUE}
+    )
+    @Operation(summary = "Load the mini previews of a set of attachments")
+    @PreAuthorize("@baseAuthorizationService.checkAuthenticated(#authentication)")
+    public ResponseEntity<ApiResultResponse<List<AttachmentMiniPreviewDTO>>> findMiniPreviews(
+            Authentication authentication,
+            @Parameter(name = "attachmentIds", description = "The unique ids of the attachments", required = true)
+            @RequestParam("attachmentIds") List<String> attachmentIds
+    ) {
+        List<AttachmentMiniPreviewDTO> miniPreviews = attachmentService.getMiniPreviews(attachmentIds);
+        // the response can be cached only when all the mini previews have already been created
+        boolean complete = miniPreviews.size() == attachmentIds.stream().distinct().count();
+        return ResponseEntity
+                .ok()
+                .cacheControl(complete ? MINI_PREVIEW_CACHE_CONTROL : CacheControl.noStore())
+                .body(ApiResultResponse.of(miniPreviews));
+    }
+
     @GetMapping(
             value = "/queued",
             produces = {"application/json"}
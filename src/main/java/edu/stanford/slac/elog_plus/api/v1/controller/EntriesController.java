@@ -4,7 +4,7 @@ import edu.stanford.slac.ad.eed.baselib.api.v1.dto.ApiResultResponse;
 import edu.stanford.slac.ad.eed.baselib.api.v1.dto.PersonDTO;
 import edu.stanford.slac.ad.eed.baselib.config.AppProperties;
 import edu.stanford.slac.ad.eed.baselib.service.AuthService;
-import edu.stanford.slac.ad.eed.baselib.service.PeopleGroupService;
+import edu.stanford.slac.elog_plus.api.v1.dto.BulkEntryResultDTO;
 import edu.stanford.slac.elog_plus.api.v1.dto.EntryDTO;
 import edu.stanford.slac.elog_plus.api.v1.dto.EntryNewDTO;
 import edu.stanford.slac.elog_plus.api.v1.dto.EntrySummaryDTO;
@@ -12,6 +12,8 @@ import edu.stanford.slac.elog_plus.api.v1.dto.QueryWithAnchorDTO;
 import edu.stanford.slac.elog_plus.service.EntryService;
 import edu.stanford.slac.elog_plus.service.LogbookService;
 import edu.stanford.slac.elog_plus.service.authorization.AuthorizationCache;
+import edu.stanford.slac.elog_plus.service.authorization.EntryAuthorizationService;
+import edu.stanford.slac.elog_plus.service.cache.PersonDirectoryCache;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -31,18 +33,18 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
-import static edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationTypeDTO.Read;
 
 @RestController()
 @RequestMapping("/v1/entries")
 @AllArgsConstructor
 @Schema(description = "Main set of api for the query on the log entries")
 public class EntriesController {
-    final private PeopleGroupService peopleGroupService;
+    final private PersonDirectoryCache personDirectoryCache;
     final private AuthService authService;
     final private EntryService entryService;
     final private AppProperties appProperties;
     final private LogbookService logbookService;
+    final private EntryAuthorizationService entryAuthorizationService;
 
     @PostMapping(produces = {MediaType.APPLICATION_JSON_VALUE})
     @ResponseStatus(HttpStatus.CREATED)
@@ -53,21 +55,30 @@ public class EntriesController {
             @Parameter(description = "The new entry to create", required = true)
             @RequestBody @Valid EntryNewDTO newEntry
     ) {
-        PersonDTO creator = null;
-        if (authentication.getCredentials().toString().endsWith(appProperties.getAuthenticationTokenDomain())) {
-            // create fake person for authentication token
-            creator = PersonDTO
-                    .builder()
-                    .gecos("Application Token")
-                    .mail(authentication.getPrincipal().toString())
-                    .build();
-        } else {
-            creator = peopleGroupService.findPerson(authentication);
-        }
         return ApiResultResponse.of(
                 entryService.createNew(
                         newEntry,
-                        creator
+                        getCreator(authentication)
+                )
+        );
+    }
+
+    @PostMapping(
+            path = "/bulk",
+            produces = {MediaType.APPLICATION_JSON_VALUE}
+    )
+    @ResponseStatus(HttpStatus.CREATED)
+    @Operation(description = "Create many new entries, the result of each entry is returned in the same order of the input")
+    @PreAuthorize("@baseAuthorizationService.checkAuthenticated(#authentication) and @entryAuthorizationService.canCreateNewEntries(#authentication, #newEntries)")
+    public ApiResultResponse<List<BulkEntryResultDTO>> newEntries(
+            Authentication authentication,
+            @Parameter(description = "The new entries to create", required = true)
+            @RequestBody @Valid List<@Valid EntryNewDTO> newEntries
+    ) {
+        return ApiResultResponse.of(
+                entryService.createNewBulk(
+                        newEntries,
+                        getCreator(authentication)
                 )
         );
     }
@@ -85,19 +96,8 @@ public class EntriesController {
             @PathVariable @NotNull String entryId,
             @Parameter(description = "Is the new entry that will supersede the entry identified by the entryId", required = true)
             @RequestBody @Valid EntryNewDTO newSupersedeEntry) {
-        PersonDTO creator = null;
-        if (authentication.getCredentials().toString().endsWith(appProperties.getAuthenticationTokenDomain())) {
-            // create fake person for authentication token
-            creator = PersonDTO
-                    .builder()
-                    .gecos("Application Token")
-                    .mail(authentication.getPrincipal().toString())
-                    .build();
-        } else {
-            creator = peopleGroupService.findPerson(authentication);
-        }
         return ApiResultResponse.of(
-                entryService.createNewSupersede(entryId, newSupersedeEntry, creator)
+                entryService.createNewSupersede(entryId, newSupersedeEntry, getCreator(authentication))
         );
     }
 
@@ -118,7 +118,7 @@ public class EntriesController {
                 entryService.createNewFollowUp(
                         entryId,
                         newFollowUpEntry,
-                        peopleGroupService.findPerson(authentication)
+                        personDirectoryCache.findPerson(authentication)
                 )
         );
     }
@@ -136,7 +136,7 @@ public class EntriesController {
             @PathVariable @NotNull String entryId) {
         // fetch all follow up
         return ApiResultResponse.of(
-                filterEntrySummaryByAuthentication(
+                entryAuthorizationService.filterEntrySummaryByAuthentication(
                         authentication,
                         entryService.getAllFollowUpForALog(entryId)
                 )
@@ -160,7 +160,7 @@ public class EntriesController {
             @RequestParam("includeFollowUps") Optional<Boolean> includeFollowUps,
             @Parameter(name = "includeFollowingUps", description = "If true the API return all the entries that are follow-up of this one")
             @RequestParam("includeFollowingUps") Optional<Boolean> includeFollowingUps,
-            @Parameter(name = "includeHistory", description = "If true the API return all the entry updates history")
+            @Parameter(name = "includeHistory", description = "If true the API return the entry updates history, up to the configured max number of previous versions (200 by default)")
             @RequestParam("includeHistory") Optional<Boolean> includeHistory,
             @Parameter(name = "includeReferences", description = "If true the API return all the entries that are reference to this one")
             @RequestParam("includeReferences") Optional<Boolean> includeReferences,
@@ -197,7 +197,7 @@ public class EntriesController {
             @PathVariable String entryId
     ) {
         return ApiResultResponse.of(
-                filterEntrySummaryByAuthentication(
+                entryAuthorizationService.filterEntrySummaryByAuthentication(
                         authentication,
                         entryService.getReferencesByEntryID(entryId)
                 )
@@ -237,7 +237,9 @@ public class EntriesController {
             @Parameter(name = "requireAllTags", description = "Require that all entries found includes all the tags")
             @RequestParam(value = "requireAllTags", defaultValue = "false") Optional<Boolean> requireAllTags,
             @Parameter(name = "originId", description = "Is the origin id of the source system record identification")
-            @RequestParam(value = "originId") Optional<String> originId
+            @RequestParam(value = "originId") Optional<String> originId,
+            @Parameter(name = "cursor", description = "Is the cursor of an entry, returned by a previous search, from where continue the search. It is an alternative to the anchor")
+            @RequestParam(value = "cursor") Optional<String> cursor
     ) {
         return ApiResultResponse.of(
                 entryService.findAll(
@@ -256,6 +258,7 @@ public class EntriesController {
                                 .hideSummaries(hideSummaries.orElse(false))
                                 .requireAllTags(requireAllTags.orElse(false))
                                 .originId(originId.orElse(null))
+                                .cursor(cursor.orElse(null))
                                 .build()
                 )
         );
@@ -284,44 +287,17 @@ public class EntriesController {
     }
 
     /**
-     * Filter the entry summary by the authentication
-     *
-     * @param authentication the authentication to use for the filter
-     * @param summaries       the list of entry summary to filter
-     * @return the list of entry summary that are authorized for the authentication
+     * Return the person that is creating the entries, a fake person is created for the authentication token
      */
-    private List<EntrySummaryDTO> filterEntrySummaryByAuthentication(
-            Authentication authentication,
-            List<EntrySummaryDTO> summaries
-    ) {
-        return summaries
-                .stream()
-                .map(
-                        entry -> {
-                            // filter all authorized logbook for en entry
-                            var authorizedLogbook = entry
-                                    .logbooks()
-                                    .stream()
-                                    .filter(
-                                            lb -> authService.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
-                                                    authentication,
-                                                    Read,
-                                                    "/logbook/%s".formatted(lb.id())
-                                            )
-                                    )
-                                    .toList();
-                            // recreate the summary with the authorized logbook
-                            return entry.toBuilder()
-                                    .logbooks(
-                                            authorizedLogbook
-                                    )
-                                    .build();
-                        }
-                )
-                .filter(
-                        // remove all summary for which the user is unauthorized on all logbook
-                        lb -> !lb.logbooks().isEmpty()
-                )
-                .toList();
+    private PersonDTO getCreator(Authentication authentication) {
+        if (authentication.getCredentials().toString().endsWith(appProperties.getAuthenticationTokenDomain())) {
+            // create fake person for authentication token
+            return PersonDTO
+                    .builder()
+                    .gecos("Application Token")
+                    .mail(authentication.getPrincipal().toString())
+                    .build();
+        }
+        return personDirectoryCache.findPerson(authentication);
     }
 }
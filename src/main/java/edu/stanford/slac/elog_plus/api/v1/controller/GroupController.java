@@ -8,6 +8,7 @@ import edu.stanford.slac.ad.eed.baselib.service.AuthService;
 import edu.stanford.slac.ad.eed.baselib.service.PeopleGroupService;
 import edu.stanford.slac.elog_plus.api.v1.dto.GroupDetailsDTO;
 import edu.stanford.slac.elog_plus.service.AuthorizationServices;
+import edu.stanford.slac.elog_plus.service.cache.AuthorizedLogbookCache;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -38,6 +39,7 @@ public class GroupController {
     private final AuthorizationServices authorizationServices;
     AuthService authService;
     PeopleGroupService peopleGroupService;
+    AuthorizedLogbookCache authorizedLogbookCache;
 
     /**
      * Create a new group
@@ -82,6 +84,8 @@ public class GroupController {
     ) {
         // check authentication
         authService.deleteLocalGroup(groupId);
+        // the members lose the authorizations of the group
+        authorizedLogbookCache.invalidate();
         return ApiResultResponse.of(true);
     }
 
@@ -107,6 +111,8 @@ public class GroupController {
     ) {
         // check authentication
         authService.updateLocalGroup(groupId, updateGroupDTO);
+        // the members can be changed
+        authorizedLogbookCache.invalidate();
         return ApiResultResponse.of(true);
     }
 
@@ -1,11 +1,11 @@
 package edu.stanford.slac.elog_plus.api.v1.controller;
 
 import edu.stanford.slac.ad.eed.baselib.api.v1.dto.ApiResultResponse;
-import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationDTO;
 import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationTypeDTO;
 import edu.stanford.slac.ad.eed.baselib.service.AuthService;
 import edu.stanford.slac.elog_plus.api.v1.dto.*;
 import edu.stanford.slac.elog_plus.service.LogbookService;
+import edu.stanford.slac.elog_plus.service.cache.AuthorizedLogbookCache;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -20,12 +20,10 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import static edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationTypeDTO.Read;
-import static edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationTypeDTO.Write;
-import static java.util.Collections.emptyList;
 
 
 @RestController()
@@ -35,6 +33,7 @@ import static java.util.Collections.emptyList;
 public class LogbooksController {
     private AuthService authService;
     private LogbookService logbookService;
+    private AuthorizedLogbookCache authorizedLogbookCache;
 
     /**
      * Get all the logbooks
@@ -62,37 +61,15 @@ public class LogbooksController {
                     logbookService.getAllLogbook(includeAuthorizations)
             );
         } else {
-            AuthorizationTypeDTO requestAuthorization = authorizationType.orElse(Read);
-            // get all the logbook where the user is authorized (all type of authorizations)
-            List<AuthorizationDTO> authOnLogbook = authService.getAllAuthorizationForOwnerAndAndAuthTypeAndResourcePrefix(
-                    authentication.getCredentials().toString(),
-                    requestAuthorization,
-                    "/logbook/",
-                    Optional.empty()
+            // get all the logbook where the user is authorized, for read and write authorization
+            // the cached ids include also the public readable or writable logbook
+            Set<String> authorizedLogbook = authorizedLogbookCache.getAuthorizedLogbookIds(
+                    authentication,
+                    authorizationType.orElse(Read)
             );
-            List<String> authorizedLogbook = authOnLogbook.stream()
-                    .map(
-                            auth -> auth.resource().substring(
-                                    auth.resource().lastIndexOf("/") + 1
-                            )
-                    )
-                    .toList();
-            // add all readAll logbook to care about no duplication
-            List<String> readAllLogbook = emptyList();
-            if(requestAuthorization == Read) {
-                // for read authorization we need to consider also public readable logbook
-                readAllLogbook = logbookService.getAllIdsReadAll();
-            } else if(requestAuthorization == Write) {
-                // for write authorization we need to consider also public writable logbook
-                readAllLogbook = logbookService.getAllIdsWriteAll();
-            }
-            logbookService.getAllIdsReadAll();
             return ApiResultResponse.of(
                     logbookService.getLogbook(
-                            // concat all the logbook and remove duplication
-                            Stream.concat(authorizedLogbook.stream(), readAllLogbook.stream())
-                                    .distinct()
-                                    .toList(),
+                            authorizedLogbook,
                             includeAuthorizations
                     )
             );
@@ -1,12 +1,12 @@
 package edu.stanford.slac.elog_plus.api.v1.controller;
 
 import edu.stanford.slac.ad.eed.baselib.api.v1.dto.ApiResultResponse;
-import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationDTO;
 import edu.stanford.slac.ad.eed.baselib.exception.NotAuthorized;
 import edu.stanford.slac.ad.eed.baselib.service.AuthService;
 import edu.stanford.slac.elog_plus.api.v1.dto.LogbookDTO;
 import edu.stanford.slac.elog_plus.api.v1.dto.TagDTO;
 import edu.stanford.slac.elog_plus.service.LogbookService;
+import edu.stanford.slac.elog_plus.service.cache.AuthorizedLogbookCache;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -20,7 +20,6 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 import static edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationTypeDTO.Read;
 import static edu.stanford.slac.ad.eed.baselib.exception.Utility.assertion;
@@ -33,6 +32,7 @@ import static java.util.Collections.emptyList;
 public class TagsController {
     private AuthService authService;
     private LogbookService logbookService;
+    private AuthorizedLogbookCache authorizedLogbookCache;
 
     @GetMapping(
             produces = {MediaType.APPLICATION_JSON_VALUE}
@@ -48,22 +48,8 @@ public class TagsController {
         Set<String> filteredLogbook = new HashSet<>(logbooks.orElse(new ArrayList<>()));
 
         if (!authService.checkForRoot(authentication)) {
-            // get all authorized logbook authorizations
-            List<AuthorizationDTO> authOnLogbook = authService.getAllAuthorizationForOwnerAndAndAuthTypeAndResourcePrefix(
-                    authentication.getCredentials().toString(),
-                    Read,
-                    "/logbook/",
-                    Optional.empty()
-            );
-            // filter the logbook
-            var authorizedLogbook = authOnLogbook.stream()
-                    .map(AuthorizationDTO::resource)
-                    .map(s -> s.replace("/logbook/", ""))
-                    .collect(Collectors.toCollection(HashSet::new));
-
-            // add all readable-from-all logbook
-            List<String> allPublicReadableLogbookIds = logbookService.getAllIdsReadAll();
-            authorizedLogbook.addAll(allPublicReadableLogbookIds);
+            // get all authorized logbook, readable-from-all logbook included
+            Set<String> authorizedLogbook = authorizedLogbookCache.getAuthorizedLogbookIds(authentication, Read);
 
             // remove all logbook that are not in the list
             if(filteredLogbook.isEmpty()) {
@@ -71,9 +57,6 @@ public class TagsController {
             } else {
                 filteredLogbook.retainAll(authorizedLogbook);
             }
-
-            // return all public readable logbook ids
-            filteredLogbook.addAll(allPublicReadableLogbookIds);
             return ApiResultResponse.of(
                     // if the list is empty return an empty list because no one of the logbook wanted is authorized
                     filteredLogbook.isEmpty()?emptyList():logbookService.getAllTagsByLogbooksIds(filteredLogbook.stream().toList())
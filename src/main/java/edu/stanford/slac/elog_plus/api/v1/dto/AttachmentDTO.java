@@ -18,6 +18,6 @@ public record AttachmentDTO (
     String contentType,
     @Schema(description = "The state of the preview processing")
     String previewState,
-    @Schema(description = "The mini preview of the file")
-    byte[] miniPreview
+    @Schema(description = "The url of the mini preview of the file, null if the mini preview is not available")
+    String miniPreviewUrl
     ){}
@@ -0,0 +1,18 @@
+package edu.stanford.slac.elog_plus.api.v1.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Schema(description = "Is the mini preview of an attachment")
+public record AttachmentMiniPreviewDTO(
+        @Schema(description = "The id of the attachment")
+        String id,
+        @Schema(description = "The jpeg image of the mini preview")
+        byte[] miniPreview
+) {
+}
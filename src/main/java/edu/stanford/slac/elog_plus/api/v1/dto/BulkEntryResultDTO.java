@@ -0,0 +1,29 @@
+package edu.stanford.slac.elog_plus.api.v1.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+@Builder(toBuilder = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Schema(description = "Is the result of the creation of an entry of a bulk")
+public record BulkEntryResultDTO(
+        @Schema(description = "The index of the entry in the bulk")
+        Integer index,
+        @Schema(description = "The id of the created entry, null if the entry has not been created")
+        String id,
+        @Schema(description = "The error code, 0 if the entry has been created")
+        Integer errorCode,
+        @Schema(description = "The error message if the entry has not been created")
+        String errorMessage
+) {
+    public static BulkEntryResultDTO created(int index, String id) {
+        return BulkEntryResultDTO.builder().index(index).id(id).errorCode(0).build();
+    }
+
+    public static BulkEntryResultDTO failed(int index, int errorCode, String errorMessage) {
+        return BulkEntryResultDTO.builder().index(index).errorCode(errorCode).errorMessage(errorMessage).build();
+    }
+}
@@ -41,6 +41,8 @@ public record EntrySummaryDTO(
         String followingUp,
         @Schema(description = "The list of entries that are follow ups of the current entry")
         List<String> followUps,
+        @Schema(description = "The first characters of the plain text of the entry body")
+        String excerpt,
         @Schema(description = "The entry notes")
         String note,
         @JsonDeserialize(using = LocalDateTimeDeserializer.class)
@@ -50,6 +52,8 @@ public record EntrySummaryDTO(
         @JsonDeserialize(using = LocalDateTimeDeserializer.class)
         @JsonSerialize(using = LocalDateTimeSerializer.class)
         @Schema(description = "The timestamp when the event described by the entry happened")
-        LocalDateTime eventAt
+        LocalDateTime eventAt,
+        @Schema(description = "Is the opaque position of the entry in the search result, it can be used as cursor to continue the search")
+        String cursor
 ) {
 }
@@ -44,5 +44,7 @@ public record QueryWithAnchorDTO(
         @Schema(description = "Requires that all the found entry contains all the tags")
         Boolean requireAllTags,
         @Schema(description = "Is the id of the origin entry (used for the supersede functionality)")
-        String originId
+        String originId,
+        @Schema(description = "Is the opaque cursor, returned by a previous search, from where the search need to continue. It is an alternative to the anchor")
+        String cursor
         ) {}
@@ -5,6 +5,7 @@ import edu.stanford.slac.elog_plus.api.v1.dto.ObjectListResultDTO;
 import edu.stanford.slac.elog_plus.model.Attachment;
 import edu.stanford.slac.elog_plus.model.ObjectListResult;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.ReportingPolicy;
 import org.mapstruct.factory.Mappers;
 
@@ -13,6 +14,20 @@ import org.mapstruct.factory.Mappers;
         componentModel = "spring"
 )
 public abstract class AttachmentMapper {
+    public static final String MINI_PREVIEW_URL = "/v1/attachment/%s/mini-preview.jpg";
+
+    @Mapping(target = "miniPreviewUrl", expression = "java(toMiniPreviewUrl(model))")
     public abstract AttachmentDTO fromModel(Attachment model);
     public abstract ObjectListResultDTO fromModel(ObjectListResult model);
+
+    /**
+     * Return the url of the mini preview
+     *
+     * @param model the attachment
+     * @return the url of the mini preview or null if it is not available
+     */
+    public String toMiniPreviewUrl(Attachment model) {
+        if (!Boolean.TRUE.equals(model.getMiniPreviewAvailable())) return null;
+        return MINI_PREVIEW_URL.formatted(model.getId());
+    }
 }
@@ -9,14 +9,12 @@ import edu.stanford.slac.elog_plus.api.v1.dto.ResourceTypeDTO;
 import edu.stanford.slac.elog_plus.api.v1.dto.DetailsAuthorizationDTO;
 import edu.stanford.slac.elog_plus.api.v1.dto.UserDetailsDTO;
 import edu.stanford.slac.elog_plus.model.Logbook;
-import edu.stanford.slac.elog_plus.repository.LogbookRepository;
-import edu.stanford.slac.elog_plus.service.LogbookService;
+import edu.stanford.slac.elog_plus.service.cache.LogbookSnapshotService;
 import org.mapstruct.Mapper;
 import org.mapstruct.ReportingPolicy;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
 
@@ -29,7 +27,7 @@ public abstract class AuthorizationMapper {
     @Autowired
     AuthService authService;
     @Autowired
-    LogbookRepository logbookRepository;
+    LogbookSnapshotService logbookSnapshotService;
     /**
      * Convert a PersonDTO to a UserDetailsDTO
      *
@@ -65,10 +63,11 @@ public abstract class AuthorizationMapper {
     public List<DetailsAuthorizationDTO> fromAuthorizationDTO(
             List<AuthorizationDTO> allAuthenticationForOwner
     ) {
-        HashMap<String, String> resourceMapIdLabel = new HashMap<>();
         if (allAuthenticationForOwner == null) {
             return Collections.emptyList();
         }
+        // the logbook names are resolved on the snapshot so a batch of authorizations doesn't hit the database
+        var logbookSnapshot = logbookSnapshotService.get();
         return allAuthenticationForOwner
                 .stream()
                 .filter(a -> a.resource() != null)
@@ -78,22 +77,13 @@ public abstract class AuthorizationMapper {
                             ResourceTypeDTO resourceType = getResourceType(a.resource());
                             String resourceId = getResourceId(a.resource());
 
-                            if(resourceMapIdLabel.containsKey(a.resource())){
-                                label = resourceMapIdLabel.get(a.resource());
-                            } else {
-                                // fetch resourceType and cache
-                                switch (resourceType) {
-                                    case Logbook: {
-                                        var logbook = logbookRepository.findById(resourceId);
-                                        if (logbook.isPresent()) {
-                                            label = logbook.get().getName();
-                                            resourceMapIdLabel.put(a.resource(), label);
-                                        }
-                                        break;
-                                    }
-                                    default:
-                                        break;
+                            switch (resourceType) {
+                                case Logbook: {
+                                    label = logbookSnapshot.getLogbook(resourceId).map(Logbook::getName).orElse(null);
+                                    break;
                                 }
+                                default:
+                                    break;
                             }
                             return DetailsAuthorizationDTO.builder()
                                     .id(a.id())
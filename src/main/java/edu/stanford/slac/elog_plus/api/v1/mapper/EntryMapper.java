@@ -3,12 +3,11 @@ package edu.stanford.slac.elog_plus.api.v1.mapper;
 import edu.stanford.slac.elog_plus.api.v1.dto.*;
 import edu.stanford.slac.elog_plus.exception.TagNotFound;
 import edu.stanford.slac.elog_plus.model.Entry;
-import edu.stanford.slac.elog_plus.repository.EntryRepository;
 import edu.stanford.slac.elog_plus.service.AttachmentService;
 import edu.stanford.slac.elog_plus.service.LogbookService;
+import edu.stanford.slac.elog_plus.utility.EntryTextUtilities;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
@@ -19,8 +18,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import java.util.ArrayList;
 import java.util.List;
 
-import static edu.stanford.slac.ad.eed.baselib.exception.Utility.wrapCatch;
-
 @Mapper(
         unmappedTargetPolicy = ReportingPolicy.IGNORE,
         componentModel = "spring"
@@ -29,8 +26,6 @@ public abstract class EntryMapper {
     public static final String ELOG_ENTRY_REF = "elog-entry-ref";
     public static final String ELOG_ENTRY_REF_ID = "id";
     @Autowired
-    private EntryRepository entryRepository;
-    @Autowired
     private AttachmentService attachmentService;
     @Autowired
     private LogbookService logbookService;
@@ -40,8 +35,9 @@ public abstract class EntryMapper {
     @Mapping(source = "logbooks", target = "logbooks", qualifiedByName = "mapToLogbookSummary")
     @Mapping(target = "referencedBy", ignore = true)
     @Mapping(target = "references", ignore = true)
-    @Mapping(target = "referencesInBody", expression = "java(checkReferenceInBody(entry.getText()))")
+    @Mapping(target = "referencesInBody", expression = "java(hasReferencesInBody(entry))")
     @Mapping(target = "supersededBy", ignore = true)
+    @Mapping(target = "shifts", ignore = true)
     public abstract EntryDTO fromModel(Entry entry);
 
     @Mapping(target = "loggedBy", expression = "java(entry.getFirstName() + \" \" + entry.getLastName())")
@@ -50,34 +46,75 @@ public abstract class EntryMapper {
     @Mapping(source = "logbooks", target = "logbooks", qualifiedByName = "mapToLogbookSummary")
     @Mapping(target = "referencedBy", ignore = true)
     @Mapping(target = "references", ignore = true)
-    @Mapping(target = "referencesInBody", expression = "java(checkReferenceInBody(entry.getText()))")
+    @Mapping(target = "referencesInBody", expression = "java(hasReferencesInBody(entry))")
     @Mapping(target = "supersededBy", ignore = true)
+    @Mapping(target = "shifts", ignore = true)
     public abstract EntryDTO fromModelNoAttachment(Entry entry);
 
+    /**
+     * Map only the fields owned by the entry document, all the relations (logbooks, tags, attachments,
+     * following up, referenced by and shifts) are left empty and need to be filled by the caller.
+     * The complete summaries are built, in batch, by the EntrySummaryHydrator
+     * @param entry the entry to map
+     * @return the summary without relations
+     */
     @Mapping(target = "loggedBy", expression = "java(entry.getFirstName() + \" \" + entry.getLastName())")
-    @Mapping(source = "logbooks", target = "logbooks", qualifiedByName = "mapToLogbookSummary")
-    @Mapping(target = "followingUp", expression = "java(getFollowingUp(entry.getId()))")
-    @Mapping(target = "referencedBy", expression = "java(getReferenceBy(entry.getId()))")
-    @Mapping(target = "isEmpty", expression = "java(entry.getText()==null || entry.getText().isEmpty())")
-    public abstract EntrySummaryDTO toSearchResult(Entry entry);
-
-    @Mapping(target = "references", expression = "java(createReferences(entryNewDTO.text()))")
-    public abstract Entry fromDTO(EntryNewDTO entryNewDTO, String firstName, String lastName, String userName);
-
-    @Mapping(target = "references", expression = "java(createReferences(entryNewDTO.text()))")
-    public abstract Entry fromDTO(EntryImportDTO entryNewDTO, List<String> attachments);
-
-    @Named("getFollowingUp")
-    public String getFollowingUp(String id) {
-        if (id == null || id.isEmpty()) return null;
-        return wrapCatch(
-                () -> entryRepository.findByFollowUpsContainsAndSupersededByIsNull(id)
-                        .map(
-                                Entry::getId
-                        ).orElse(null),
-                -1,
-                "EntryMapper::getFollowingUp"
-        );
+    @Mapping(target = "logbooks", ignore = true)
+    @Mapping(target = "tags", ignore = true)
+    @Mapping(target = "attachments", ignore = true)
+    @Mapping(target = "shifts", ignore = true)
+    @Mapping(target = "followingUp", ignore = true)
+    @Mapping(target = "referencedBy", ignore = true)
+    @Mapping(target = "isEmpty", expression = "java(isTextEmpty(entry))")
+    @Mapping(target = "excerpt", source = "textExcerpt")
+    public abstract EntrySummaryDTO toSearchResultWithoutRelations(Entry entry);
+
+    @Mapping(target = "references", ignore = true)
+    protected abstract Entry toEntry(EntryNewDTO entryNewDTO, String firstName, String lastName, String userName);
+
+    @Mapping(target = "references", ignore = true)
+    protected abstract Entry toEntry(EntryImportDTO entryNewDTO, List<String> attachments);
+
+    /**
+     * Create the entry model, the body is parsed once to find the references and to fill
+     * the derived fields
+     */
+    public Entry fromDTO(EntryNewDTO entryNewDTO, String firstName, String lastName, String userName) {
+        Entry entry = toEntry(entryNewDTO, firstName, lastName, userName);
+        EntryTextUtilities.fillDerivedFields(entry, true);
+        return entry;
+    }
+
+    /**
+     * Create the entry model for the import, the body is parsed once to find the references and to fill
+     * the derived fields
+     */
+    public Entry fromDTO(EntryImportDTO entryNewDTO, List<String> attachments) {
+        Entry entry = toEntry(entryNewDTO, attachments);
+        EntryTextUtilities.fillDerivedFields(entry, true);
+        return entry;
+    }
+
+    /**
+     * Return true if the entry body contains a reference, the stored value is used when present
+     *
+     * @param entry the entry
+     * @return true if the body contains a reference
+     */
+    public boolean hasReferencesInBody(Entry entry) {
+        if (entry.getReferencesInBody() != null) return entry.getReferencesInBody();
+        return checkReferenceInBody(entry.getText());
+    }
+
+    /**
+     * Return true if the entry body is empty, the stored value is used when present
+     *
+     * @param entry the entry
+     * @return true if the body is empty
+     */
+    public boolean isTextEmpty(Entry entry) {
+        if (entry.getTextEmpty() != null) return entry.getTextEmpty();
+        return entry.getText() == null || entry.getText().isEmpty();
     }
 
     /**
@@ -92,25 +129,6 @@ public abstract class EntryMapper {
         return !elements.isEmpty();
     }
 
-    /**
-     * Fill the referenced by of an entry
-     *
-     * @param id the unique id of an entry
-     * @return all the id of the entries that refer the entry identified by the Id
-     */
-    public List<String> getReferenceBy(String id) {
-        if (id == null || id.isEmpty()) return null;
-        return wrapCatch(
-                () -> entryRepository.findAllByReferencesContainsAndSupersededByExists(id, false)
-                        .stream()
-                        .map(
-                                Entry::getId
-                        ).toList(),
-                -1,
-                "EntryMapper::getFollowgetReferenceByingUp"
-        );
-    }
-
     /**
      * Create a list of references from the text
      *
@@ -119,18 +137,7 @@ public abstract class EntryMapper {
      */
     @Named("createReferences")
     public List<String> createReferences(String text) {
-        List<String> result = new ArrayList<>();
-        if (text == null || text.isEmpty()) return result;
-        Document document = Jsoup.parseBodyFragment(text);
-        Elements elements = document.select(ELOG_ENTRY_REF);
-        for (Element element : elements) {
-            // Get the 'id' attribute
-            if(!element.hasAttr(ELOG_ENTRY_REF_ID)) continue;
-            String id = element.attr(ELOG_ENTRY_REF_ID);
-            if(id.isEmpty() || result.contains(id)) continue;
-            result.add(id);
-        }
-        return result;
+        return EntryTextUtilities.findReferences(EntryTextUtilities.parse(text));
     }
 
     /**
@@ -144,12 +151,7 @@ public abstract class EntryMapper {
             return null;
         }
 
-        List<AttachmentDTO> list = new ArrayList<>(attachments.size());
-        for (String attachmentID : attachments) {
-            list.add(attachmentService.getAttachment(attachmentID));
-
-        }
-        return list;
+        return attachmentService.getAttachments(attachments);
     }
 
     /**
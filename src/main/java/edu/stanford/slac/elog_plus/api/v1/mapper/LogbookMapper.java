@@ -10,19 +10,22 @@ import edu.stanford.slac.ad.eed.baselib.api.v1.mapper.AuthMapper;
 import edu.stanford.slac.ad.eed.baselib.config.AppProperties;
 import edu.stanford.slac.ad.eed.baselib.model.Authorization;
 import edu.stanford.slac.ad.eed.baselib.model.AuthorizationOwnerType;
-import edu.stanford.slac.ad.eed.baselib.service.PeopleGroupService;
 import edu.stanford.slac.elog_plus.api.v1.dto.*;
 import edu.stanford.slac.elog_plus.config.ELOGAppProperties;
 import edu.stanford.slac.elog_plus.model.Entry;
 import edu.stanford.slac.elog_plus.model.Logbook;
+import edu.stanford.slac.elog_plus.repository.AuthorizationBatchRepository;
 import edu.stanford.slac.elog_plus.service.AuthorizationServices;
+import edu.stanford.slac.elog_plus.service.cache.PersonDirectoryCache;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.ReportingPolicy;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static edu.stanford.slac.ad.eed.baselib.exception.Utility.wrapCatch;
 
@@ -35,6 +38,8 @@ public abstract class LogbookMapper {
     @Autowired
     protected AuthorizationRepository authorizationRepository;
     @Autowired
+    protected AuthorizationBatchRepository authorizationBatchRepository;
+    @Autowired
     protected AuthenticationTokenRepository authenticationTokenRepository;
     @Autowired
     protected AuthMapper authMapper;
@@ -43,7 +48,7 @@ public abstract class LogbookMapper {
     @Autowired
     protected ELOGAppProperties elogAppProperties;
     @Autowired
-    protected PeopleGroupService peopleGroupService;
+    protected PersonDirectoryCache personDirectoryCache;
     @Autowired
     protected AuthorizationServices authorizationServices;
 
@@ -68,6 +73,48 @@ public abstract class LogbookMapper {
 
     public abstract UpdateLogbookDTO toUpdateDTO(LogbookDTO logbook);
 
+    /**
+     * Convert the logbooks, when the authorizations are included they are loaded for all
+     * the logbooks with a single query
+     *
+     * @param logbooks              the logbooks to convert
+     * @param includeAuthorizations if false an empty list is returned as list of authorizations
+     * @return the converted logbooks in the same order
+     */
+    public List<LogbookDTO> fromModels(List<Logbook> logbooks, boolean includeAuthorizations) {
+        if (!includeAuthorizations) {
+            return logbooks.stream().map(lb -> fromModel(lb, false)).toList();
+        }
+        Map<String, List<Authorization>> authorizationsByResource = wrapCatch(
+                () -> authorizationBatchRepository.findByResourceIn(
+                        logbooks.stream().map(lb -> getLogbookResource(lb.getId())).toList()
+                ),
+                -1,
+                "LogbookMapper::fromModels"
+        );
+        // resolve each user once, the owner labels are shared by all the logbooks
+        Map<String, String> ownerLabels = new HashMap<>();
+        personDirectoryCache.findPersonsByEMail(
+                authorizationsByResource.values().stream()
+                        .flatMap(List::stream)
+                        .filter(a -> a.getOwnerType() == AuthorizationOwnerType.User)
+                        .map(Authorization::getOwner)
+                        .toList()
+        ).forEach((mail, person) -> ownerLabels.put(getOwnerKey(AuthorizationOwnerTypeDTO.User, mail), person.gecos()));
+        return logbooks.stream().map(
+                lb -> fromModel(lb, false)
+                        .toBuilder()
+                        .authorizations(
+                                toLogbookAuthorizations(
+                                        lb,
+                                        authorizationsByResource.getOrDefault(getLogbookResource(lb.getId()), Collections.emptyList()),
+                                        ownerLabels
+                                )
+                        )
+                        .build()
+        ).toList();
+    }
+
     /**
      * Return all the authorizations for a logbook
      *
@@ -79,23 +126,47 @@ public abstract class LogbookMapper {
         if (logbook == null) return Collections.emptyList();
         if (!includeAuthorizations) return Collections.emptyList();
         return wrapCatch(
-                () -> authorizationRepository.findByResourceIs(String.format("/logbook/%s", logbook.getId()))
-                        .stream()
-                        .map(
-                                auth -> {
-                                    var convertedAuth = fromAuthorization(auth);
-                                    return convertedAuth.toBuilder()
-                                            .resourceId(logbook.getId())
-                                            .resourceName(logbook.getName())
-                                            .resourceType(ResourceTypeDTO.Logbook)
-                                            .build();
-                                }
-                        ).toList(),
+                () -> toLogbookAuthorizations(
+                        logbook,
+                        authorizationRepository.findByResourceIs(getLogbookResource(logbook.getId())),
+                        new HashMap<>()
+                ),
                 -1,
                 "LogbookMapper::getAuthorizations"
         );
     }
 
+    /**
+     * Convert the authorizations of a logbook
+     *
+     * @param logbook        the logbook
+     * @param authorizations the authorizations on the logbook
+     * @param ownerLabels    the owner labels already resolved, updated with the new ones
+     * @return the converted authorizations
+     */
+    private List<DetailsAuthorizationDTO> toLogbookAuthorizations(Logbook logbook, List<Authorization> authorizations, Map<String, String> ownerLabels) {
+        return authorizations
+                .stream()
+                .map(
+                        auth -> {
+                            var convertedAuth = fromAuthorizationDTO(authMapper.fromModel(auth), ownerLabels);
+                            return convertedAuth.toBuilder()
+                                    .resourceId(logbook.getId())
+                                    .resourceName(logbook.getName())
+                                    .resourceType(ResourceTypeDTO.Logbook)
+                                    .build();
+                        }
+                ).toList();
+    }
+
+    private static String getLogbookResource(String logbookId) {
+        return String.format("/logbook/%s", logbookId);
+    }
+
+    private static String getOwnerKey(AuthorizationOwnerTypeDTO ownerType, String owner) {
+        return "%s:%s".formatted(ownerType, owner);
+    }
+
     /**
      * Return all the authorizations for a logbook
      *
@@ -114,31 +185,55 @@ public abstract class LogbookMapper {
      * @return the list of ownerId authorizations
      */
     public DetailsAuthorizationDTO fromAuthorizationDTO(AuthorizationDTO authorization) {
+        return fromAuthorizationDTO(authorization, new HashMap<>());
+    }
+
+    /**
+     * Return all the authorizations for a logbook
+     *
+     * @param authorization standard authorization
+     * @param ownerLabels   the owner labels already resolved, updated with the new ones
+     * @return the list of ownerId authorizations
+     */
+    private DetailsAuthorizationDTO fromAuthorizationDTO(AuthorizationDTO authorization, Map<String, String> ownerLabels) {
         String ownerLabel = authorization.owner();
+        if (authorization.ownerType() != null) {
+            ownerLabel = ownerLabels.computeIfAbsent(
+                    getOwnerKey(authorization.ownerType(), authorization.owner()),
+                    k -> getOwnerLabel(authorization)
+            );
+        }
+        return DetailsAuthorizationDTO.builder()
+                .id(authorization.id())
+                .ownerId(authorization.owner())
+                .ownerType(authorization.ownerType())
+                .ownerName(ownerLabel)
+                .permission(authorization.authorizationType())
+                .build();
+    }
+
+    /**
+     * Resolve the label of the owner of the authorization
+     *
+     * @param authorization the authorization
+     * @return the label of the owner
+     */
+    private String getOwnerLabel(AuthorizationDTO authorization) {
         switch(authorization.ownerType()){
             case User: {
-                PersonDTO person = peopleGroupService.findPersonByEMail(authorization.owner());
-                ownerLabel = person != null ? person.gecos() : null;
-                break;
+                PersonDTO person = personDirectoryCache.findPersonByEMail(authorization.owner());
+                return person != null ? person.gecos() : null;
             }
             case Group: {
                 var groupFound = authorizationServices.findGroup(authorization.owner(), false, false);
-                ownerLabel = groupFound != null ? groupFound.name() : null;
-                break;
+                return groupFound != null ? groupFound.name() : null;
             }
             case Token: {
                 var foundApplication = authorizationServices.getApplicationById(authorization.owner(), false);
-                ownerLabel = foundApplication != null ? foundApplication.name() : null;
-                break;
+                return foundApplication != null ? foundApplication.name() : null;
             }
         }
-        return DetailsAuthorizationDTO.builder()
-                .id(authorization.id())
-                .ownerId(authorization.owner())
-                .ownerType(authorization.ownerType())
-                .ownerName(ownerLabel)
-                .permission(authorization.authorizationType())
-                .build();
+        return authorization.owner();
     }
 
     /**
@@ -1,6 +1,7 @@
 package edu.stanford.slac.elog_plus.api.v1.mapper;
 
 import edu.stanford.slac.elog_plus.api.v1.dto.QueryWithAnchorDTO;
+import edu.stanford.slac.elog_plus.model.EntryCursor;
 import edu.stanford.slac.elog_plus.model.QueryParameterWithAnchor;
 import org.mapstruct.Mapper;
 import org.mapstruct.ReportingPolicy;
@@ -12,4 +13,14 @@ import org.mapstruct.factory.Mappers;
 )
 public abstract class QueryParameterMapper {
     public abstract QueryParameterWithAnchor fromDTO(QueryWithAnchorDTO parameter);
+
+    /**
+     * Decode the opaque cursor
+     *
+     * @param cursor the opaque cursor
+     * @return the decoded cursor
+     */
+    public EntryCursor toCursor(String cursor) {
+        return EntryCursor.decode(cursor);
+    }
 }
@@ -31,4 +31,85 @@ public class ELOGAppProperties {
      * The expiration time in hours for the attachments
      */
     private Integer attachmentExpirationMinutes;
+    /**
+     * Use a single aggregation to load the anchor and the entries around it during the search
+     */
+    private Boolean searchUseAggregation = true;
+    /**
+     * The delay in milliseconds between two runs of the task that restamps the shifts on the entries
+     */
+    private Long shiftStampFixedDelayMs = 10000L;
+    /**
+     * The number of entries restamped in one batch
+     */
+    private Integer shiftStampBatchSize = 500;
+    /**
+     * The max number of entries kept in the cache of the access metadata
+     */
+    private Integer entryAccessCacheSize = 10000;
+    /**
+     * The max number of origin ids of the imported entries kept in cache
+     */
+    private Integer originIdCacheSize = 10000;
+    /**
+     * The time to live in seconds of the logbooks authorized to a user kept in cache, zero disables the cache
+     */
+    private Integer authorizedLogbookCacheTtlSeconds = 60;
+    /**
+     * The max number of users, per authorization type, with the authorized logbooks kept in cache
+     */
+    private Integer authorizedLogbookCacheSize = 10000;
+    /**
+     * The max number of validated user and application tokens kept in cache
+     */
+    private Integer validatedTokenCacheSize = 10000;
+    /**
+     * The max time in seconds a validated token is kept in cache, the token is never kept after its expiration
+     */
+    private Integer validatedTokenCacheMaxTtlSeconds = 300;
+    /**
+     * The max number of persons, and person searches, kept in cache
+     */
+    private Integer personCacheSize = 5000;
+    /**
+     * The time in seconds a person found on the directory is kept in cache
+     */
+    private Integer personCacheTtlSeconds = 600;
+    /**
+     * The time in seconds a person not found on the directory is kept in cache
+     */
+    private Integer personCacheNegativeTtlSeconds = 60;
+    /**
+     * Run the request scoped parallel work on virtual threads, when false a fixed pool of platform threads is used
+     */
+    private Boolean fanOutVirtualThreads = true;
+    /**
+     * The max number of request scoped parallel tasks running at the same time
+     */
+    private Integer fanOutMaxConcurrency = 32;
+    /**
+     * The min number of items for which a list is mapped in parallel, the smaller lists are mapped on the calling thread
+     */
+    private Integer fanOutParallelThreshold = 16;
+    /**
+     * The max time in milliseconds given to the lookups of the optional sections of a full entry
+     */
+    private Integer fullEntryDeadlineMs = 10000;
+    /**
+     * The max number of previous versions returned as history of an entry, the older versions are not returned
+     */
+    private Integer historyMaxDepth = 200;
+    /**
+     * The max number of entries that can be created with one bulk request
+     */
+    private Integer bulkEntryMaxSize = 500;
+    /**
+     * If true the import entry topic is consumed in batch, the records of a batch are grouped by
+     * authentication and logbooks and the entries of each group are created with one bulk insert
+     */
+    private Boolean importBatchEnabled = false;
+    /**
+     * The max number of import records consumed in one batch
+     */
+    private Integer importBatchMaxRecords = 500;
 }
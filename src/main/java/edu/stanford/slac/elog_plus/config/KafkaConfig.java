@@ -37,6 +37,8 @@ public class KafkaConfig {
     private final KafkaProperties kafkaProperties;
     @Value("${edu.stanford.slac.elog-plus.kafka-consumer-concurrency}")
     private int concurrencyLevel = 1;
+    @Value("${edu.stanford.slac.elog-plus.import-batch-max-records}")
+    private int importBatchMaxRecords = 500;
 
     @Bean
     public DefaultErrorHandler errorHandler() {
@@ -77,10 +79,20 @@ public class KafkaConfig {
 
     @Bean
     public ConsumerFactory<String, ImportEntryDTO> importEntryKafkaListenerConsumerFactory() {
+        // Calculate max poll records based on concurrency level
+        return createImportEntryConsumerFactory(2 * concurrencyLevel);
+    }
+
+    @Bean
+    public ConsumerFactory<String, ImportEntryDTO> importEntryBatchKafkaListenerConsumerFactory() {
+        // the batch listener drains up to the max number of records of a batch for each poll
+        return createImportEntryConsumerFactory(importBatchMaxRecords);
+    }
+
+    private ConsumerFactory<String, ImportEntryDTO> createImportEntryConsumerFactory(int maxPollRecords) {
         Map<String, Object> props = kafkaProperties.buildConsumerProperties(null);
 
-        // Calculate max poll records based on concurrency level
-        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 2 * concurrencyLevel);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
         props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
         props.put(ErrorHandlingDeserializer.KEY_DESERIALIZER_CLASS, StringDeserializer.class.getName());  // Replace JsonDeserializer with your key deserializer if different
@@ -114,6 +126,17 @@ public class KafkaConfig {
         return factory;
     }
 
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, ImportEntryDTO> importEntryBatchKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, ImportEntryDTO> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(importEntryBatchKafkaListenerConsumerFactory());
+        factory.setConcurrency(concurrencyLevel);
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);  // Set AckMode to MANUAL
+        return factory;
+    }
+
     @Bean
     public ProducerFactory<String, Attachment> attachementProducerFactory() {
         Map<String, Object> props = kafkaProperties.buildProducerProperties(null);
@@ -2,6 +2,7 @@ package edu.stanford.slac.elog_plus.config;
 
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.AllArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -39,4 +40,100 @@ public class MetricsConfiguration {
                 .description("The number of preview request submitted")
                 .register(meterRegistry);
     }
+
+    @Bean
+    public Counter logbookSnapshotHitCounter() {
+        return Counter
+                .builder("elog_plus_logbook_snapshot")
+                .tag("result", "hit")
+                .description("The number of logbook lookups served by the in memory snapshot")
+                .register(meterRegistry);
+    }
+
+    @Bean
+    public Counter logbookSnapshotMissCounter() {
+        return Counter
+                .builder("elog_plus_logbook_snapshot")
+                .tag("result", "miss")
+                .description("The number of logbook lookups that needed to load the snapshot")
+                .register(meterRegistry);
+    }
+
+    @Bean
+    public Counter authorizedLogbookCacheHitCounter() {
+        return Counter
+                .builder("elog_plus_authorized_logbook_cache")
+                .tag("result", "hit")
+                .description("The number of authorized logbooks lookups served by the cache")
+                .register(meterRegistry);
+    }
+
+    @Bean
+    public Counter authorizedLogbookCacheMissCounter() {
+        return Counter
+                .builder("elog_plus_authorized_logbook_cache")
+                .tag("result", "miss")
+                .description("The number of authorized logbooks lookups that needed to load the authorizations")
+                .register(meterRegistry);
+    }
+
+    @Bean
+    public Counter validatedTokenCacheHitCounter() {
+        return Counter
+                .builder("elog_plus_validated_token_cache")
+                .tag("result", "hit")
+                .description("The number of authentications served by the validated token cache")
+                .register(meterRegistry);
+    }
+
+    @Bean
+    public Counter validatedTokenCacheMissCounter() {
+        return Counter
+                .builder("elog_plus_validated_token_cache")
+                .tag("result", "miss")
+                .description("The number of authentications that needed to validate the token")
+                .register(meterRegistry);
+    }
+
+    @Bean
+    public Counter personCacheHitCounter() {
+        return Counter
+                .builder("elog_plus_person_cache")
+                .tag("result", "hit")
+                .description("The number of person lookups served by the cache")
+                .register(meterRegistry);
+    }
+
+    @Bean
+    public Counter personCacheMissCounter() {
+        return Counter
+                .builder("elog_plus_person_cache")
+                .tag("result", "miss")
+                .description("The number of person lookups sent to the directory")
+                .register(meterRegistry);
+    }
+
+    @Bean
+    public Timer logbookSnapshotLoadTimer() {
+        return Timer
+                .builder("elog_plus_logbook_snapshot_load")
+                .description("The time spent to load the logbook snapshot")
+                .register(meterRegistry);
+    }
+
+    @Bean
+    public Timer fanOutTaskTimer() {
+        return Timer
+                .builder("elog_plus_fan_out_task")
+                .description("The time spent to run a request scoped parallel task")
+                .register(meterRegistry);
+    }
+
+    @Bean
+    public Timer fanOutQueueTimer() {
+        return Timer
+                .builder("elog_plus_fan_out_queue")
+                .description("The time a request scoped parallel task waits before running")
+                .register(meterRegistry);
+    }
 }
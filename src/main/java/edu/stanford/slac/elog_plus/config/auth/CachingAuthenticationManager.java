@@ -0,0 +1,39 @@
+package edu.stanford.slac.elog_plus.config.auth;
+
+import edu.stanford.slac.ad.eed.baselib.auth.jwt.SLACAuthenticationToken;
+import edu.stanford.slac.elog_plus.service.cache.ValidatedTokenCache;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+/**
+ * Authentication manager that reuse the authentication already resolved for the same
+ * token, the resolution is delegated to the wrapped manager on a cache miss
+ */
+public class CachingAuthenticationManager implements AuthenticationManager {
+    private final AuthenticationManager delegate;
+    private final ObjectProvider<ValidatedTokenCache> validatedTokenCacheProvider;
+
+    public CachingAuthenticationManager(AuthenticationManager delegate, ObjectProvider<ValidatedTokenCache> validatedTokenCacheProvider) {
+        this.delegate = delegate;
+        this.validatedTokenCacheProvider = validatedTokenCacheProvider;
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        if (!(authentication instanceof SLACAuthenticationToken) ||
+                !(authentication.getCredentials() instanceof String token) ||
+                token.isEmpty()) {
+            return delegate.authenticate(authentication);
+        }
+        ValidatedTokenCache validatedTokenCache = validatedTokenCacheProvider.getObject();
+        Authentication cached = validatedTokenCache.get(token);
+        if (cached != null) return cached;
+        Authentication result = delegate.authenticate(authentication);
+        if (result != null && result.isAuthenticated()) {
+            validatedTokenCache.put(token, result);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,30 @@
+package edu.stanford.slac.elog_plus.config.auth;
+
+import edu.stanford.slac.elog_plus.service.cache.ValidatedTokenCache;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.stereotype.Component;
+
+/**
+ * Wrap the authentication manager used by the http filters and by the import consumer
+ * with the {@link CachingAuthenticationManager}
+ */
+@Component
+public class CachingAuthenticationManagerPostProcessor implements BeanPostProcessor {
+    private final ObjectProvider<ValidatedTokenCache> validatedTokenCacheProvider;
+
+    public CachingAuthenticationManagerPostProcessor(ObjectProvider<ValidatedTokenCache> validatedTokenCacheProvider) {
+        this.validatedTokenCacheProvider = validatedTokenCacheProvider;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if (bean instanceof AuthenticationManager authenticationManager &&
+                !(bean instanceof CachingAuthenticationManager)) {
+            return new CachingAuthenticationManager(authenticationManager, validatedTokenCacheProvider);
+        }
+        return bean;
+    }
+}
@@ -13,6 +13,7 @@ import edu.stanford.slac.elog_plus.service.LogbookService;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.annotation.RetryableTopic;
 import org.springframework.kafka.support.Acknowledgment;
@@ -36,6 +37,7 @@ import static edu.stanford.slac.ad.eed.baselib.exception.Utility.*;
 @Log4j2
 @Component
 @AllArgsConstructor
+@ConditionalOnProperty(name = "edu.stanford.slac.elog-plus.import-batch-enabled", havingValue = "false", matchIfMissing = true)
 public class ProcessLogImport {
     private final AuthService authService;
     private final ImportService importService;
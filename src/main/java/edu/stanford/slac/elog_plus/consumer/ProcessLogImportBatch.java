@@ -0,0 +1,269 @@
+package edu.stanford.slac.elog_plus.consumer;
+
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationTypeDTO;
+import edu.stanford.slac.ad.eed.baselib.auth.jwt.SLACAuthenticationToken;
+import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
+import edu.stanford.slac.ad.eed.baselib.exception.NotAuthorized;
+import edu.stanford.slac.ad.eed.baselib.service.AuthService;
+import edu.stanford.slac.elog_plus.api.v1.dto.BulkEntryResultDTO;
+import edu.stanford.slac.elog_plus.api.v1.dto.EntryImportDTO;
+import edu.stanford.slac.elog_plus.api.v1.dto.NewLogbookDTO;
+import edu.stanford.slac.elog_plus.api.v2.dto.ImportEntryDTO;
+import edu.stanford.slac.elog_plus.service.ImportService;
+import edu.stanford.slac.elog_plus.service.LogbookService;
+import lombok.extern.log4j.Log4j2;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static edu.stanford.slac.ad.eed.baselib.exception.Utility.*;
+
+/**
+ * Consume the import entry topic in batch, it replaces {@link ProcessLogImport} when the batch import is enabled.
+ * <p>
+ * The consecutive records of a batch with the same authentication token and logbooks are imported together, for
+ * each run the user is authenticated, the logbooks, the readers and the tags are ensured once and the entries are
+ * created with one bulk insert. The runs are imported in order and the records that can't be imported are sent to
+ * the dead letter topic. When a run fails for a transient error the batch is acknowledged until its first record
+ * and the others are redelivered, so no record already handled is redelivered.
+ */
+@Log4j2
+@Component
+@ConditionalOnProperty(name = "edu.stanford.slac.elog-plus.import-batch-enabled", havingValue = "true")
+public class ProcessLogImportBatch {
+    private static final Duration REDELIVERY_DELAY = Duration.ofSeconds(2);
+    private static final int MAX_REDELIVERY_ATTEMPTS = 5;
+    private final AuthService authService;
+    private final ImportService importService;
+    private final LogbookService logbookService;
+    private final AuthenticationManager authenticationManager;
+    private final DeadLetterPublishingRecoverer deadLetterPublishingRecoverer;
+    // the number of times a run has been redelivered, by topic, partition and offset of its first record
+    private final Map<String, Integer> redeliveryAttempts = new ConcurrentHashMap<>();
+
+    public ProcessLogImportBatch(
+            AuthService authService,
+            ImportService importService,
+            LogbookService logbookService,
+            AuthenticationManager authenticationManager,
+            KafkaTemplate<String, ImportEntryDTO> importEntryDTOKafkaTemplate) {
+        this.authService = authService;
+        this.importService = importService;
+        this.logbookService = logbookService;
+        this.authenticationManager = authenticationManager;
+        // the same dead letter topic used by the retryable topic of the single record listener
+        this.deadLetterPublishingRecoverer = new DeadLetterPublishingRecoverer(
+                importEntryDTOKafkaTemplate,
+                (consumerRecord, exception) -> new TopicPartition(consumerRecord.topic() + "-dlt", -1)
+        );
+    }
+
+    @KafkaListener(
+            topics = "${edu.stanford.slac.elog-plus.import-entry-topic}",
+            containerFactory = "importEntryBatchKafkaListenerContainerFactory"
+    )
+    public void processImportBatch(List<ConsumerRecord<String, ImportEntryDTO>> records, Acknowledgment acknowledgment) {
+        log.info("[import batch] received {} records", records.size());
+        // split the batch in runs of consecutive records with the same authorization and logbooks, the runs are
+        // imported in the order of the batch so when a run fails all the records before it have been handled
+        // and none of the records after it
+        List<ImportRun> runs = new ArrayList<>();
+        for (int idx = 0; idx < records.size(); idx++) {
+            ConsumerRecord<String, ImportEntryDTO> consumerRecord = records.get(idx);
+            Header authorization = consumerRecord.headers().lastHeader("Authorization");
+            ImportEntryDTO importEntryDTO = consumerRecord.value();
+            ImportGroup group = null;
+            if (authorization != null && importEntryDTO != null && importEntryDTO.entry() != null && importEntryDTO.entry().logbooks() != null) {
+                group = new ImportGroup(
+                        new String(authorization.value(), StandardCharsets.UTF_8),
+                        importEntryDTO.entry().logbooks().stream().sorted().distinct().toList()
+                );
+            }
+            ImportRun lastRun = runs.isEmpty() ? null : runs.getLast();
+            if (group != null && lastRun != null && group.equals(lastRun.group())) {
+                lastRun.indexes().add(idx);
+            } else {
+                runs.add(new ImportRun(group, new ArrayList<>(List.of(idx))));
+            }
+        }
+
+        for (ImportRun run : runs) {
+            if (run.group() == null) {
+                deadLetter(records.get(run.indexes().getFirst()), importError(-1, "The record has no authorization, entry or logbooks"));
+                continue;
+            }
+            ConsumerRecord<String, ImportEntryDTO> firstRecord = records.get(run.indexes().getFirst());
+            String attemptKey = "%s-%d@%d".formatted(firstRecord.topic(), firstRecord.partition(), firstRecord.offset());
+            try {
+                importGroup(run.group(), run.indexes(), records);
+                redeliveryAttempts.remove(attemptKey);
+            } catch (RuntimeException e) {
+                if (isPermanentError(e)) {
+                    log.error("[import batch] group on logbooks {} cannot be imported: {}", run.group().logbooks(), e.getMessage());
+                    run.indexes().forEach(idx -> deadLetter(records.get(idx), e));
+                    continue;
+                }
+                int attempts = redeliveryAttempts.merge(attemptKey, 1, Integer::sum);
+                if (attempts > MAX_REDELIVERY_ATTEMPTS) {
+                    log.error("[import batch] group on logbooks {} failed {} times: {}", run.group().logbooks(), attempts, e.getMessage());
+                    redeliveryAttempts.remove(attemptKey);
+                    run.indexes().forEach(idx -> deadLetter(records.get(idx), e));
+                    continue;
+                }
+                log.error("[import batch] group on logbooks {} failed, the records will be redelivered", run.group().logbooks(), e);
+                // acknowledge the records before the run and redeliver it with all the ones after it
+                acknowledgment.nack(run.indexes().getFirst(), REDELIVERY_DELAY);
+                return;
+            } finally {
+                SecurityContextHolder.clearContext();
+            }
+        }
+        acknowledgment.acknowledge();
+    }
+
+    /**
+     * Import all the records of a group, the records that cannot be imported are sent to the dead letter topic
+     */
+    private void importGroup(ImportGroup group, List<Integer> indexes, List<ConsumerRecord<String, ImportEntryDTO>> records) {
+        // create authentication token validating the user token once for the group
+        Authentication authentication = authenticationManager.authenticate(
+                SLACAuthenticationToken
+                        .builder()
+                        .userToken(group.authorization())
+                        .build()
+        );
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+
+        // ensure the logbooks
+        List<String> notFoundLogbook = group.logbooks()
+                .stream()
+                .filter(logbookName -> !logbookService.existByName(logbookName))
+                .toList();
+        assertion(
+                NotAuthorized.notAuthorizedBuilder()
+                        .errorCode(-1)
+                        .errorDomain("ProcessLogImportBatch::importGroup")
+                        .build(),
+                () -> notFoundLogbook.isEmpty() || authService.checkForRoot(authentication)
+        );
+        notFoundLogbook.forEach(
+                logbookName -> {
+                    log.info("[import batch] logbooks {}, creating", logbookName);
+                    logbookService.createNew(
+                            NewLogbookDTO
+                                    .builder()
+                                    .name(logbookName)
+                                    .build()
+                    );
+                }
+        );
+
+        // authorize the readers of all the records on the logbooks
+        Set<String> readerUserIds = new LinkedHashSet<>();
+        Set<String> tagNames = new LinkedHashSet<>();
+        for (int idx : indexes) {
+            ImportEntryDTO importEntryDTO = records.get(idx).value();
+            if (importEntryDTO.readerUserIds() != null) readerUserIds.addAll(importEntryDTO.readerUserIds());
+            if (importEntryDTO.entry().tags() != null) tagNames.addAll(importEntryDTO.entry().tags());
+        }
+        if (!readerUserIds.isEmpty()) {
+            log.info("[import batch] authorize readers {} on {}", readerUserIds, group.logbooks());
+            logbookService.ensureAuthorizationOnLogbook(
+                    group.logbooks(),
+                    new ArrayList<>(readerUserIds),
+                    AuthorizationTypeDTO.Read
+            );
+        }
+
+        // resolve the logbooks and the tags once for the group
+        List<String> logbooksId = importService.getLogbooksIdsByNames(group.logbooks());
+        Map<String, List<String>> tagIdsByName = importService.ensureTagsIdsByName(tagNames, logbooksId);
+        List<EntryImportDTO> entriesToImport = indexes.stream()
+                .map(idx -> records.get(idx).value().entry())
+                .map(
+                        entry -> entry.toBuilder()
+                                .logbooks(logbooksId)
+                                .tags(
+                                        entry.tags() == null ?
+                                                Collections.emptyList() :
+                                                entry.tags().stream().distinct().flatMap(tagName -> tagIdsByName.get(tagName).stream()).toList()
+                                )
+                                .build()
+                )
+                .toList();
+
+        List<BulkEntryResultDTO> results = importService.importEntries(entriesToImport);
+        int imported = 0;
+        for (int idx = 0; idx < results.size(); idx++) {
+            BulkEntryResultDTO result = results.get(idx);
+            if (result.errorCode() == 0) {
+                imported++;
+            } else {
+                deadLetter(records.get(indexes.get(idx)), importError(result.errorCode(), result.errorMessage()));
+            }
+        }
+        log.info("[import batch] {} of {} entries imported on logbooks {}", imported, results.size(), group.logbooks());
+    }
+
+    private void deadLetter(ConsumerRecord<String, ImportEntryDTO> consumerRecord, Exception exception) {
+        log.error("[import batch] record at offset {} sent to the dead letter topic: {}", consumerRecord.offset(), exception.getMessage());
+        try {
+            deadLetterPublishingRecoverer.accept(consumerRecord, exception);
+        } catch (RuntimeException e) {
+            log.error("[import batch] record at offset {} cannot be sent to the dead letter topic", consumerRecord.offset(), e);
+        }
+    }
+
+    /**
+     * Return true if the error doesn't go away redelivering the records: the authentication errors and the typed
+     * errors of the application (not found, not authorized, already exists). The plain {@link ControllerLogicException}
+     * is also used to wrap the database and network failures so it is redelivered, up to
+     * {@link #MAX_REDELIVERY_ATTEMPTS} times.
+     */
+    private static boolean isPermanentError(RuntimeException e) {
+        if (e instanceof AuthenticationException) return true;
+        return e instanceof ControllerLogicException && e.getClass() != ControllerLogicException.class;
+    }
+
+    private static ControllerLogicException importError(int errorCode, String errorMessage) {
+        return ControllerLogicException
+                .builder()
+                .errorCode(errorCode)
+                .errorMessage(errorMessage)
+                .errorDomain("ProcessLogImportBatch::processImportBatch")
+                .build();
+    }
+
+    /**
+     * The records of a batch imported together
+     *
+     * @param authorization the authentication token of the records
+     * @param logbooks      the sorted names of the logbooks of the records
+     */
+    private record ImportGroup(String authorization, List<String> logbooks) {
+    }
+
+    /**
+     * Consecutive records of a batch with the same group
+     *
+     * @param group   the group of the records, null if the record can't be imported
+     * @param indexes the indexes of the records in the batch
+     */
+    private record ImportRun(ImportGroup group, List<Integer> indexes) {
+    }
+}
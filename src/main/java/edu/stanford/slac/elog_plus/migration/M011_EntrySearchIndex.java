@@ -0,0 +1,61 @@
+package edu.stanford.slac.elog_plus.migration;
+
+
+import edu.stanford.slac.elog_plus.model.Entry;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import lombok.AllArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+
+/**
+ * Create the compound indexes used by the entry search. Every search filter on the not superseded
+ * entries, optionally on the logbooks or on the tags, and sorts by the event or the logged date and
+ * by the id. The supersededBy field is the first key, so the missing value is an equality bound and
+ * the $in on the logbooks/tags is merged by date without an in memory sort.
+ * <p>
+ * The logbooks and the tags cannot stay in the same index because they are both arrays.
+ */
+@AllArgsConstructor
+@ChangeUnit(id = "entry-search-index", order = "11", author = "bisegni")
+public class M011_EntrySearchIndex {
+    public static final String SEARCH_LOGBOOKS_EVENT_AT_INDEX = "search-logbooks-eventAt";
+    public static final String SEARCH_LOGBOOKS_LOGGED_AT_INDEX = "search-logbooks-loggedAt";
+    public static final String SEARCH_TAGS_EVENT_AT_INDEX = "search-tags-eventAt";
+    public static final String SEARCH_TAGS_LOGGED_AT_INDEX = "search-tags-loggedAt";
+    public static final String SEARCH_EVENT_AT_INDEX = "search-eventAt";
+    public static final String SEARCH_LOGGED_AT_INDEX = "search-loggedAt";
+    private final MongoTemplate mongoTemplate;
+
+    @Execution
+    public void changeSet() {
+        createSearchIndex(SEARCH_LOGBOOKS_EVENT_AT_INDEX, "logbooks", "eventAt");
+        createSearchIndex(SEARCH_LOGBOOKS_LOGGED_AT_INDEX, "logbooks", "loggedAt");
+        createSearchIndex(SEARCH_TAGS_EVENT_AT_INDEX, "tags", "eventAt");
+        createSearchIndex(SEARCH_TAGS_LOGGED_AT_INDEX, "tags", "loggedAt");
+        createSearchIndex(SEARCH_EVENT_AT_INDEX, null, "eventAt");
+        createSearchIndex(SEARCH_LOGGED_AT_INDEX, null, "loggedAt");
+    }
+
+    private void createSearchIndex(String name, String filterField, String dateField) {
+        Index index = new Index().on("supersededBy", Sort.Direction.ASC);
+        if (filterField != null) {
+            index.on(filterField, Sort.Direction.ASC);
+        }
+        MongoDDLOps.createIndex(
+                Entry.class,
+                mongoTemplate,
+                index
+                        .on(dateField, Sort.Direction.DESC)
+                        .on("_id", Sort.Direction.DESC)
+                        .named(name)
+        );
+    }
+
+    @RollbackExecution
+    public void rollback() {
+
+    }
+}
@@ -0,0 +1,70 @@
+package edu.stanford.slac.elog_plus.migration;
+
+import edu.stanford.slac.elog_plus.model.Entry;
+import edu.stanford.slac.elog_plus.utility.EntryTextUtilities;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+
+/**
+ * Fill the fields derived from the body (references in body, empty flag, plain text excerpt and length)
+ * on the entries created before they were computed at write time. The entries are processed in id order
+ * and in batches, so only a page of bodies is kept in memory.
+ */
+@Log4j2
+@AllArgsConstructor
+@ChangeUnit(id = "fill-entry-text-derived-fields", order = "13", author = "bisegni")
+public class M013_FillEntryTextDerivedFields {
+    private static final int BATCH_SIZE = 500;
+    private final MongoTemplate mongoTemplate;
+
+    @Execution
+    public void changeSet() {
+        long updated = 0;
+        String lastId = null;
+        log.info("[fill entry text derived fields] start");
+        while (true) {
+            Criteria criteria = Criteria.where("textLength").exists(false);
+            if (lastId != null) {
+                criteria = criteria.and("id").gt(lastId);
+            }
+            Query query = new Query(criteria)
+                    .with(Sort.by(Sort.Direction.ASC, "id"))
+                    .limit(BATCH_SIZE);
+            query.fields().include("text");
+            List<Entry> entries = mongoTemplate.find(query, Entry.class);
+            if (entries.isEmpty()) break;
+
+            BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Entry.class);
+            for (Entry entry : entries) {
+                EntryTextUtilities.fillDerivedFields(entry, EntryTextUtilities.parse(entry.getText()));
+                bulkOperations.updateOne(
+                        new Query(Criteria.where("id").is(entry.getId())),
+                        new Update()
+                                .set("referencesInBody", entry.getReferencesInBody())
+                                .set("textEmpty", entry.getTextEmpty())
+                                .set("textExcerpt", entry.getTextExcerpt())
+                                .set("textLength", entry.getTextLength())
+                );
+            }
+            updated += bulkOperations.execute().getModifiedCount();
+            lastId = entries.get(entries.size() - 1).getId();
+            log.info("[fill entry text derived fields] updated entries: {}", updated);
+        }
+        log.info("[fill entry text derived fields] completed with {} updated entries", updated);
+    }
+
+    @RollbackExecution
+    public void rollback() {
+    }
+}
@@ -0,0 +1,78 @@
+package edu.stanford.slac.elog_plus.migration;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.*;
+import edu.stanford.slac.elog_plus.model.Attachment;
+import edu.stanford.slac.elog_plus.model.AttachmentMiniPreview;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Move the mini preview images, stored inline on the attachments, to their own collection. The
+ * attachments are processed in batches in id order, every batch is first copied and then removed
+ * from the attachments so the migration can be restarted.
+ */
+@Log4j2
+@AllArgsConstructor
+@ChangeUnit(id = "move-attachment-mini-preview", order = "14", author = "bisegni")
+public class M014_MoveAttachmentMiniPreview {
+    private static final int BATCH_SIZE = 200;
+    private final MongoTemplate mongoTemplate;
+
+    @Execution
+    public void changeSet() {
+        MongoCollection<Document> attachmentCollection = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Attachment.class));
+        MongoCollection<Document> miniPreviewCollection = mongoTemplate.getCollection(mongoTemplate.getCollectionName(AttachmentMiniPreview.class));
+        long moved = 0;
+        log.info("[move mini preview] start");
+        while (true) {
+            List<Document> batch = attachmentCollection
+                    .find(Filters.exists("miniPreview"))
+                    .projection(Projections.include("miniPreview"))
+                    .sort(Sorts.ascending("_id"))
+                    .limit(BATCH_SIZE)
+                    .into(new ArrayList<>());
+            if (batch.isEmpty()) break;
+
+            List<WriteModel<Document>> copies = new ArrayList<>();
+            List<Object> ids = new ArrayList<>();
+            for (Document attachment : batch) {
+                ids.add(attachment.get("_id"));
+                Object data = attachment.get("miniPreview");
+                if (data == null) continue;
+                copies.add(
+                        new ReplaceOneModel<>(
+                                // same id of the attachment, as the repository would store it
+                                Filters.eq("_id", attachment.get("_id")),
+                                new Document("_id", attachment.get("_id")).append("data", data),
+                                new ReplaceOptions().upsert(true)
+                        )
+                );
+            }
+            if (!copies.isEmpty()) {
+                miniPreviewCollection.bulkWrite(copies, new BulkWriteOptions().ordered(false));
+            }
+            // set the flag only on the attachments that had the image
+            attachmentCollection.updateMany(
+                    Filters.and(Filters.in("_id", ids), Filters.ne("miniPreview", null)),
+                    Updates.set("miniPreviewAvailable", true)
+            );
+            attachmentCollection.updateMany(Filters.in("_id", ids), Updates.unset("miniPreview"));
+            moved += copies.size();
+            log.info("[move mini preview] moved mini previews: {}", moved);
+        }
+        log.info("[move mini preview] completed with {} moved mini previews", moved);
+    }
+
+    @RollbackExecution
+    public void rollback() {
+    }
+}
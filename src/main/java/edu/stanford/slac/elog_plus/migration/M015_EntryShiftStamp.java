@@ -0,0 +1,54 @@
+package edu.stanford.slac.elog_plus.migration;
+
+
+import edu.stanford.slac.elog_plus.model.Entry;
+import edu.stanford.slac.elog_plus.model.Logbook;
+import edu.stanford.slac.elog_plus.repository.ShiftStampJobRepositoryImpl;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Query;
+
+/**
+ * Create the index to filter the entries by the stamped shifts and request the restamp
+ * of all the logbooks, the existing entries are stamped in background by the shift stamp task.
+ */
+@Log4j2
+@AllArgsConstructor
+@ChangeUnit(id = "entry-shift-stamp", order = "15", author = "bisegni")
+public class M015_EntryShiftStamp {
+    public static final String SHIFTS_EVENT_AT_INDEX = "shifts-eventAt";
+    private final MongoTemplate mongoTemplate;
+
+    @Execution
+    public void changeSet() {
+        MongoDDLOps.createIndex(
+                Entry.class,
+                mongoTemplate,
+                new Index()
+                        .on("shifts", Sort.Direction.ASC)
+                        .on("eventAt", Sort.Direction.DESC)
+                        .on("_id", Sort.Direction.DESC)
+                        .named(SHIFTS_EVENT_AT_INDEX)
+        );
+        ShiftStampJobRepositoryImpl shiftStampJobRepository = new ShiftStampJobRepositoryImpl(mongoTemplate);
+        Query query = new Query();
+        query.fields().include("id");
+        mongoTemplate.find(query, Logbook.class).forEach(
+                logbook -> {
+                    shiftStampJobRepository.request(logbook.getId());
+                    log.info("[entry shift stamp] requested the restamp of the logbook {}", logbook.getId());
+                }
+        );
+    }
+
+    @RollbackExecution
+    public void rollback() {
+
+    }
+}
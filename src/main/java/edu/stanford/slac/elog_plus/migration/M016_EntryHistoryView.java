@@ -0,0 +1,48 @@
+package edu.stanford.slac.elog_plus.migration;
+
+import edu.stanford.slac.elog_plus.model.Entry;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.List;
+
+/**
+ * Create the view used to walk the supersede chain of an entry with a $graphLookup. The
+ * supersededBy field store the id as string, so the view exposes the id as string too
+ * ('_idStr') to be used as the field that connects to the previous version. The view
+ * doesn't expose the body of the entries.
+ */
+@Log4j2
+@AllArgsConstructor
+@ChangeUnit(id = "entry-history-view", order = "16", author = "bisegni")
+public class M016_EntryHistoryView {
+    public static final String ENTRY_HISTORY_VIEW = "entries_history";
+    private final MongoTemplate mongoTemplate;
+
+    @Execution
+    public void changeSet() {
+        if (mongoTemplate.collectionExists(ENTRY_HISTORY_VIEW)) {
+            log.info("[entry history view] view {} already exists", ENTRY_HISTORY_VIEW);
+            return;
+        }
+        mongoTemplate.getDb().createView(
+                ENTRY_HISTORY_VIEW,
+                mongoTemplate.getCollectionName(Entry.class),
+                List.of(
+                        new Document("$project", new Document("text", 0)),
+                        new Document("$addFields", new Document("_idStr", new Document("$toString", "$_id")))
+                )
+        );
+        log.info("[entry history view] view {} created", ENTRY_HISTORY_VIEW);
+    }
+
+    @RollbackExecution
+    public void rollback() {
+        mongoTemplate.dropCollection(ENTRY_HISTORY_VIEW);
+    }
+}
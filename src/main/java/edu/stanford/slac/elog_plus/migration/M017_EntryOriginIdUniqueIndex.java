@@ -0,0 +1,73 @@
+package edu.stanford.slac.elog_plus.migration;
+
+import edu.stanford.slac.elog_plus.model.Entry;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Create the unique index on the origin id of the entries, used to resolve the origin ids
+ * of the imports with one query. Only the imported entries have the origin id so the index
+ * is partial. If the collection already has duplicated origin ids the index is created not
+ * unique and the duplicates are logged, to be fixed by hand.
+ */
+@Log4j2
+@AllArgsConstructor
+@ChangeUnit(id = "entry-origin-id-unique-index", order = "17", author = "bisegni")
+public class M017_EntryOriginIdUniqueIndex {
+    private final MongoTemplate mongoTemplate;
+
+    @Execution
+    public void changeSet() {
+        List<String> duplicatedOriginIds = findDuplicatedOriginIds();
+        Index index = new Index()
+                .on("originId", Sort.Direction.ASC)
+                .named("originId")
+                .partial(PartialIndexFilter.of(Criteria.where("originId").type(2)));
+        if (duplicatedOriginIds.isEmpty()) {
+            index.unique();
+        } else {
+            log.error("[entry origin id index] the origin id index is not unique, duplicated origin ids: {}", duplicatedOriginIds);
+        }
+        MongoDDLOps.createIndex(
+                Entry.class,
+                mongoTemplate,
+                index
+        );
+    }
+
+    @RollbackExecution
+    public void rollback() {
+
+    }
+
+    /**
+     * Return the first duplicated origin ids
+     */
+    private List<String> findDuplicatedOriginIds() {
+        List<String> duplicatedOriginIds = new ArrayList<>();
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(Entry.class))
+                .aggregate(
+                        List.of(
+                                new Document("$match", new Document("originId", new Document("$type", "string"))),
+                                new Document("$group", new Document("_id", "$originId").append("count", new Document("$sum", 1))),
+                                new Document("$match", new Document("count", new Document("$gt", 1))),
+                                new Document("$limit", 100)
+                        )
+                )
+                .allowDiskUse(true)
+                .forEach(document -> duplicatedOriginIds.add(document.getString("_id")));
+        return duplicatedOriginIds;
+    }
+}
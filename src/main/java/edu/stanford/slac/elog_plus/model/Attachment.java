@@ -46,9 +46,11 @@ public class Attachment {
      */
     private String referenceInfo;
     /**
-     * Field to store the preview image
+     * Field to mark that the mini preview has been created, the image
+     * is stored in {@link AttachmentMiniPreview}
      */
-    private byte[] miniPreview;
+    @Builder.Default
+    private Boolean miniPreviewAvailable = false;
     /**
      * Field to mark the in use state
      */
@@ -0,0 +1,36 @@
+package edu.stanford.slac.elog_plus.model;
+
+import lombok.*;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Is the mini preview of an attachment, it is stored apart from the attachment
+ * so the attachment metadata stay small. Once created the mini preview never changes.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString(exclude = "data")
+@Document()
+public class AttachmentMiniPreview {
+    /**
+     * The id of the attachment that the mini preview belongs to
+     */
+    @Id
+    private String id;
+    /**
+     * The jpeg image of the mini preview
+     */
+    private byte[] data;
+    /**
+     * Field to mark the creation date
+     */
+    @CreatedDate
+    private LocalDateTime createdDate;
+}
@@ -36,6 +36,22 @@ public class Entry {
     private String title;
     @TextIndexed
     private String text;
+    /**
+     * True if the body contains at least one reference tag, computed when the body is written
+     */
+    private Boolean referencesInBody;
+    /**
+     * True if the body is empty, computed when the body is written
+     */
+    private Boolean textEmpty;
+    /**
+     * The first characters of the plain text of the body, computed when the body is written
+     */
+    private String textExcerpt;
+    /**
+     * The length of the body, computed when the body is written
+     */
+    private Integer textLength;
     private String note;
     private String lastName;
     private String firstName;
@@ -61,6 +77,11 @@ public class Entry {
     private LocalDateTime loggedAt = LocalDateTime.now();
     @Indexed
     private LocalDateTime eventAt;
+    /**
+     * The ids of the shifts, one for each logbook, that contain the event date. Computed when the entry
+     * is created and restamped in background when the shifts of a logbook change, null if never computed
+     */
+    private List<String> shifts;
     /**
      * The date and time when the activity was created.
      * This field is automatically populated with the creation date and time, using @CreatedDate annotation.
@@ -0,0 +1,101 @@
+package edu.stanford.slac.elog_plus.model;
+
+import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
+import lombok.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+
+/**
+ * Is the position of an entry in the search order, the entries are sorted by
+ * the event (or logged) date and by the id when the date is the same.
+ * The position is exchanged with the client as an opaque string.
+ */
+@Getter
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@EqualsAndHashCode
+public class EntryCursor {
+    private static final String SEPARATOR = "|";
+    private static final String EVENT_DATE = "e";
+    private static final String LOGGED_DATE = "l";
+    /**
+     * True if the position refer to the logged date instead the event date
+     */
+    private boolean sortByLogDate;
+    /**
+     * The value of the date used for the sort
+     */
+    private LocalDateTime date;
+    /**
+     * The unique id of the entry
+     */
+    private String id;
+
+    /**
+     * Create the cursor for the entry
+     *
+     * @param entry         the entry
+     * @param sortByLogDate true if the search is sorted by the logged date
+     * @return the cursor or null if the entry has not the date used for the sort
+     */
+    public static EntryCursor of(Entry entry, boolean sortByLogDate) {
+        LocalDateTime date = sortByLogDate ? entry.getLoggedAt() : entry.getEventAt();
+        if (date == null || entry.getId() == null) return null;
+        return EntryCursor
+                .builder()
+                .sortByLogDate(sortByLogDate)
+                .date(date)
+                .id(entry.getId())
+                .build();
+    }
+
+    /**
+     * Encode the cursor as opaque string
+     *
+     * @return the opaque string
+     */
+    public String encode() {
+        String plain = String.join(
+                SEPARATOR,
+                sortByLogDate ? LOGGED_DATE : EVENT_DATE,
+                String.valueOf(date.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()),
+                id
+        );
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plain.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode the cursor from the opaque string
+     *
+     * @param opaque the string returned by {@link #encode()}
+     * @return the decoded cursor, null if the input is null or empty
+     */
+    public static EntryCursor decode(String opaque) {
+        if (opaque == null || opaque.isEmpty()) return null;
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(opaque), StandardCharsets.UTF_8).split("\\|", 3);
+            if (parts.length != 3 || (!parts[0].equals(EVENT_DATE) && !parts[0].equals(LOGGED_DATE)) || parts[2].isEmpty()) {
+                throw new IllegalArgumentException("wrong cursor format");
+            }
+            return EntryCursor
+                    .builder()
+                    .sortByLogDate(parts[0].equals(LOGGED_DATE))
+                    .date(LocalDateTime.ofInstant(Instant.ofEpochMilli(Long.parseLong(parts[1])), ZoneId.systemDefault()))
+                    .id(parts[2])
+                    .build();
+        } catch (IllegalArgumentException e) {
+            throw ControllerLogicException
+                    .builder()
+                    .errorCode(-1)
+                    .errorMessage("The cursor is not valid")
+                    .errorDomain("EntryCursor::decode")
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package edu.stanford.slac.elog_plus.model;
+
+import lombok.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Is a page of entries returned by the search, along with the relations
+ * that have already been resolved by the query that produced the page
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@Builder(toBuilder = true)
+public class EntrySearchPage {
+    /**
+     * The found entries in the order they need to be returned
+     */
+    @Builder.Default
+    private List<Entry> entries = Collections.emptyList();
+    /**
+     * The id of the entry followed up by each entry of the page, when
+     * null the relation has not been resolved by the search
+     */
+    private Map<String, String> followingUpByEntryId;
+    /**
+     * The ids of the entries that refer each entry of the page, when
+     * null the relation has not been resolved by the search
+     */
+    private Map<String, List<String>> referencedByEntryId;
+}
@@ -35,4 +35,8 @@ public class QueryParameterWithAnchor {
     @Builder.Default
     private Boolean requireAllTags = false;
     private String originId;
+    /**
+     * The position from where to continue the search, it is an alternative to the anchor
+     */
+    private EntryCursor cursor;
 }
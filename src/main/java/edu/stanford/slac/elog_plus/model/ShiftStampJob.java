@@ -0,0 +1,63 @@
+package edu.stanford.slac.elog_plus.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+
+/**
+ * Is the job that restamps the shifts on all the entries of a logbook after its
+ * shifts are changed. The entries are processed in batches ordered by id and the
+ * last processed id is stored, so an interrupted job restarts from where it stopped.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@Document()
+public class ShiftStampJob {
+    /**
+     * The id of the logbook, there is only one job for each logbook
+     */
+    @Id
+    private String id;
+    /**
+     * Incremented on every request, a request that arrives while the job is
+     * running restarts the job from the beginning
+     */
+    private Long generation;
+    /**
+     * The date of the last request
+     */
+    private LocalDateTime requestedAt;
+    /**
+     * The id of the last processed entry, null if the job has to start from the beginning
+     */
+    private String lastEntryId;
+    /**
+     * The number of the entries processed by the current run
+     */
+    @Builder.Default
+    private Long processed = 0L;
+    /**
+     * True when all the entries have been restamped
+     */
+    @Builder.Default
+    private Boolean completed = false;
+    /**
+     * The date when the job has been completed
+     */
+    private LocalDateTime completedAt;
+    /**
+     * Field to mark processing
+     */
+    private String processingId;
+    /**
+     * Field to store the processing timestamp
+     */
+    private Date processingTimestamp;
+}
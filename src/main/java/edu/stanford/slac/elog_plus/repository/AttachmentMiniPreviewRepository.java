@@ -0,0 +1,10 @@
+package edu.stanford.slac.elog_plus.repository;
+
+import edu.stanford.slac.elog_plus.model.AttachmentMiniPreview;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+/**
+ * Repository for the attachment mini previews
+ */
+public interface AttachmentMiniPreviewRepository extends MongoRepository<AttachmentMiniPreview, String> {
+}
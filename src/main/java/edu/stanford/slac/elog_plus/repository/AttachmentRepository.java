@@ -3,8 +3,10 @@ package edu.stanford.slac.elog_plus.repository;
 import edu.stanford.slac.elog_plus.model.Attachment;
 import org.apache.james.mime4j.dom.datetime.DateTime;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -17,6 +19,14 @@ public interface AttachmentRepository  extends MongoRepository<Attachment, Strin
      * @return
      */
     boolean existsByIdAndCanBeDeletedIsFalse(String id);
+
+    /**
+     * Return, with only the id, the attachments that exist and cannot be deleted
+     * @param ids the ids of the attachments
+     * @return the found attachments with only the id
+     */
+    @Query(fields = "{id: 1}")
+    List<Attachment> findIdByIdInAndCanBeDeletedIsFalse(Collection<String> ids);
     List<Attachment> findAllByReferenceInfo(String referenceId);
     // delete all attachment that are expired since some minutes
     void deleteByCreatedDateLessThanAndInUseIsFalse(LocalDateTime expirationTime);
@@ -14,11 +14,11 @@ public interface AttachmentRepositoryCustom {
     void setPreviewID(String id, String previewID);
 
     /**
-     * set the mini-preview
+     * set the mini-preview availability
      * @param id the id of the attachment
-     * @param byteArray the mini preview information
+     * @param available true if the mini preview has been stored
      */
-    void setMiniPreview(String id, byte[] byteArray);
+    void setMiniPreviewAvailable(String id, Boolean available);
 
     /**
      * Set the preview processing state for an attachment
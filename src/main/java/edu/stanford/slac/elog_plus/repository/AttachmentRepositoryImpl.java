@@ -44,15 +44,15 @@ public class AttachmentRepositoryImpl implements AttachmentRepositoryCustom {
     }
 
     @Override
-    public void setMiniPreview(String id, byte[] byteArray) {
+    public void setMiniPreviewAvailable(String id, Boolean available) {
         Query q = new Query();
         q.addCriteria(
                 Criteria.where("id").is(id)
         );
         Update u = new Update();
-        u.set("miniPreview", byteArray);
+        u.set("miniPreviewAvailable", available);
         UpdateResult ur = mongoTemplate.updateFirst(q, u, Attachment.class);
-        log.debug("Set mini preview update operation {}", ur.getModifiedCount() == 1);
+        log.debug("Set mini preview available update operation {}", ur.getModifiedCount() == 1);
     }
 
     @Override
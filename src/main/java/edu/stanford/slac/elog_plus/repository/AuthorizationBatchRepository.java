@@ -0,0 +1,60 @@
+package edu.stanford.slac.elog_plus.repository;
+
+import edu.stanford.slac.ad.eed.baselib.model.Authorization;
+import edu.stanford.slac.ad.eed.baselib.model.AuthorizationOwnerType;
+import lombok.AllArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Load the authorizations of many owners or resources with a single query, the
+ * result is grouped in memory by the owner or by the resource
+ */
+@Repository
+@AllArgsConstructor
+public class AuthorizationBatchRepository {
+    final private MongoTemplate mongoTemplate;
+
+    /**
+     * Return the authorizations of all the owners of the same type
+     *
+     * @param owners    the owners ids
+     * @param ownerType the type of the owners
+     * @return the authorizations grouped by owner, the owners without authorizations are not present
+     */
+    public Map<String, List<Authorization>> findByOwnerIn(Collection<String> owners, AuthorizationOwnerType ownerType) {
+        if (owners == null || owners.isEmpty()) return Collections.emptyMap();
+        Query query = new Query(
+                Criteria.where("owner").in(new HashSet<>(owners))
+                        .and("ownerType").is(ownerType)
+        );
+        return groupBy(mongoTemplate.find(query, Authorization.class), Authorization::getOwner);
+    }
+
+    /**
+     * Return the authorizations of all the resources
+     *
+     * @param resources the resources, as '/logbook/<id>'
+     * @return the authorizations grouped by resource, the resources without authorizations are not present
+     */
+    public Map<String, List<Authorization>> findByResourceIn(Collection<String> resources) {
+        if (resources == null || resources.isEmpty()) return Collections.emptyMap();
+        Query query = new Query(
+                Criteria.where("resource").in(new HashSet<>(resources))
+        );
+        return groupBy(mongoTemplate.find(query, Authorization.class), Authorization::getResource);
+    }
+
+    private Map<String, List<Authorization>> groupBy(List<Authorization> authorizations, Function<Authorization, String> key) {
+        Map<String, List<Authorization>> result = new HashMap<>();
+        for (Authorization authorization : authorizations) {
+            result.computeIfAbsent(key.apply(authorization), k -> new ArrayList<>()).add(authorization);
+        }
+        return result;
+    }
+}
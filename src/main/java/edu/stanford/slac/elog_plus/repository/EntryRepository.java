@@ -7,12 +7,81 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface EntryRepository extends MongoRepository<Entry, String>, EntryRepositoryCustom {
+    /**
+     * The projection used to load the entries that are shown as summary, the body is
+     * excluded because it is not part of the summary and can be very large
+     */
+    String SUMMARY_PROJECTION = "{'text':0}";
+    /**
+     * The projection used to load only the fields needed to check the access to an entry
+     */
+    String ACCESS_METADATA_PROJECTION = "{'logbooks':1}";
+
     List<Entry> findAllByIdIn(List<String> ids);
 
+    /**
+     * Return the entries, with only the id, identified by the ids. Used to check the existence
+     * of many entries with one query
+     * @param ids the ids of the entries
+     * @return the found entries with only the id
+     */
+    @Query(fields = "{id: 1}")
+    List<Entry> findIdByIdIn(Collection<String> ids);
+
+    /**
+     * Return the entries, without the body, identified by the ids
+     * @param ids the ids of the entries
+     * @return the found entries
+     */
+    @Query(fields = SUMMARY_PROJECTION)
+    List<Entry> findSummaryByIdIn(Collection<String> ids);
+
+    /**
+     * Return the entry with only the fields needed to check the access
+     * @param id the id of the entry
+     * @return the found entry with only the logbooks
+     */
+    @Query(fields = ACCESS_METADATA_PROJECTION)
+    Optional<Entry> findAccessMetadataById(String id);
+
+    /**
+     * Return, without the body, the entry superseded by the one identified by the id
+     * @param id the id of the entry that supersedes
+     * @return the superseded entry
+     */
+    @Query(fields = SUMMARY_PROJECTION)
+    Optional<Entry> findSummaryBySupersededBy(String id);
+
+    /**
+     * Return, without the body, the last version of the entry that has the one identified by id as follow-up
+     * @param id the id of the followup record
+     * @return the following up record
+     */
+    @Query(fields = SUMMARY_PROJECTION)
+    Optional<Entry> findSummaryByFollowUpsContainsAndSupersededByIsNull(String id);
+
+    /**
+     * Return, without the body, the entries that refer to another entry
+     * @param referencedEntryId the id of the referenced entry
+     * @param exists if false take in consideration only the last superseeded entry
+     * @return the entries that refer to the entry
+     */
+    @Query(fields = SUMMARY_PROJECTION)
+    List<Entry> findSummaryByReferencesContainsAndSupersededByExists(String referencedEntryId, Boolean exists);
+
+    /**
+     * Return, without the body, all the entry that refer to the attachment
+     * @param attachmentId the attachment id
+     * @return all the entries that refer to the attachment
+     */
+    @Query(fields = SUMMARY_PROJECTION)
+    List<Entry> findSummaryByAttachmentsContains(String attachmentId);
+
     Optional<Entry> findBySupersededBy(String id);
 
     /**
@@ -67,6 +136,14 @@ public interface EntryRepository extends MongoRepository<Entry, String>, EntryRe
      */
     Optional<Entry> findByOriginId(String originId);
 
+    /**
+     * Return the entries, with only the id and the origin id, that have one of the origin ids
+     * @param originIds the ids from the original system
+     * @return the found entries with only the id and the origin id
+     */
+    @Query(fields = "{id: 1, originId: 1}")
+    List<Entry> findOriginIdByOriginIdIn(Collection<String> originIds);
+
     /**
      * Return all the entry that refer to the attachment
      * @param attachmentId the attachment id
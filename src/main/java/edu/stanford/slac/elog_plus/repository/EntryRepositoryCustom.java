@@ -1,12 +1,23 @@
 package edu.stanford.slac.elog_plus.repository;
 
 import edu.stanford.slac.elog_plus.model.Entry;
+import edu.stanford.slac.elog_plus.model.EntrySearchPage;
 import edu.stanford.slac.elog_plus.model.QueryParameterWithAnchor;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface EntryRepositoryCustom {
     List<Entry> searchAll(QueryParameterWithAnchor queryWithAnchorDTO);
+
+    /**
+     * Search the entries returning also the relations that the search has been able to resolve
+     * in the same round trip
+     * @param queryWithAnchorDTO the search parameter
+     * @return the found page
+     */
+    EntrySearchPage searchPage(QueryParameterWithAnchor queryWithAnchorDTO);
     List<String> getAllTags();
     void setSupersededBy(String entryId, String supersededById);
 
@@ -16,4 +27,37 @@ public interface EntryRepositoryCustom {
      * @return the list of referenced entries
      */
     List<String> findReferencesBySourceId(String id);
+
+    /**
+     * Return the not superseded entries that have, as follow-up, at least one of the ids in input.
+     * Only the id and the followUps fields are loaded
+     * @param followUpIds the ids of the follow-up entries
+     * @return the list of entries that are followed up by one of the ids
+     */
+    List<Entry> findFollowingUpByFollowUpIds(Collection<String> followUpIds);
+
+    /**
+     * Return the not superseded entries that reference at least one of the ids in input.
+     * Only the id and the references fields are loaded
+     * @param referencedIds the ids of the referenced entries
+     * @return the list of entries that reference one of the ids
+     */
+    List<Entry> findReferencingByReferencedIds(Collection<String> referencedIds);
+
+    /**
+     * Return the previous versions of the entry, from the newest to the oldest, walking the
+     * supersede chain with a single $graphLookup. The body of the entries is not loaded
+     * @param id the id of the entry
+     * @param maxDepth the max number of previous versions to return
+     * @return the previous versions of the entry
+     */
+    List<Entry> findHistory(String id, int maxDepth);
+
+    /**
+     * Insert all the entries with one unordered insert, the failure of an entry doesn't stop
+     * the insert of the others. The ids are assigned to the entries before the insert
+     * @param entries the entries to insert
+     * @return the error message of the failed entries by their index in the input
+     */
+    Map<Integer, String> insertAllUnordered(List<Entry> entries);
 }
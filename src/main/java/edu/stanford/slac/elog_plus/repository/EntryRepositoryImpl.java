@@ -1,25 +1,33 @@
 package edu.stanford.slac.elog_plus.repository;
 
 import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
+import edu.stanford.slac.elog_plus.config.ELOGAppProperties;
 import edu.stanford.slac.elog_plus.model.Entry;
+import edu.stanford.slac.elog_plus.model.EntryCursor;
+import edu.stanford.slac.elog_plus.model.EntrySearchPage;
 import edu.stanford.slac.elog_plus.model.QueryParameterWithAnchor;
 import lombok.AllArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
 import org.springframework.data.mongodb.core.query.*;
 import org.springframework.stereotype.Repository;
 
-import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
 
+import static edu.stanford.slac.elog_plus.migration.M016_EntryHistoryView.ENTRY_HISTORY_VIEW;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
 
 @Repository
 @AllArgsConstructor
 public class EntryRepositoryImpl implements EntryRepositoryCustom {
     final private MongoTemplate mongoTemplate;
+    final private ELOGAppProperties elogAppProperties;
 
     private Entry getEntryByIDWithOnlyDate(String id) {
         Entry result = null;
@@ -30,8 +38,327 @@ public class EntryRepositoryImpl implements EntryRepositoryCustom {
         return mongoTemplate.findOne(q, Entry.class);
     }
 
+    @Override
+    public EntrySearchPage searchPage(QueryParameterWithAnchor queryWithAnchor) {
+        validateSearchParameter(queryWithAnchor);
+        if (canUseAggregation(queryWithAnchor)) {
+            EntrySearchPage page = searchAllWithAggregation(queryWithAnchor);
+            // a null page means that the anchor has not been found
+            if (page != null) return page;
+        }
+        return EntrySearchPage
+                .builder()
+                .entries(searchAll(queryWithAnchor))
+                .build();
+    }
+
     @Override
     public List<Entry> searchAll(QueryParameterWithAnchor queryWithAnchor) {
+        validateSearchParameter(queryWithAnchor);
+        String sortField = getSortedField(queryWithAnchor);
+
+        // the position is given by the cursor or, for the anchor, is loaded from the database
+        EntryCursor position = queryWithAnchor.getCursor();
+        if (position == null && queryWithAnchor.getAnchorID() != null) {
+            Entry anchorEntry = getEntryByIDWithOnlyDate(queryWithAnchor.getAnchorID());
+            if (anchorEntry != null) {
+                position = EntryCursor.of(anchorEntry, isSortedByLogDate(queryWithAnchor));
+            }
+        }
+
+        List<Entry> logsBeforeAnchor = new ArrayList<>();
+        List<Entry> logsAfterAnchor = new ArrayList<>();
+
+        if (
+                queryWithAnchor.getContextSize() != null
+                        && queryWithAnchor.getContextSize() > 0
+                        && position != null
+        ) {
+            List<Criteria> contextCriteria = getCommonCriteria(queryWithAnchor);
+            contextCriteria.add(getSeekCriteria(sortField, position, true));
+            applyDateCriteriaForContextEntries(contextCriteria, queryWithAnchor);
+            Query q = getDefaultQuery(queryWithAnchor.getSearch());
+            applySummaryProjection(q);
+            q.addCriteria(
+                    // all general criteria
+                    new Criteria().andOperator(
+                            contextCriteria
+                    )
+
+            ).with(
+                    Sort.by(
+                            Sort.Direction.ASC, sortField, "id")
+            ).limit(queryWithAnchor.getContextSize());
+            logsBeforeAnchor.addAll(mongoTemplate.find(
+                            q,
+                            Entry.class
+                    )
+            );
+            Collections.reverse(logsBeforeAnchor);
+        }
+
+        if (queryWithAnchor.getLimit() != null && queryWithAnchor.getLimit() > 0) {
+            List<Criteria> limitCriteria = getCommonCriteria(queryWithAnchor);
+            applyDateCriteriaForLimitEntries(limitCriteria, queryWithAnchor);
+            if (position != null) {
+                limitCriteria.add(getSeekCriteria(sortField, position, false));
+            }
+            Query q = getDefaultQuery(queryWithAnchor.getSearch());
+            applySummaryProjection(q);
+            q.addCriteria(new Criteria().andOperator(
+                    limitCriteria
+                    )
+            ).with(
+                    Sort.by(
+                            Sort.Direction.DESC, sortField, "id")
+            ).limit(queryWithAnchor.getLimit());
+            logsAfterAnchor = mongoTemplate.find(
+                    q,
+                    Entry.class
+            );
+        }
+
+        logsBeforeAnchor.addAll(logsAfterAnchor);
+        return logsBeforeAnchor;
+    }
+
+    /**
+     * Create the criteria that seek the entries starting from a position. The range on the date
+     * is resolved by the index and the entries with the same date are ordered by id.
+     *
+     * @param sortField the date field used to sort the entries
+     * @param position  the position from where to start
+     * @param newer     true for the entries newer than the position (the position included), false for the older ones
+     * @return the seek criteria
+     */
+    private Criteria getSeekCriteria(String sortField, EntryCursor position, boolean newer) {
+        if (newer) {
+            return Criteria.where(sortField).gte(position.getDate())
+                    .norOperator(
+                            Criteria.where(sortField).is(position.getDate()).and("id").lt(position.getId())
+                    );
+        }
+        return Criteria.where(sortField).lte(position.getDate())
+                .norOperator(
+                        Criteria.where(sortField).is(position.getDate()).and("id").gte(position.getId())
+                );
+    }
+
+    /**
+     * Search the entries around the anchor with a single aggregation. The anchor is matched first
+     * and the two windows (the context one, newer than the anchor, and the limit one, older than it)
+     * are loaded by a $facet that correlate each window to the anchor date through a $lookup. Each
+     * window resolves also the following up and referenced by ids of its entries.
+     *
+     * @param queryWithAnchor the search parameter
+     * @return the found page or null if the anchor has not been found
+     */
+    private EntrySearchPage searchAllWithAggregation(QueryParameterWithAnchor queryWithAnchor) {
+        String sortField = getSortedField(queryWithAnchor);
+        boolean loadContext = queryWithAnchor.getContextSize() != null && queryWithAnchor.getContextSize() > 0;
+
+        Document facet = new Document();
+        if (loadContext) {
+            List<Criteria> contextCriteria = getCommonCriteria(queryWithAnchor);
+            applyDateCriteriaForContextEntries(contextCriteria, queryWithAnchor);
+            facet.append(
+                    "before",
+                    List.of(getWindowLookup(contextCriteria, sortField, true, queryWithAnchor.getContextSize()))
+            );
+        }
+        List<Criteria> limitCriteria = getCommonCriteria(queryWithAnchor);
+        applyDateCriteriaForLimitEntries(limitCriteria, queryWithAnchor);
+        facet.append(
+                "after",
+                List.of(getWindowLookup(limitCriteria, sortField, false, queryWithAnchor.getLimit()))
+        );
+
+        List<Document> pipeline = List.of(
+                new Document("$match", mapCriteria(Criteria.where("id").is(queryWithAnchor.getAnchorID()))),
+                new Document("$project", new Document(sortField, 1)),
+                new Document("$facet", facet)
+        );
+        Document result = mongoTemplate
+                .getCollection(mongoTemplate.getCollectionName(Entry.class))
+                .aggregate(pipeline)
+                .first();
+        if (result == null) return null;
+        List<Document> afterWindow = result.getList("after", Document.class, emptyList());
+        // the facet produce an empty window when there is no anchor
+        if (afterWindow.isEmpty()) return null;
+
+        Map<String, String> followingUpByEntryId = new HashMap<>();
+        Map<String, List<String>> referencedByEntryId = new HashMap<>();
+        List<Entry> entries = new ArrayList<>();
+        if (loadContext) {
+            List<Entry> logsBeforeAnchor = readWindow(
+                    result.getList("before", Document.class, emptyList()),
+                    followingUpByEntryId,
+                    referencedByEntryId
+            );
+            Collections.reverse(logsBeforeAnchor);
+            entries.addAll(logsBeforeAnchor);
+        }
+        entries.addAll(readWindow(afterWindow, followingUpByEntryId, referencedByEntryId));
+        return EntrySearchPage
+                .builder()
+                .entries(entries)
+                .followingUpByEntryId(followingUpByEntryId)
+                .referencedByEntryId(referencedByEntryId)
+                .build();
+    }
+
+    /**
+     * Create the $lookup that load a window of entries starting from the anchor date
+     *
+     * @param criteria       the criteria that the entries of the window need to match
+     * @param sortField      the date field used to sort the entries
+     * @param newer          true for the window newer than the anchor (the anchor included)
+     * @param size           the max number of the entries of the window
+     * @return the $lookup stage
+     */
+    private Document getWindowLookup(List<Criteria> criteria, String sortField, boolean newer, int size) {
+        int sortDirection = newer ? 1 : -1;
+        String collectionName = mongoTemplate.getCollectionName(Entry.class);
+        List<Document> windowPipeline = List.of(
+                new Document(
+                        "$match",
+                        new Document(
+                                "$and",
+                                List.of(
+                                        mapCriteria(new Criteria().andOperator(criteria)),
+                                        new Document("$expr", getSeekExpression(sortField, newer))
+                                )
+                        )
+                ),
+                new Document("$sort", new Document(sortField, sortDirection).append("_id", sortDirection)),
+                new Document("$limit", size),
+                // the body is not part of the summary
+                new Document("$project", new Document("text", 0)),
+                // follow ups and references are stored as string so the id is converted for the join
+                new Document("$addFields", new Document("_idStr", new Document("$toString", "$_id"))),
+                new Document(
+                        "$lookup",
+                        new Document("from", collectionName)
+                                .append("localField", "_idStr")
+                                .append("foreignField", "followUps")
+                                .append("pipeline", List.of(
+                                        new Document("$match", new Document("supersededBy", null)),
+                                        new Document("$project", new Document("_id", 1))
+                                ))
+                                .append("as", "_followingUp")
+                ),
+                new Document(
+                        "$lookup",
+                        new Document("from", collectionName)
+                                .append("localField", "_idStr")
+                                .append("foreignField", "references")
+                                .append("pipeline", List.of(
+                                        new Document("$match", new Document("supersededBy", new Document("$exists", false))),
+                                        new Document("$project", new Document("_id", 1))
+                                ))
+                                .append("as", "_referencedBy")
+                )
+        );
+        return new Document(
+                "$lookup",
+                new Document("from", collectionName)
+                        .append("let", new Document("anchorDate", "$" + sortField).append("anchorId", "$_id"))
+                        .append("pipeline", windowPipeline)
+                        .append("as", "entries")
+        );
+    }
+
+    /**
+     * The same of {@link #getSeekCriteria} expressed on the anchor variables of the window $lookup
+     */
+    private Document getSeekExpression(String sortField, boolean newer) {
+        String field = "$" + sortField;
+        return new Document(
+                "$and",
+                List.of(
+                        new Document(newer ? "$gte" : "$lte", List.of(field, "$$anchorDate")),
+                        new Document(
+                                "$not",
+                                List.of(
+                                        new Document(
+                                                "$and",
+                                                List.of(
+                                                        new Document("$eq", List.of(field, "$$anchorDate")),
+                                                        new Document(newer ? "$lt" : "$gte", List.of("$_id", "$$anchorId"))
+                                                )
+                                        )
+                                )
+                        )
+                )
+        );
+    }
+
+    /**
+     * Convert the window returned by the facet to the entries, collecting the resolved relations
+     */
+    private List<Entry> readWindow(List<Document> window, Map<String, String> followingUpByEntryId, Map<String, List<String>> referencedByEntryId) {
+        List<Entry> result = new ArrayList<>();
+        if (window.isEmpty()) return result;
+        for (Document entryDocument : window.get(0).getList("entries", Document.class, emptyList())) {
+            String entryId = entryDocument.getString("_idStr");
+            List<Document> followingUp = entryDocument.getList("_followingUp", Document.class, emptyList());
+            if (!followingUp.isEmpty()) {
+                followingUpByEntryId.put(entryId, followingUp.get(0).get("_id").toString());
+            }
+            referencedByEntryId.put(
+                    entryId,
+                    entryDocument.getList("_referencedBy", Document.class, emptyList())
+                            .stream()
+                            .map(d -> d.get("_id").toString())
+                            .toList()
+            );
+            result.add(mongoTemplate.getConverter().read(Entry.class, entryDocument));
+        }
+        return result;
+    }
+
+    /**
+     * Map the criteria to the document stored on database converting field names and values
+     */
+    private Document mapCriteria(Criteria criteria) {
+        return new QueryMapper(mongoTemplate.getConverter())
+                .getMappedObject(
+                        criteria.getCriteriaObject(),
+                        mongoTemplate.getConverter().getMappingContext().getPersistentEntity(Entry.class)
+                );
+    }
+
+    /**
+     * The aggregation is used only when there is an anchor and no full text search, because
+     * the $text operator cannot be used within a $lookup
+     */
+    private boolean canUseAggregation(QueryParameterWithAnchor queryWithAnchor) {
+        return Boolean.TRUE.equals(elogAppProperties.getSearchUseAggregation())
+                && queryWithAnchor.getAnchorID() != null
+                && queryWithAnchor.getCursor() == null
+                && queryWithAnchor.getLimit() != null
+                && queryWithAnchor.getLimit() > 0
+                && (queryWithAnchor.getSearch() == null || queryWithAnchor.getSearch().isEmpty());
+    }
+
+    private void validateSearchParameter(QueryParameterWithAnchor queryWithAnchor) {
+        if (queryWithAnchor.getCursor() != null && queryWithAnchor.getAnchorID() != null) {
+            throw ControllerLogicException
+                    .builder()
+                    .errorCode(-3)
+                    .errorMessage("the cursor cannot be used along with the anchor id")
+                    .errorDomain("LogRepositoryImpl::searchUsingAnchor")
+                    .build();
+        }
+        if (queryWithAnchor.getCursor() != null && queryWithAnchor.getCursor().isSortByLogDate() != isSortedByLogDate(queryWithAnchor)) {
+            throw ControllerLogicException
+                    .builder()
+                    .errorCode(-4)
+                    .errorMessage("the cursor has been created for a different sort field")
+                    .errorDomain("LogRepositoryImpl::searchUsingAnchor")
+                    .build();
+        }
         if (queryWithAnchor.getContextSize() != null && queryWithAnchor.getLimit() == null) {
             throw ControllerLogicException
                     .builder()
@@ -48,12 +375,12 @@ public class EntryRepositoryImpl implements EntryRepositoryCustom {
                     .errorDomain("LogRepositoryImpl::searchUsingAnchor")
                     .build();
         }
+    }
 
-        Entry anchorEntry = null;
-        if(queryWithAnchor.getAnchorID() !=null) {
-            anchorEntry = getEntryByIDWithOnlyDate(queryWithAnchor.getAnchorID());
-        }
-
+    /**
+     * Return the criteria shared by all the search queries
+     */
+    private List<Criteria> getCommonCriteria(QueryParameterWithAnchor queryWithAnchor) {
         List<Criteria> allCriteria = new ArrayList<>();
         if (!queryWithAnchor.getLogbooks().isEmpty()) {
             allCriteria.add(
@@ -90,71 +417,7 @@ public class EntryRepositoryImpl implements EntryRepositoryCustom {
         allCriteria.add(
                 Criteria.where("supersededBy").exists(false)
         );
-
-        List<Entry> logsBeforeAnchor = new ArrayList<>();
-        List<Entry> logsAfterAnchor = new ArrayList<>();
-
-        if (
-                queryWithAnchor.getContextSize() != null
-                        && queryWithAnchor.getContextSize() > 0
-                        && queryWithAnchor.getAnchorID() != null
-        ) {
-            List<Criteria> localAllCriteria = allCriteria;
-            Query q = getDefaultQuery(queryWithAnchor.getSearch());
-            q.addCriteria(
-                    Criteria.where(
-                            getSortedField(queryWithAnchor)
-                    ).gte(
-                            getAnchorValueDate(queryWithAnchor, anchorEntry)
-                    )
-            );
-            applyDateCriteriaForContextEntries(localAllCriteria, queryWithAnchor);
-            q.addCriteria(
-                    // all general criteria
-                    new Criteria().andOperator(
-                            localAllCriteria
-                    )
-
-            ).with(
-                    Sort.by(
-                            Sort.Direction.ASC, getSortedField(queryWithAnchor))
-            ).limit(queryWithAnchor.getContextSize());
-            logsBeforeAnchor.addAll(mongoTemplate.find(
-                            q,
-                            Entry.class
-                    )
-            );
-            Collections.reverse(logsBeforeAnchor);
-        }
-
-        if (queryWithAnchor.getLimit() != null && queryWithAnchor.getLimit() > 0) {
-            List<Criteria> localAllCriteria = allCriteria;
-            Query q = getDefaultQuery(queryWithAnchor.getSearch());
-            applyDateCriteriaForLimitEntries(localAllCriteria, queryWithAnchor);
-            if(anchorEntry != null) {
-                q.addCriteria(
-                        Criteria.where(
-                                getSortedField(queryWithAnchor)
-                        ).lt(
-                                getAnchorValueDate(queryWithAnchor, anchorEntry)
-                        )
-                );
-            }
-            q.addCriteria(new Criteria().andOperator(
-                    localAllCriteria
-                    )
-            ).with(
-                    Sort.by(
-                            Sort.Direction.DESC, getSortedField(queryWithAnchor))
-            ).limit(queryWithAnchor.getLimit());
-            logsAfterAnchor = mongoTemplate.find(
-                    q,
-                    Entry.class
-            );
-        }
-
-        logsBeforeAnchor.addAll(logsAfterAnchor);
-        return logsBeforeAnchor;
+        return allCriteria;
     }
 
     @Override
@@ -184,6 +447,85 @@ public class EntryRepositoryImpl implements EntryRepositoryCustom {
         return e!=null?e.getReferences():emptyList();
     }
 
+    @Override
+    public List<Entry> findFollowingUpByFollowUpIds(Collection<String> followUpIds) {
+        if (followUpIds == null || followUpIds.isEmpty()) return emptyList();
+        Query q = new Query();
+        q.addCriteria(
+                new Criteria().andOperator(
+                        Criteria.where("followUps").in(followUpIds),
+                        Criteria.where("supersededBy").is(null)
+                )
+        );
+        q.fields().include("id", "followUps");
+        return mongoTemplate.find(q, Entry.class);
+    }
+
+    @Override
+    public List<Entry> findReferencingByReferencedIds(Collection<String> referencedIds) {
+        if (referencedIds == null || referencedIds.isEmpty()) return emptyList();
+        Query q = new Query();
+        q.addCriteria(
+                new Criteria().andOperator(
+                        Criteria.where("references").in(referencedIds),
+                        Criteria.where("supersededBy").exists(false)
+                )
+        );
+        q.fields().include("id", "references");
+        return mongoTemplate.find(q, Entry.class);
+    }
+
+    @Override
+    public List<Entry> findHistory(String id, int maxDepth) {
+        List<Document> pipeline = List.of(
+                new Document("$match", mapCriteria(Criteria.where("id").is(id))),
+                new Document("$project", new Document("_id", 1)),
+                new Document(
+                        "$graphLookup",
+                        new Document("from", ENTRY_HISTORY_VIEW)
+                                .append("startWith", new Document("$toString", "$_id"))
+                                .append("connectFromField", "_idStr")
+                                .append("connectToField", "supersededBy")
+                                .append("as", "history")
+                                .append("maxDepth", Math.max(0, maxDepth - 1))
+                                .append("depthField", "_historyDepth")
+                )
+        );
+        Document result = mongoTemplate
+                .getCollection(mongoTemplate.getCollectionName(Entry.class))
+                .aggregate(pipeline)
+                .first();
+        if (result == null) return emptyList();
+        // the $graphLookup doesn't keep any order, the depth is the distance from the newest version
+        return result.getList("history", Document.class, emptyList())
+                .stream()
+                .sorted(Comparator.comparingLong((Document d) -> ((Number) d.get("_historyDepth")).longValue()))
+                .map(d -> mongoTemplate.getConverter().read(Entry.class, d))
+                .toList();
+    }
+
+    @Override
+    public Map<Integer, String> insertAllUnordered(List<Entry> entries) {
+        if (entries == null || entries.isEmpty()) return emptyMap();
+        // the ids are assigned here so they are known also when some of the inserts fail
+        entries.stream().filter(e -> e.getId() == null).forEach(e -> e.setId(new ObjectId().toString()));
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Entry.class).insert(entries).execute();
+            return emptyMap();
+        } catch (BulkOperationException e) {
+            Map<Integer, String> errors = new HashMap<>();
+            e.getErrors().forEach(error -> errors.put(error.getIndex(), error.getMessage()));
+            return errors;
+        }
+    }
+
+    /**
+     * The search returns the entries as summary so the body, that can be very large, is not loaded
+     */
+    private void applySummaryProjection(Query query) {
+        query.fields().exclude("text");
+    }
+
     private Query getDefaultQuery(String textSearch) {
         if (textSearch != null && !textSearch.isEmpty()) {
             //{$text: {$search:'log' }}
@@ -220,11 +562,10 @@ public class EntryRepositoryImpl implements EntryRepositoryCustom {
     }
 
     private String getSortedField(QueryParameterWithAnchor queryWithAnchor) {
-        return (queryWithAnchor.getSortByLogDate() != null && queryWithAnchor.getSortByLogDate()) ? "loggedAt" : "eventAt";
+        return isSortedByLogDate(queryWithAnchor) ? "loggedAt" : "eventAt";
     }
 
-    private LocalDateTime getAnchorValueDate(QueryParameterWithAnchor queryWithAnchor, Entry anchorEntry) {
-        return (queryWithAnchor.getSortByLogDate() != null && queryWithAnchor.getSortByLogDate()) ?
-                anchorEntry.getLoggedAt() : anchorEntry.getEventAt();
+    private boolean isSortedByLogDate(QueryParameterWithAnchor queryWithAnchor) {
+        return queryWithAnchor.getSortByLogDate() != null && queryWithAnchor.getSortByLogDate();
     }
 }
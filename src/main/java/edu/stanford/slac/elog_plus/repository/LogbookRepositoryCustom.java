@@ -7,6 +7,7 @@ import java.io.UnsupportedEncodingException;
 import java.security.NoSuchAlgorithmException;
 import java.time.LocalTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface LogbookRepositoryCustom {
@@ -19,6 +20,15 @@ public interface LogbookRepositoryCustom {
      */
     String ensureTag(String logbookId, Tag newTag) throws UnsupportedEncodingException, NoSuchAlgorithmException;
 
+    /**
+     * Atomically add to the logbook all the tags whose name is not already used, with one update.
+     * The names need to be already normalized
+     * @param logbookId the id of the logbooks
+     * @param newTags the tags to ensure
+     * @return the id of the tag by name for all the ensured tags
+     */
+    Map<String, String> ensureTags(String logbookId, List<Tag> newTags);
+
     List<Tag> getAllTagFor(String logbookId);
 
     boolean tagExistByName(String logbookId, String tagName);
@@ -1,10 +1,14 @@
 package edu.stanford.slac.elog_plus.repository;
 
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
 import edu.stanford.slac.elog_plus.exception.LogbookNotFound;
 import edu.stanford.slac.elog_plus.model.Logbook;
 import edu.stanford.slac.elog_plus.model.Shift;
 import edu.stanford.slac.elog_plus.model.Tag;
 import lombok.AllArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
@@ -69,6 +73,69 @@ public class LogbookRepositoryImpl implements LogbookRepositoryCustom {
         return newID;
     }
 
+    @Override
+    public Map<String, String> ensureTags(String logbookId, List<Tag> newTags) {
+        if (newTags.isEmpty()) return Collections.emptyMap();
+        List<Document> tagsToAdd = newTags.stream()
+                .map(
+                        tag -> {
+                            if (tag.getId() == null) tag.setId(UUID.randomUUID().toString());
+                            Document tagDocument = new Document();
+                            mongoTemplate.getConverter().write(tag, tagDocument);
+                            tagDocument.remove("_class");
+                            return tagDocument;
+                        }
+                )
+                .toList();
+        // the tags not already in the logbook are appended in the same update, the update of a
+        // single document is atomic so concurrent ensures can't add the same name twice
+        Document notAlreadyPresent = new Document(
+                "$not",
+                List.of(new Document("$in", List.of("$$newTag.name", new Document("$ifNull", List.of("$tags.name", List.of())))))
+        );
+        Document addMissingTags = new Document(
+                "$set",
+                new Document(
+                        "tags",
+                        new Document(
+                                "$concatArrays",
+                                List.of(
+                                        new Document("$ifNull", List.of("$tags", List.of())),
+                                        new Document(
+                                                "$filter",
+                                                new Document("input", new Document("$literal", tagsToAdd))
+                                                        .append("as", "newTag")
+                                                        .append("cond", notAlreadyPresent)
+                                        )
+                                )
+                        )
+                )
+        );
+        Document updated = mongoTemplate
+                .getCollection(mongoTemplate.getCollectionName(Logbook.class))
+                .findOneAndUpdate(
+                        new Document("_id", mongoTemplate.getConverter().convertId(logbookId, ObjectId.class)),
+                        List.of(addMissingTags),
+                        new FindOneAndUpdateOptions()
+                                .projection(new Document("tags", 1))
+                                .returnDocument(ReturnDocument.AFTER)
+                );
+        assertion(
+                () -> updated != null,
+                LogbookNotFound.logbookNotFoundBuilder()
+                        .errorCode(-1)
+                        .errorDomain("LogbookRepositoryImpl:ensureTags")
+                        .build()
+        );
+        Map<String, String> tagIdByName = new HashMap<>();
+        mongoTemplate.getConverter().read(Logbook.class, updated).getTags().forEach(
+                tag -> tagIdByName.putIfAbsent(tag.getName(), tag.getId())
+        );
+        Map<String, String> result = new HashMap<>();
+        newTags.forEach(tag -> result.put(tag.getName(), tagIdByName.get(tag.getName())));
+        return result;
+    }
+
     @Override
     public List<Tag> getAllTagFor(String logbookId) {
         Query q = new Query();
@@ -0,0 +1,7 @@
+package edu.stanford.slac.elog_plus.repository;
+
+import edu.stanford.slac.elog_plus.model.ShiftStampJob;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface ShiftStampJobRepository extends MongoRepository<ShiftStampJob, String>, ShiftStampJobRepositoryCustom {
+}
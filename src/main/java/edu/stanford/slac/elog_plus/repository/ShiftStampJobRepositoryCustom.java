@@ -0,0 +1,50 @@
+package edu.stanford.slac.elog_plus.repository;
+
+import edu.stanford.slac.elog_plus.model.ShiftStampJob;
+
+import java.util.Date;
+
+public interface ShiftStampJobRepositoryCustom {
+    /**
+     * Create or restart the job of the logbook
+     *
+     * @param logbookId the logbook id
+     */
+    void request(String logbookId);
+
+    /**
+     * Find the next job to process and take it
+     *
+     * @param processingId          the id of the processor
+     * @param processingTimeoutDate the jobs taken before this date are considered abandoned
+     * @return the taken job or null if there are no jobs to process
+     */
+    ShiftStampJob findAndTakeNext(String processingId, Date processingTimeoutDate);
+
+    /**
+     * Store the progress of the job, the update is done only if the job is still owned by the processor
+     * and has not been requested again
+     *
+     * @param job          the job with the updated progress
+     * @param processingId the id of the processor
+     * @return true if the progress has been stored
+     */
+    boolean updateProgress(ShiftStampJob job, String processingId);
+
+    /**
+     * Complete the job, the update is done only if the job has not been requested again
+     *
+     * @param job          the job to complete
+     * @param processingId the id of the processor
+     * @return true if the job has been completed
+     */
+    boolean complete(ShiftStampJob job, String processingId);
+
+    /**
+     * Release the job so it can be taken by another processor
+     *
+     * @param logbookId    the logbook id
+     * @param processingId the id of the processor
+     */
+    void release(String logbookId, String processingId);
+}
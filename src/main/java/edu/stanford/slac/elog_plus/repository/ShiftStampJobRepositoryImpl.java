@@ -0,0 +1,100 @@
+package edu.stanford.slac.elog_plus.repository;
+
+import edu.stanford.slac.elog_plus.model.ShiftStampJob;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+
+@Log4j2
+@Repository
+@AllArgsConstructor
+public class ShiftStampJobRepositoryImpl implements ShiftStampJobRepositoryCustom {
+    final private MongoTemplate mongoTemplate;
+
+    @Override
+    public void request(String logbookId) {
+        Query q = new Query(Criteria.where("id").is(logbookId));
+        Update u = new Update()
+                .inc("generation", 1)
+                .set("requestedAt", LocalDateTime.now())
+                .set("lastEntryId", null)
+                .set("processed", 0L)
+                .set("completed", false)
+                .set("completedAt", null);
+        mongoTemplate.upsert(q, u, ShiftStampJob.class);
+    }
+
+    @Override
+    public ShiftStampJob findAndTakeNext(String processingId, Date processingTimeoutDate) {
+        Query q = new Query(
+                new Criteria().andOperator(
+                        Criteria.where("completed").is(false),
+                        new Criteria().orOperator(
+                                Criteria.where("processingId").exists(false),
+                                Criteria.where("processingId").is(null),
+                                Criteria.where("processingTimestamp").lte(processingTimeoutDate)
+                        )
+                )
+        );
+        Update u = new Update()
+                .set("processingId", processingId)
+                .set("processingTimestamp", new Date());
+        return mongoTemplate.findAndModify(
+                q,
+                u,
+                new FindAndModifyOptions().returnNew(true).upsert(false),
+                ShiftStampJob.class
+        );
+    }
+
+    @Override
+    public boolean updateProgress(ShiftStampJob job, String processingId) {
+        Query q = new Query(
+                Criteria.where("id").is(job.getId())
+                        .and("generation").is(job.getGeneration())
+                        .and("processingId").is(processingId)
+        );
+        Update u = new Update()
+                .set("lastEntryId", job.getLastEntryId())
+                .set("processed", job.getProcessed())
+                // the progress also renews the ownership of the job
+                .set("processingTimestamp", new Date());
+        return mongoTemplate.updateFirst(q, u, ShiftStampJob.class).getModifiedCount() == 1;
+    }
+
+    @Override
+    public boolean complete(ShiftStampJob job, String processingId) {
+        Query q = new Query(
+                Criteria.where("id").is(job.getId())
+                        .and("generation").is(job.getGeneration())
+                        .and("processingId").is(processingId)
+        );
+        Update u = new Update()
+                .set("completed", true)
+                .set("completedAt", LocalDateTime.now())
+                .set("processed", job.getProcessed())
+                .set("processingId", null)
+                .set("processingTimestamp", null);
+        return mongoTemplate.updateFirst(q, u, ShiftStampJob.class).getModifiedCount() == 1;
+    }
+
+    @Override
+    public void release(String logbookId, String processingId) {
+        Query q = new Query(
+                Criteria.where("id").is(logbookId)
+                        .and("processingId").is(processingId)
+        );
+        Update u = new Update()
+                .set("processingId", null)
+                .set("processingTimestamp", null);
+        mongoTemplate.updateFirst(q, u, ShiftStampJob.class);
+    }
+}
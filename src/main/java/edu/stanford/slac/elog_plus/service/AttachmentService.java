@@ -1,12 +1,15 @@
 package edu.stanford.slac.elog_plus.service;
 
 import edu.stanford.slac.elog_plus.api.v1.dto.AttachmentDTO;
+import edu.stanford.slac.elog_plus.api.v1.dto.AttachmentMiniPreviewDTO;
 import edu.stanford.slac.elog_plus.api.v1.dto.ObjectListResultDTO;
 import edu.stanford.slac.elog_plus.api.v1.mapper.AttachmentMapper;
 import edu.stanford.slac.elog_plus.config.ELOGAppProperties;
 import edu.stanford.slac.elog_plus.exception.AttachmentNotFound;
 import edu.stanford.slac.elog_plus.model.Attachment;
+import edu.stanford.slac.elog_plus.model.AttachmentMiniPreview;
 import edu.stanford.slac.elog_plus.model.FileObjectDescription;
+import edu.stanford.slac.elog_plus.repository.AttachmentMiniPreviewRepository;
 import edu.stanford.slac.elog_plus.repository.AttachmentRepository;
 import edu.stanford.slac.elog_plus.repository.StorageRepository;
 import io.micrometer.core.instrument.Counter;
@@ -23,8 +26,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.io.ByteArrayInputStream;
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 
 import static edu.stanford.slac.ad.eed.baselib.exception.Utility.wrapCatch;
 
@@ -38,6 +40,7 @@ public class AttachmentService {
     final private ELOGAppProperties appProperties;
     final private StorageRepository storageRepository;
     final private AttachmentRepository attachmentRepository;
+    final private AttachmentMiniPreviewRepository attachmentMiniPreviewRepository;
     final private KafkaTemplate<String, Attachment> attachmentKafkaTemplate;
     final private Counter previewSubmittedCounter;
 
@@ -116,6 +119,23 @@ public class AttachmentService {
                 "AttachmentService::exists");
     }
 
+    /**
+     * Return the ids of the attachments that exist, checking all the ids with one query
+     * @param ids the ids of the attachments to check
+     * @return the ids of the found attachments
+     */
+    public Set<String> findExisting(Collection<String> ids) {
+        if (ids == null || ids.isEmpty()) return Collections.emptySet();
+        Set<String> found = new HashSet<>();
+        wrapCatch(
+                // the attachment exist only if it exists and cannot be deleted
+                () -> attachmentRepository.findIdByIdInAndCanBeDeletedIsFalse(new HashSet<>(ids)),
+                0,
+                "AttachmentService::findExisting"
+        ).forEach(a -> found.add(a.getId()));
+        return found;
+    }
+
     /**
      * Return the attachment raw content file
      * @param id the unique id of the attachment
@@ -191,8 +211,8 @@ public class AttachmentService {
     public FileObjectDescription getMiniPreviewContent(String id) {
         FileObjectDescription attachment = FileObjectDescription.builder().build();
         // fetch
-        Attachment foundAttachment = wrapCatch(
-                () -> attachmentRepository.findById(id),
+        AttachmentMiniPreview foundMiniPreview = wrapCatch(
+                () -> attachmentMiniPreviewRepository.findById(id),
                 -1,
                 "AttachmentService::getMiniPreviewContent"
         ).orElseThrow(
@@ -203,13 +223,36 @@ public class AttachmentService {
                         .build()
         );
 
-        // retrieve stored mini preview from model
-        attachment.setFileName(foundAttachment.getFileName());
-        attachment.setIs(new ByteArrayInputStream(foundAttachment.getMiniPreview()));
+        // retrieve stored mini preview
+        attachment.setFileName("%s-mini-preview.jpg".formatted(id));
+        attachment.setIs(new ByteArrayInputStream(foundMiniPreview.getData()));
         attachment.setContentType(MediaType.IMAGE_JPEG_VALUE);
         return attachment;
     }
 
+    /**
+     * Return, with a single query, the mini previews of a set of attachments
+     *
+     * @param ids the unique identifiers of the attachments
+     * @return the found mini previews, the attachments without mini preview are not returned
+     */
+    public List<AttachmentMiniPreviewDTO> getMiniPreviews(List<String> ids) {
+        if (ids == null || ids.isEmpty()) return Collections.emptyList();
+        return wrapCatch(
+                () -> attachmentMiniPreviewRepository.findAllById(ids),
+                -1,
+                "AttachmentService::getMiniPreviews"
+        ).stream()
+                .map(
+                        p -> AttachmentMiniPreviewDTO
+                                .builder()
+                                .id(p.getId())
+                                .miniPreview(p.getData())
+                                .build()
+                )
+                .toList();
+    }
+
     /**
      * Return the attachment dto
      *
@@ -234,6 +277,34 @@ public class AttachmentService {
         );
     }
 
+    /**
+     * Return, with a single query, the attachment dtos in the same order of the ids
+     *
+     * @param ids the attachment ids
+     * @return the attachment dtos
+     */
+    public List<AttachmentDTO> getAttachments(List<String> ids) {
+        Map<String, Attachment> attachmentById = new HashMap<>();
+        wrapCatch(
+                () -> attachmentRepository.findAllById(ids),
+                -1,
+                "AttachmentService::getAttachments"
+        ).forEach(a -> attachmentById.put(a.getId(), a));
+        List<AttachmentDTO> result = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Attachment foundAttachment = attachmentById.get(id);
+            if (foundAttachment == null) {
+                throw AttachmentNotFound.attachmentNotFoundBuilder()
+                        .errorCode(-2)
+                        .attachmentID(id)
+                        .errorDomain("AttachmentService::getAttachments")
+                        .build();
+            }
+            result.add(attachmentMapper.fromModel(foundAttachment));
+        }
+        return result;
+    }
+
     /**
      * Set the preview id
      *
@@ -321,27 +392,41 @@ public class AttachmentService {
      * @param byteArray the byte array represent the mini preview
      */
     public void setMiniPreview(String id, byte[] byteArray) {
-        // fetch
-        Attachment foundAttachment = wrapCatch(
-                () -> attachmentRepository.findById(id),
+        // check
+        boolean exists = wrapCatch(
+                () -> attachmentRepository.existsById(id),
                 -1,
                 "AttachmentService::setMiniPreview"
-        ).orElseThrow(
-                () -> AttachmentNotFound.attachmentNotFoundBuilder()
-                        .errorCode(-2)
-                        .attachmentID(id)
-                        .errorDomain("AttachmentService::setMiniPreview")
-                        .build()
         );
+        if (!exists) {
+            throw AttachmentNotFound.attachmentNotFoundBuilder()
+                    .errorCode(-2)
+                    .attachmentID(id)
+                    .errorDomain("AttachmentService::setMiniPreview")
+                    .build();
+        }
 
-        foundAttachment.setMiniPreview(byteArray);
-        Attachment finalFoundAttachment = foundAttachment;
-        foundAttachment = wrapCatch(
-                () -> attachmentRepository.save(finalFoundAttachment),
+        // the image is stored apart from the attachment metadata
+        wrapCatch(
+                () -> attachmentMiniPreviewRepository.save(
+                        AttachmentMiniPreview
+                                .builder()
+                                .id(id)
+                                .data(byteArray)
+                                .build()
+                ),
                 -3,
                 "AttachmentService::setMiniPreview"
         );
-        log.info("Set the mini preview for the attachment {}", foundAttachment.getId());
+        wrapCatch(
+                () -> {
+                    attachmentRepository.setMiniPreviewAvailable(id, true);
+                    return null;
+                },
+                -4,
+                "AttachmentService::setMiniPreview"
+        );
+        log.info("Set the mini preview for the attachment {}", id);
     }
 
     /**
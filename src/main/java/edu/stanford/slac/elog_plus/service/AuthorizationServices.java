@@ -1,16 +1,21 @@
 package edu.stanford.slac.elog_plus.service;
 
 import edu.stanford.slac.ad.eed.baselib.api.v1.dto.*;
+import edu.stanford.slac.ad.eed.baselib.api.v1.mapper.AuthMapper;
 import edu.stanford.slac.ad.eed.baselib.api.v2.dto.LocalGroupDTO;
 import edu.stanford.slac.ad.eed.baselib.api.v2.dto.LocalGroupQueryParameterDTO;
 import edu.stanford.slac.ad.eed.baselib.auth.jwt.SLACAuthenticationJWTToken;
 import edu.stanford.slac.ad.eed.baselib.config.AppProperties;
 import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
+import edu.stanford.slac.ad.eed.baselib.model.AuthorizationOwnerType;
 import edu.stanford.slac.ad.eed.baselib.service.AuthService;
-import edu.stanford.slac.ad.eed.baselib.service.PeopleGroupService;
 import edu.stanford.slac.elog_plus.api.v1.dto.*;
 import edu.stanford.slac.elog_plus.api.v1.dto.NewAuthorizationDTO;
 import edu.stanford.slac.elog_plus.api.v1.mapper.AuthorizationMapper;
+import edu.stanford.slac.elog_plus.repository.AuthorizationBatchRepository;
+import edu.stanford.slac.elog_plus.service.cache.AuthorizedLogbookCache;
+import edu.stanford.slac.elog_plus.service.cache.ValidatedTokenCache;
+import edu.stanford.slac.elog_plus.service.cache.PersonDirectoryCache;
 import lombok.AllArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.security.core.Authentication;
@@ -18,11 +23,10 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Collections;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 
 import static edu.stanford.slac.ad.eed.baselib.exception.Utility.assertion;
+import static edu.stanford.slac.ad.eed.baselib.exception.Utility.wrapCatch;
 
 @Service
 @Log4j2
@@ -30,8 +34,12 @@ import static edu.stanford.slac.ad.eed.baselib.exception.Utility.assertion;
 public class AuthorizationServices {
     AuthService authService;
     AppProperties appProperties;
-    PeopleGroupService peopleGroupService;
+    PersonDirectoryCache personDirectoryCache;
     AuthorizationMapper authorizationMapper;
+    AuthorizedLogbookCache authorizedLogbookCache;
+    ValidatedTokenCache validatedTokenCache;
+    AuthMapper authMapper;
+    AuthorizationBatchRepository authorizationBatchRepository;
 
     /**
      * Find users based on the query parameter
@@ -41,21 +49,30 @@ public class AuthorizationServices {
      */
     public List<UserDetailsDTO> findUsers(PersonQueryParameterDTO personQueryParameterDTO, Boolean includeAuthorizations, Boolean includeInheritance) {
         // found users
-        var foundUsers = peopleGroupService.findPersons(personQueryParameterDTO);
+        var foundUsers = personDirectoryCache.findPersons(personQueryParameterDTO);
         log.info("Finding users with query {} return {} results", personQueryParameterDTO, foundUsers.size());
+        // the inherited authorizations need the groups of each user so are loaded one user at time
+        Map<String, List<DetailsAuthorizationDTO>> authorizationsByUser = includeAuthorizations && !includeInheritance ?
+                findAuthorizationsByOwner(
+                        foundUsers.stream().map(PersonDTO::mail).filter(Objects::nonNull).toList(),
+                        AuthorizationOwnerType.User
+                ) :
+                Collections.emptyMap();
         //convert to UserDetailsDTO
         return foundUsers.stream().map(
                 u -> authorizationMapper.fromPersonDTO
                         (
                                 u,
-                                includeAuthorizations ? authorizationMapper.fromAuthorizationDTO(
-                                        authService.getAllAuthenticationForOwner(
-                                                u.mail(),
-                                                AuthorizationOwnerTypeDTO.User,
-                                                Optional.empty(),
-                                                Optional.of(includeInheritance)
-                                        )
-                                ) : Collections.emptyList()
+                                !includeAuthorizations ? Collections.emptyList() :
+                                        !includeInheritance ? authorizationsByUser.getOrDefault(u.mail(), Collections.emptyList()) :
+                                                authorizationMapper.fromAuthorizationDTO(
+                                                        authService.getAllAuthenticationForOwner(
+                                                                u.mail(),
+                                                                AuthorizationOwnerTypeDTO.User,
+                                                                Optional.empty(),
+                                                                Optional.of(includeInheritance)
+                                                        )
+                                                )
                         )
 
         ).toList();
@@ -70,7 +87,7 @@ public class AuthorizationServices {
      */
     public UserDetailsDTO findUser(String userId, Boolean includeAuthorizations, Boolean includeInheritance) {
         // found users
-        var foundUser = peopleGroupService.findPersonByEMail(userId);
+        var foundUser = personDirectoryCache.findPersonByEMail(userId);
         //convert to UserDetailsDTO
         return authorizationMapper.fromPersonDTO
                 (
@@ -145,6 +162,9 @@ public class AuthorizationServices {
     ) {
         var foundGroups = authService.findLocalGroup(localGroupQueryParameterDTO);
         log.info("Finding groups with query {} return {} results", localGroupQueryParameterDTO, foundGroups.size());
+        Map<String, List<DetailsAuthorizationDTO>> authorizationsByGroup = includeAuthorizations ?
+                findAuthorizationsByOwner(foundGroups.stream().map(LocalGroupDTO::id).toList(), AuthorizationOwnerType.Group) :
+                Collections.emptyMap();
         return foundGroups.stream().map(
                 g -> GroupDetailsDTO.builder()
                         .id(g.id())
@@ -161,19 +181,7 @@ public class AuthorizationServices {
                                         ).toList() :
                                         Collections.emptyList()
                         )
-                        .authorizations(
-                                includeAuthorizations ?
-                                        authorizationMapper.fromAuthorizationDTO
-                                                (
-                                                        authService.getAllAuthenticationForOwner
-                                                                (
-                                                                        g.id(),
-                                                                        AuthorizationOwnerTypeDTO.Group,
-                                                                        Optional.empty()
-                                                                )
-                                                ) :
-                                        Collections.emptyList()
-                        )
+                        .authorizations(authorizationsByGroup.getOrDefault(g.id(), Collections.emptyList()))
                         .build()
         ).toList();
     }
@@ -236,6 +244,9 @@ public class AuthorizationServices {
     ) {
         var authTokenFound = authService.findAllAuthenticationToken(authenticationTokenQueryParameterDTO);
         log.info("Finding applications with query {} return {} results", authenticationTokenQueryParameterDTO, authTokenFound.size());
+        Map<String, List<DetailsAuthorizationDTO>> authorizationsByApplication = includeAuthorizations ?
+                findAuthorizationsByOwner(authTokenFound.stream().map(AuthenticationTokenDTO::id).toList(), AuthorizationOwnerType.Token) :
+                Collections.emptyMap();
         return authTokenFound.stream().map(
                 a -> ApplicationDetailsDTO.builder()
                         .id(a.id())
@@ -244,23 +255,35 @@ public class AuthorizationServices {
                         .token(a.token())
                         .expiration(a.expiration())
                         .applicationManaged(a.applicationManaged())
-                        .authorizations(
-                                includeAuthorizations ?
-                                        authorizationMapper.fromAuthorizationDTO
-                                                (
-                                                        authService.getAllAuthenticationForOwner
-                                                                (
-                                                                        a.id(),
-                                                                        AuthorizationOwnerTypeDTO.Token,
-                                                                        Optional.empty()
-                                                                )
-                                                ) :
-                                        Collections.emptyList()
-                        )
+                        .authorizations(authorizationsByApplication.getOrDefault(a.id(), Collections.emptyList()))
                         .build()
         ).toList();
     }
 
+    /**
+     * Load with a single query the authorizations of all the owners of the same type
+     *
+     * @param owners    the ids of the owners
+     * @param ownerType the type of the owners
+     * @return the authorizations grouped by owner id
+     */
+    private Map<String, List<DetailsAuthorizationDTO>> findAuthorizationsByOwner(List<String> owners, AuthorizationOwnerType ownerType) {
+        var authorizationsByOwner = wrapCatch(
+                () -> authorizationBatchRepository.findByOwnerIn(owners, ownerType),
+                -1,
+                "AuthorizationServices::findAuthorizationsByOwner"
+        );
+        log.debug("Found authorizations for {} of {} owners of type {}", authorizationsByOwner.size(), owners.size(), ownerType);
+        Map<String, List<DetailsAuthorizationDTO>> result = new HashMap<>();
+        authorizationsByOwner.forEach(
+                (owner, authorizations) -> result.put(
+                        owner,
+                        authorizationMapper.fromAuthorizationDTO(authorizations.stream().map(authMapper::fromModel).toList())
+                )
+        );
+        return result;
+    }
+
     /**
      * Create a new authorization
      *
@@ -305,6 +328,7 @@ public class AuthorizationServices {
                         .resource(resource)
                         .build()
         );
+        authorizedLogbookCache.invalidate();
     }
 
     /**
@@ -320,10 +344,10 @@ public class AuthorizationServices {
                 PersonDTO foundPerson = null;
                 // if not found will try an exception
                 try {
-                    foundPerson = peopleGroupService.findPersonByEMail(ownerId);
+                    foundPerson = personDirectoryCache.findPersonByEMail(ownerId);
                 } catch (Exception e) {
                     // try to find As ID
-                    foundPerson = peopleGroupService.findPersonByUid(ownerId);
+                    foundPerson = personDirectoryCache.findPersonByUid(ownerId);
                 }
                 // return always email also in case the uid is passed
                 realIdToUse = foundPerson.mail();
@@ -363,6 +387,7 @@ public class AuthorizationServices {
         var authorizationFound = authService.findAuthorizationById(authorizationId);
         log.info("Deleting authorization {} by {}", authorizationFound, getCurrentUsername());
         authService.deleteAuthorizationById(authorizationId);
+        authorizedLogbookCache.invalidate();
     }
 
     /**
@@ -375,6 +400,7 @@ public class AuthorizationServices {
     public void updateAuthorization(String authorizationId, UpdateAuthorizationDTO updateAuthorizationDTO) {
         var authorizationFound = authService.findAuthorizationById(authorizationId);
         authService.updateAuthorizationType(authorizationId, updateAuthorizationDTO.permission());
+        authorizedLogbookCache.invalidate();
         log.info("Updating authorization {} by {}", authorizationFound, getCurrentUsername());
     }
 
@@ -402,7 +428,17 @@ public class AuthorizationServices {
      * @param applicationId the id of the application to delete
      */
     public void deleteApplication(String applicationId) {
+        var authTokenFound = authService.getAuthenticationTokenById(applicationId);
         authService.deleteToken(applicationId);
+        // the token can't be used anymore
+        authTokenFound.ifPresent(
+                token -> {
+                    validatedTokenCache.evict(token.token());
+                    validatedTokenCache.evictOwner(token.email());
+                }
+        );
+        // the authorizations of the application are removed with it
+        authorizedLogbookCache.invalidate();
     }
 
 
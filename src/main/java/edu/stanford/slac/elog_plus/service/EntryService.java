@@ -5,10 +5,18 @@ import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
 import edu.stanford.slac.elog_plus.api.v1.dto.*;
 import edu.stanford.slac.elog_plus.api.v1.mapper.EntryMapper;
 import edu.stanford.slac.elog_plus.api.v1.mapper.QueryParameterMapper;
+import edu.stanford.slac.elog_plus.config.ELOGAppProperties;
 import edu.stanford.slac.elog_plus.exception.*;
 import edu.stanford.slac.elog_plus.model.Entry;
+import edu.stanford.slac.elog_plus.model.EntryCursor;
+import edu.stanford.slac.elog_plus.model.EntrySearchPage;
+import edu.stanford.slac.elog_plus.model.QueryParameterWithAnchor;
 import edu.stanford.slac.elog_plus.model.Summarizes;
 import edu.stanford.slac.elog_plus.repository.EntryRepository;
+import edu.stanford.slac.elog_plus.service.cache.EntryAccessMetadata;
+import edu.stanford.slac.elog_plus.service.cache.EntryAccessMetadataService;
+import edu.stanford.slac.elog_plus.service.concurrent.FanOutExecutor;
+import edu.stanford.slac.elog_plus.utility.EntryTextUtilities;
 import edu.stanford.slac.elog_plus.utility.StringUtilities;
 import lombok.AllArgsConstructor;
 import lombok.extern.log4j.Log4j2;
@@ -19,13 +27,20 @@ import org.jsoup.select.Elements;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
 
 import static edu.stanford.slac.ad.eed.baselib.exception.Utility.assertion;
 import static edu.stanford.slac.ad.eed.baselib.exception.Utility.wrapCatch;
@@ -42,6 +57,11 @@ public class EntryService {
     final private LogbookService logbookService;
     final private AttachmentService attachmentService;
     final private EntryMapper entryMapper;
+    final private EntrySummaryHydrator entrySummaryHydrator;
+    final private ShiftStampService shiftStampService;
+    final private EntryAccessMetadataService entryAccessMetadataService;
+    final private FanOutExecutor fanOutExecutor;
+    final private ELOGAppProperties elogAppProperties;
 
     /**
      * Return the logbook id for the entry
@@ -50,13 +70,23 @@ public class EntryService {
      * @return the log book id which the entry belongs
      */
     public List<String> getLogbooksForAnEntryId(String id) {
-        return getFullEntry(id)
-                .logbooks()
-                .stream()
-                .map(
-                        LogbookSummaryDTO::id
-                )
-                .toList();
+        return getAccessMetadata(id).logbooks();
+    }
+
+    /**
+     * Return the information needed to check the access to an entry without loading it
+     *
+     * @param id the id of the entry
+     * @return the access metadata of the entry
+     */
+    public EntryAccessMetadata getAccessMetadata(String id) {
+        return entryAccessMetadataService.get(id)
+                .orElseThrow(
+                        () -> EntryNotFound.entryNotFoundBuilder()
+                                .errorCode(-2)
+                                .errorDomain("LogService::getAccessMetadata")
+                                .build()
+                );
     }
 
     /**
@@ -71,31 +101,31 @@ public class EntryService {
             // in this case user is not authorize on any logbook
             return emptyList();
         }
-        List<Entry> found = wrapCatch(
-                () -> entryRepository.searchAll(
-                        queryParameterMapper.fromDTO(
-                                queryWithAnchorDTO
-                        )
-                ),
+        // the cursor is decoded here so a malformed one is reported as is
+        QueryParameterWithAnchor queryParameter = queryParameterMapper.fromDTO(queryWithAnchorDTO);
+        EntrySearchPage found = wrapCatch(
+                () -> entryRepository.searchPage(queryParameter),
                 -1,
                 "LogService::searchAll"
         );
-        return found.stream().map(
-                entry -> {
-                    EntrySummaryDTO es = entryMapper.toSearchResult(
-                            entry
-                    );
-                    return es.toBuilder()
-                            .shifts(
-                                    getShiftsForEntry(
-                                            es.logbooks().stream().map(LogbookSummaryDTO::id).toList(),
-                                            es.eventAt()
-                                    )
-                            )
-                            .build();
-                }
-
-        ).collect(Collectors.toList());
+        // resolve all the relations for the whole page at once
+        List<EntrySummaryDTO> summaries = entrySummaryHydrator.toSummaries(
+                found.getEntries(),
+                found.getFollowingUpByEntryId(),
+                found.getReferencedByEntryId()
+        );
+        // give to each entry its position so the client can continue the search from it
+        boolean sortByLogDate = queryWithAnchorDTO.sortByLogDate() != null && queryWithAnchorDTO.sortByLogDate();
+        List<EntrySummaryDTO> result = new ArrayList<>(summaries.size());
+        for (int idx = 0; idx < summaries.size(); idx++) {
+            EntryCursor cursor = EntryCursor.of(found.getEntries().get(idx), sortByLogDate);
+            result.add(
+                    summaries.get(idx).toBuilder()
+                            .cursor(cursor != null ? cursor.encode() : null)
+                            .build()
+            );
+        }
+        return result;
     }
 
     /**
@@ -104,11 +134,13 @@ public class EntryService {
      *
      * @param logbookIds the list of the logbook ids
      * @param eventAt    the time which we need the shift
+     * @param shiftIds   the shift ids stored on the entry, null if they have not been stamped
      * @return the shift list
      */
-    private List<LogbookShiftDTO> getShiftsForEntry(List<String> logbookIds, LocalDateTime eventAt) {
+    private List<LogbookShiftDTO> getShiftsForEntry(List<String> logbookIds, LocalDateTime eventAt, List<String> shiftIds) {
         List<LogbookShiftDTO> shifts = new ArrayList<>();
         if (logbookIds == null || logbookIds.isEmpty()) return shifts;
+        if (shiftIds != null) return logbookService.getShiftsByIds(logbookIds, shiftIds);
         if (eventAt == null) return shifts;
         for (String logbookId :
                 logbookIds) {
@@ -202,6 +234,110 @@ public class EntryService {
      */
     @Transactional()
     public String createNew(Entry newEntry) {
+        List<Entry> newEntries = List.of(newEntry);
+        prepareNewEntry(newEntry, findExistingAttachmentIds(newEntries), findExistingReferenceIds(newEntries));
+
+        Entry savedEntry =
+                wrapCatch(
+                        () -> entryRepository.insert(
+                                newEntry
+                        ),
+                        -5,
+                        "LogService::createNew"
+                );
+        log.info("New entry '{}' created", savedEntry.getTitle());
+        return savedEntry.getId();
+    }
+
+    /**
+     * Create many new log entries, all the entries are validated in one pass and the valid ones
+     * are inserted with one unordered insert, so an invalid or failed entry doesn't stop the others
+     *
+     * @param newEntries the new entries
+     * @param creator    the creator of the new entries
+     * @return the result of each entry, in the same order of the input
+     */
+    public List<BulkEntryResultDTO> createNewBulk(List<EntryNewDTO> newEntries, PersonDTO creator) {
+        assertion(
+                () -> newEntries != null && !newEntries.isEmpty() && newEntries.size() <= elogAppProperties.getBulkEntryMaxSize(),
+                ControllerLogicException
+                        .builder()
+                        .errorCode(-1)
+                        .errorMessage("The bulk needs to contain from 1 to %d entries".formatted(elogAppProperties.getBulkEntryMaxSize()))
+                        .errorDomain("LogService::createNewBulk")
+                        .build()
+        );
+        BulkEntryResultDTO[] results = new BulkEntryResultDTO[newEntries.size()];
+        List<Entry> entries = new ArrayList<>(newEntries.size());
+        List<Integer> entriesIndex = new ArrayList<>(newEntries.size());
+        for (int idx = 0; idx < newEntries.size(); idx++) {
+            try {
+                entries.add(toModelWithCreator(newEntries.get(idx), creator));
+                entriesIndex.add(idx);
+            } catch (ControllerLogicException e) {
+                results[idx] = BulkEntryResultDTO.failed(idx, e.getErrorCode(), e.getErrorMessage());
+            }
+        }
+
+        List<BulkEntryResultDTO> bulkResults = createNewBulk(entries);
+        for (int idx = 0; idx < bulkResults.size(); idx++) {
+            int resultIndex = entriesIndex.get(idx);
+            results[resultIndex] = bulkResults.get(idx).toBuilder().index(resultIndex).build();
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Create many new log entries, all the entries are validated in one pass and the valid ones
+     * are inserted with one unordered insert, so an invalid or failed entry doesn't stop the others
+     *
+     * @param entries the new entries
+     * @return the result of each entry, in the same order of the input
+     */
+    public List<BulkEntryResultDTO> createNewBulk(List<Entry> entries) {
+        if (entries.isEmpty()) return emptyList();
+        BulkEntryResultDTO[] results = new BulkEntryResultDTO[entries.size()];
+        // the attachments and the references of all the entries are checked with one query each
+        Set<String> existingAttachmentIds = findExistingAttachmentIds(entries);
+        Set<String> existingReferenceIds = findExistingReferenceIds(entries);
+        List<Entry> entriesToInsert = new ArrayList<>(entries.size());
+        List<Integer> entriesToInsertIndex = new ArrayList<>(entries.size());
+        for (int idx = 0; idx < entries.size(); idx++) {
+            try {
+                prepareNewEntry(entries.get(idx), existingAttachmentIds, existingReferenceIds);
+                entriesToInsert.add(entries.get(idx));
+                entriesToInsertIndex.add(idx);
+            } catch (ControllerLogicException e) {
+                results[idx] = BulkEntryResultDTO.failed(idx, e.getErrorCode(), e.getErrorMessage());
+            }
+        }
+
+        Map<Integer, String> insertErrors = wrapCatch(
+                () -> entryRepository.insertAllUnordered(entriesToInsert),
+                -5,
+                "LogService::createNewBulk"
+        );
+        for (int idx = 0; idx < entriesToInsert.size(); idx++) {
+            int resultIndex = entriesToInsertIndex.get(idx);
+            results[resultIndex] = insertErrors.containsKey(idx) ?
+                    BulkEntryResultDTO.failed(resultIndex, -5, insertErrors.get(idx)) :
+                    BulkEntryResultDTO.created(resultIndex, entriesToInsert.get(idx).getId());
+        }
+        log.info("Bulk of {} entries processed, {} created", entries.size(), entriesToInsert.size() - insertErrors.size());
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Validate the new entry and fill the fields computed on creation. The logbooks, the attachments
+     * and the tags are checked in this order and the first category with invalid ids fails the
+     * validation, with an error that reports all the invalid ids of that category. The invalid
+     * references are removed without any error.
+     *
+     * @param newEntry              the new entry
+     * @param existingAttachmentIds the ids of the existing attachments of the new entries
+     * @param existingReferenceIds  the ids of the existing entries referenced by the new entries
+     */
+    private void prepareNewEntry(Entry newEntry, Set<String> existingAttachmentIds, Set<String> existingReferenceIds) {
         //get and check for logbooks
         Entry finalNewEntry = newEntry;
         assertion(
@@ -235,55 +371,53 @@ public class EntryService {
             // check for summarization
             checkForSummarization(lb, newEntry.getSummarizes());
         } else {
-            // check  all logbooks
-            newEntry.getLogbooks().forEach(
-                    logbookId -> {
-                        assertion(
-                                () -> logbookService.existById(logbookId),
-                                LogbookNotFound
-                                        .logbookNotFoundBuilder()
-                                        .errorCode(-4)
-                                        .errorDomain("LogService::createNew")
-                                        .build()
-                        );
-                    }
+            // check all logbooks against the snapshot, all the missing ones are reported
+            List<String> missingLogbooks = newEntry
+                    .getLogbooks()
+                    .stream()
+                    .filter(logbookId -> !logbookService.existById(logbookId))
+                    .distinct()
+                    .toList();
+            assertion(
+                    missingLogbooks::isEmpty,
+                    LogbookNotFound
+                            .logbookNotFoundBuilderWitLId()
+                            .errorCode(-4)
+                            .logbookId(String.join(", ", missingLogbooks))
+                            .errorDomain("LogService::createNew")
+                            .build()
             );
         }
-        // check for attachment
-        newEntry
+        // check for attachment against the ids found by the caller
+        List<String> missingAttachments = newEntry
                 .getAttachments()
-                .forEach(
-                        attachmentID -> {
-                            // check for presence of the attachment
-                            assertion(
-                                    AttachmentNotFound.attachmentNotFoundBuilder()
-                                            .errorCode(-3)
-                                            .attachmentID(attachmentID)
-                                            .errorDomain("LogService::createNew")
-                                            .build(),
-                                    () -> attachmentService.exists(attachmentID)
-                            );
-                        }
-                );
-        // check for tags
-        newEntry
+                .stream()
+                .filter(attachmentID -> !existingAttachmentIds.contains(attachmentID))
+                .distinct()
+                .toList();
+        assertion(
+                AttachmentNotFound.attachmentNotFoundBuilder()
+                        .errorCode(-3)
+                        .attachmentID(String.join(", ", missingAttachments))
+                        .errorDomain("LogService::createNew")
+                        .build(),
+                missingAttachments::isEmpty
+        );
+        // check for tags against the snapshot, all the missing ones are reported
+        List<String> missingTags = newEntry
                 .getTags()
-                .forEach(
-                        tagId -> {
-                            assertion(
-                                    () -> logbookService.tagIdExistInAnyLogbookIds
-                                            (
-                                                    tagId,
-                                                    finalNewEntry.getLogbooks()
-                                            ),
-                                    TagNotFound.tagNotFoundBuilder()
-                                            .errorCode(-4)
-                                            .tagName(tagId)
-                                            .errorDomain("LogService::createNew")
-                                            .build()
-                            );
-                        }
-                );
+                .stream()
+                .filter(tagId -> !logbookService.tagIdExistInAnyLogbookIds(tagId, finalNewEntry.getLogbooks()))
+                .distinct()
+                .toList();
+        assertion(
+                missingTags::isEmpty,
+                TagNotFound.tagNotFoundBuilder()
+                        .errorCode(-4)
+                        .tagName(String.join(", ", missingTags))
+                        .errorDomain("LogService::createNew")
+                        .build()
+        );
 
         //sanitize title and text
         Entry finalNewEntry1 = newEntry;
@@ -313,23 +447,49 @@ public class EntryService {
                         .build()
         );
 
+        // fill the fields derived from the body if the entry has not been created by the mapper
+        if (newEntry.getTextLength() == null) {
+            EntryTextUtilities.fillDerivedFields(newEntry, false);
+        }
+
         // remove the invalid references
-        filterOutInvalidReference(newEntry);
+        filterOutInvalidReference(newEntry, existingReferenceIds);
 
-        // other check
-        Entry finalNewEntryToSave = newEntry;
+        // stamp the shifts that contain the event date
+        newEntry.setShifts(
+                shiftStampService.findShiftIds(newEntry.getLogbooks(), newEntry.getEventAt())
+        );
+    }
 
-        newEntry =
+    /**
+     * Return the ids of the attachments, of all the entries, that exist
+     *
+     * @param entries the new entries
+     * @return the ids of the found attachments
+     */
+    private Set<String> findExistingAttachmentIds(List<Entry> entries) {
+        return attachmentService.findExisting(
+                entries.stream().filter(e -> e.getAttachments() != null).flatMap(e -> e.getAttachments().stream()).toList()
+        );
+    }
 
-                wrapCatch(
-                        () -> entryRepository.insert(
-                                finalNewEntryToSave
-                        ),
-                        -5,
-                        "LogService::createNew"
-                );
-        log.info("New entry '{}' created", newEntry.getTitle());
-        return newEntry.getId();
+    /**
+     * Return the ids of the entries, referenced by all the entries, that exist
+     *
+     * @param entries the new entries
+     * @return the ids of the found referenced entries
+     */
+    private Set<String> findExistingReferenceIds(List<Entry> entries) {
+        Set<String> referenceIds = new HashSet<>();
+        entries.stream().filter(e -> e.getReferences() != null).forEach(e -> referenceIds.addAll(e.getReferences()));
+        if (referenceIds.isEmpty()) return Collections.emptySet();
+        Set<String> existingReferenceIds = new HashSet<>();
+        wrapCatch(
+                () -> entryRepository.findIdByIdIn(referenceIds),
+                -1,
+                "EntryService::manageNewEntryReferences"
+        ).forEach(e -> existingReferenceIds.add(e.getId()));
+        return existingReferenceIds;
     }
 
     /**
@@ -339,14 +499,13 @@ public class EntryService {
      * @return
      */
     public List<EntrySummaryDTO> getEntriesThatOwnTheAttachment(String id) {
-        return wrapCatch(
-                () -> entryRepository.findAllByAttachmentsContains(id),
-                -1,
-                "LogService::createNew"
-        ).stream()
-                .map(
-                        entryMapper::toSearchResult
-                ).toList();
+        return entrySummaryHydrator.toSummaries(
+                wrapCatch(
+                        () -> entryRepository.findSummaryByAttachmentsContains(id),
+                        -1,
+                        "LogService::createNew"
+                )
+        );
     }
 
     /**
@@ -357,23 +516,14 @@ public class EntryService {
      * @param newEntry the new entry that need to be created
      */
     public void filterOutInvalidReference(Entry newEntry) {
+        filterOutInvalidReference(newEntry, findExistingReferenceIds(List.of(newEntry)));
+    }
+
+    private void filterOutInvalidReference(Entry newEntry, Set<String> existingReferenceIds) {
         if (newEntry.getReferences() == null || newEntry.getReferences().isEmpty()) return;
-        List<String> validReference = new ArrayList<>();
-        for (String referencedEntryId :
-                newEntry.getReferences()) {
-            // check for the reference entry if exists
-            if (
-                    wrapCatch(
-                            () -> entryRepository.existsById(referencedEntryId),
-                            -1,
-                            "EntryService::manageNewEntryReferences"
-                    )
-            ) {
-                // referenced entry exists
-                validReference.add(referencedEntryId);
-            }
-        }
-        newEntry.setReferences(validReference);
+        newEntry.setReferences(
+                new ArrayList<>(newEntry.getReferences().stream().filter(existingReferenceIds::contains).toList())
+        );
     }
 
     /**
@@ -411,7 +561,6 @@ public class EntryService {
             Optional<Boolean> includeReferences,
             Optional<Boolean> includeReferencedBy,
             Optional<Boolean> includeSupersededBy) {
-        EntryDTO result = null;
         Entry foundEntry =
                 wrapCatch(
                         () -> entryRepository.findById(id),
@@ -424,124 +573,109 @@ public class EntryService {
                                 .build()
                 );
 
-        // convert to model
-        result = entryMapper.fromModel(
-                foundEntry
-        );
-
-        if (includeFollowUps.isPresent() && includeFollowUps.get()) {
-            List<EntrySummaryDTO> list = getAllFollowUpForALog(id);
-            result = result.toBuilder()
-                    .followUps(list)
-                    .build();
-        }
-
-        if (includeFollowingUps.isPresent() && includeFollowingUps.get()) {
-            Optional<Entry> followingLog = wrapCatch(
-                    // fin followUps only on the last version (supersededBy is null) of the entry
-                    () -> entryRepository.findByFollowUpsContainsAndSupersededByIsNull(id),
-                    -3,
-                    "LogService::getFullEntry"
-            );
-            if (followingLog.isPresent()) {
-                result = result.toBuilder()
-                        .followingUp(
-                                followingLog.map(
-                                        entryMapper::toSearchResult
-                                ).orElse(null)
-                        )
-                        .build();
-            }
-        }
-
-        // fill history
-        if (followHistory.isPresent() && followHistory.get()) {
-            // load all the history
-            List<EntrySummaryDTO> logHistory = new ArrayList<>();
-            getLogHistory(id, logHistory);
-            if (!logHistory.isEmpty()) {
-                result = result.toBuilder()
-                        .history(logHistory)
-                        .build();
-            }
-        }
-
-        if (includeReferences.orElse(false)) {
-            // fill the references field
-            result = result.toBuilder()
-                    .references(
-                            foundEntry.getReferences()
-                                    .stream()
-                                    .map(
-                                            refId -> wrapCatch(
-                                                    () -> entryRepository.findById(refId)
-                                                            .map(
-                                                                    entryMapper::toSearchResult
-                                                            )
-                                                            .orElseThrow(
-                                                                    () -> EntryNotFound.entryNotFoundBuilder()
-                                                                            .errorCode(-4)
-                                                                            .errorDomain("LogService::getFullEntry")
-                                                                            .build()
-                                                            ),
-                                                    -5,
-                                                    "LogService::getFullEntry"
-                                            )
-                                    ).toList()
-                    )
-                    .build();
-        } else {
-            result = result.toBuilder()
-                    .references(emptyList())
-                    .build();
-        }
-
-        if (includeReferencedBy.orElse(false)) {
-            // fill the referencedBy field
-            result = result.toBuilder()
-                    .referencedBy(
-                            wrapCatch(
-                                    () -> entryRepository.findAllByReferencesContainsAndSupersededByExists(foundEntry.getId(), false)
-                                            .stream()
-                                            .map(
-                                                    entryMapper::toSearchResult
-                                            )
-                                            .toList(),
-                                    -6,
-                                    "EntryMapper::getFullEntry"
+        boolean fillFollowUps = includeFollowUps.orElse(false);
+        boolean fillFollowingUp = includeFollowingUps.orElse(false);
+        boolean fillHistory = followHistory.orElse(false);
+        boolean fillReferences = includeReferences.orElse(false);
+        boolean fillReferencedBy = includeReferencedBy.orElse(false);
+        boolean fillSupersededBy = includeSupersededBy.orElse(false) && foundEntry.getSupersededBy() != null;
+        long sectionsToFill = Stream.of(fillFollowUps, fillFollowingUp, fillHistory, fillReferences, fillReferencedBy, fillSupersededBy)
+                .filter(Boolean::booleanValue)
+                .count();
+
+        // the sections are independent lookups so they are fetched concurrently and the entry is assembled once
+        try (var scope = fanOutExecutor.openScope(
+                Duration.ofMillis(elogAppProperties.getFullEntryDeadlineMs()),
+                sectionsToFill > 1
+        )) {
+            Future<List<EntrySummaryDTO>> followUps = fillFollowUps ?
+                    scope.fork(() -> getAllFollowUpForALog(id)) : null;
+            Future<EntrySummaryDTO> followingUp = fillFollowingUp ?
+                    scope.fork(
+                            () -> wrapCatch(
+                                    // fin followUps only on the last version (supersededBy is null) of the entry
+                                    () -> entryRepository.findSummaryByFollowUpsContainsAndSupersededByIsNull(id),
+                                    -3,
+                                    "LogService::getFullEntry"
+                            ).map(entrySummaryHydrator::toSummary).orElse(null)
+                    ) : null;
+            Future<List<EntrySummaryDTO>> history = fillHistory ?
+                    scope.fork(
+                            () -> {
+                                // load all the history
+                                List<EntrySummaryDTO> logHistory = new ArrayList<>();
+                                getLogHistory(id, logHistory);
+                                return logHistory;
+                            }
+                    ) : null;
+            Future<List<EntrySummaryDTO>> references = fillReferences ?
+                    scope.fork(
+                            () -> {
+                                List<Entry> referencedEntries = wrapCatch(
+                                        () -> findSummariesInOrder(foundEntry.getReferences()),
+                                        -5,
+                                        "LogService::getFullEntry"
+                                );
+                                if (referencedEntries.contains(null)) {
+                                    throw EntryNotFound.entryNotFoundBuilder()
+                                            .errorCode(-4)
+                                            .errorDomain("LogService::getFullEntry")
+                                            .build();
+                                }
+                                return entrySummaryHydrator.toSummaries(referencedEntries);
+                            }
+                    ) : null;
+            Future<List<EntrySummaryDTO>> referencedBy = fillReferencedBy ?
+                    scope.fork(
+                            () -> entrySummaryHydrator.toSummaries(
+                                    wrapCatch(
+                                            () -> entryRepository.findSummaryByReferencesContainsAndSupersededByExists(foundEntry.getId(), false),
+                                            -6,
+                                            "EntryMapper::getFullEntry"
+                                    )
                             )
-                    )
-                    .build();
-        } else {
-            result = result.toBuilder()
-                    .referencedBy(emptyList())
-                    .build();
-        }
-
-        if (includeSupersededBy.orElse(false) && foundEntry.getSupersededBy() != null) {
-            // fill the referencedBy field
-            result = result.toBuilder()
-                    .supersededBy(
-                            wrapCatch(
-                                    () -> entryRepository.findById(foundEntry.getSupersededBy())
-                                            .map(entryMapper::toSearchResult)
+                    ) : null;
+            Future<EntrySummaryDTO> supersededBy = fillSupersededBy ?
+                    scope.fork(
+                            () -> wrapCatch(
+                                    () -> entryRepository.findSummaryByIdIn(List.of(foundEntry.getSupersededBy()))
+                                            .stream()
+                                            .findFirst()
+                                            .map(entrySummaryHydrator::toSummary)
                                             .orElse(null),
                                     -7,
                                     "EntryMapper::getFullEntry"
                             )
-                    )
+                    ) : null;
+
+            // the shifts are resolved on the logbook snapshot
+            List<LogbookShiftDTO> shifts = getShiftsForEntry(
+                    foundEntry.getLogbooks(),
+                    foundEntry.getEventAt(),
+                    foundEntry.getShifts()
+            );
+
+            EntryDTO.EntryDTOBuilder builder = entryMapper.fromModel(foundEntry).toBuilder();
+            if (followUps != null) {
+                builder.followUps(scope.join(followUps));
+            }
+            if (followingUp != null) {
+                EntrySummaryDTO followingUpSummary = scope.join(followingUp);
+                if (followingUpSummary != null) builder.followingUp(followingUpSummary);
+            }
+            if (history != null) {
+                List<EntrySummaryDTO> logHistory = scope.join(history);
+                if (!logHistory.isEmpty()) builder.history(logHistory);
+            }
+            builder.references(references != null ? scope.join(references) : emptyList());
+            builder.referencedBy(referencedBy != null ? scope.join(referencedBy) : emptyList());
+            if (supersededBy != null) {
+                builder.supersededBy(scope.join(supersededBy));
+            }
+            return builder
+                    .shifts(shifts)
                     .build();
         }
-
-        // fill shift
-        return result.toBuilder()
-                .shifts(
-                        getShiftsForEntry(
-                                foundEntry.getLogbooks(),
-                                foundEntry.getEventAt()
-                        )
-                )
-                .build();
     }
 
     /**
@@ -553,26 +687,33 @@ public class EntryService {
     public EntrySummaryDTO getSuperseded(String newestLogID) {
         Optional<Entry> foundLog =
                 wrapCatch(
-                        () -> entryRepository.findBySupersededBy(newestLogID),
+                        () -> entryRepository.findSummaryBySupersededBy(newestLogID),
                         -1,
                         "LogService::getSuperseded"
                 );
-        return foundLog.map(entryMapper::toSearchResult).orElse(null);
+        return foundLog.map(entrySummaryHydrator::toSummary).orElse(null);
     }
 
     /**
-     * Return all the history of the log from the newest one passed in input until the last
+     * Return all the history of the log from the newest one passed in input until the last,
+     * the history is loaded in a single round trip up to the configured max depth and the
+     * summaries are built by the batch hydrator
      *
      * @param newestLogID the log of the newest id
      * @param history     the list of the log until the last, from the one identified by newestLogID
      */
     public void getLogHistory(String newestLogID, List<EntrySummaryDTO> history) {
         if (history == null) return;
-        EntrySummaryDTO prevInHistory = getSuperseded(newestLogID);
-        if (prevInHistory == null) return;
-
-        history.add(prevInHistory);
-        getLogHistory(prevInHistory.id(), history);
+        int maxDepth = elogAppProperties.getHistoryMaxDepth();
+        List<Entry> previousVersions = wrapCatch(
+                () -> entryRepository.findHistory(newestLogID, maxDepth),
+                -1,
+                "LogService::getLogHistory"
+        );
+        if (previousVersions.size() >= maxDepth) {
+            log.warn("The history of the entry '{}' has been truncated to {} previous versions", newestLogID, maxDepth);
+        }
+        history.addAll(entrySummaryHydrator.toSummaries(previousVersions));
     }
 
     /**
@@ -648,7 +789,7 @@ public class EntryService {
                 entry -> {
                     entry.getReferences().remove(entryId);
                     entry.getReferences().add(supersededById);
-                    entry.setText(updateHtmlReferenceTag(entry.getText(), entryId, supersededById));
+                    updateHtmlReferenceTag(entry, entryId, supersededById);
                     wrapCatch(
                             () -> entryRepository.save(entry),
                             -2,
@@ -659,16 +800,16 @@ public class EntryService {
     }
 
     /**
-     * Update the reference in the text
+     * Update the reference in the text of the entry, the derived fields are
+     * refreshed using the same parsed document
      *
-     * @param text           the text to update
+     * @param entry          the entry to update
      * @param entryId        the id to replace
      * @param supersededById the new id
-     * @return the updated text
      */
-    private String updateHtmlReferenceTag(String text, String entryId, String supersededById) {
+    private void updateHtmlReferenceTag(Entry entry, String entryId, String supersededById) {
         // scan document text and update the reference
-        Document document = Jsoup.parseBodyFragment(text);
+        Document document = Jsoup.parseBodyFragment(entry.getText());
         Elements elements = document.select(ELOG_ENTRY_REF);
         for (Element element : elements) {
             // Get the 'id' attribute
@@ -679,7 +820,8 @@ public class EntryService {
             // update id
             element.attr(ELOG_ENTRY_REF_ID, supersededById);
         }
-        return document.body().html();
+        entry.setText(document.body().html());
+        EntryTextUtilities.fillDerivedFields(entry, document);
     }
 
     /**
@@ -734,16 +876,11 @@ public class EntryService {
                 );
         List<Entry> followUp =
                 wrapCatch(
-                        () -> entryRepository.findAllByIdIn(rootLog.getFollowUps()),
+                        () -> entryRepository.findSummaryByIdIn(rootLog.getFollowUps()),
                         -1,
                         "LogService::getAllFollowUpForALog"
                 );
-        return followUp
-                .stream()
-                .map(
-                        entryMapper::toSearchResult
-                )
-                .collect(Collectors.toList());
+        return entrySummaryHydrator.toSummaries(followUp);
     }
 
     public List<String> getAllTags() {
@@ -849,20 +986,33 @@ public class EntryService {
                 "EntryService::getReferencesByEntryID"
         );
         if (foundReferencesIds == null) return emptyList();
-        return foundReferencesIds.stream().map(
-                refId -> wrapCatch(
-                        () -> entryRepository.findById(refId),
-                        -2,
-                        "EntryService::getReferencesByEntryID"
-                ).map(
-                        entryMapper::toSearchResult
-                ).orElseThrow(
-                        () -> EntryNotFound.entryNotFoundBuilderWithName()
-                                .errorCode(-3)
-                                .entryName(refId)
-                                .errorDomain("EntryService::getReferencesByEntryID")
-                                .build()
-                )
-        ).toList();
+        List<Entry> referencedEntries = wrapCatch(
+                () -> findSummariesInOrder(foundReferencesIds),
+                -2,
+                "EntryService::getReferencesByEntryID"
+        );
+        for (int idx = 0; idx < referencedEntries.size(); idx++) {
+            if (referencedEntries.get(idx) != null) continue;
+            throw EntryNotFound.entryNotFoundBuilderWithName()
+                    .errorCode(-3)
+                    .entryName(foundReferencesIds.get(idx))
+                    .errorDomain("EntryService::getReferencesByEntryID")
+                    .build();
+        }
+        return entrySummaryHydrator.toSummaries(referencedEntries);
+    }
+
+    /**
+     * Load, without the body and with a single query, the entries identified by the ids
+     *
+     * @param ids the ids of the entries
+     * @return the entries in the same order of the ids, null for the ids that are not found
+     */
+    private List<Entry> findSummariesInOrder(List<String> ids) {
+        Map<String, Entry> entryById = new HashMap<>();
+        entryRepository.findSummaryByIdIn(ids).forEach(e -> entryById.put(e.getId(), e));
+        List<Entry> result = new ArrayList<>(ids.size());
+        ids.forEach(id -> result.add(entryById.get(id)));
+        return result;
     }
 }
@@ -0,0 +1,300 @@
+package edu.stanford.slac.elog_plus.service;
+
+import edu.stanford.slac.elog_plus.api.v1.dto.*;
+import edu.stanford.slac.elog_plus.api.v1.mapper.AttachmentMapper;
+import edu.stanford.slac.elog_plus.api.v1.mapper.EntryMapper;
+import edu.stanford.slac.elog_plus.api.v1.mapper.LogbookMapper;
+import edu.stanford.slac.elog_plus.exception.AttachmentNotFound;
+import edu.stanford.slac.elog_plus.exception.LogbookNotFound;
+import edu.stanford.slac.elog_plus.exception.TagNotFound;
+import edu.stanford.slac.elog_plus.model.*;
+import edu.stanford.slac.elog_plus.repository.AttachmentRepository;
+import edu.stanford.slac.elog_plus.repository.EntryRepository;
+import edu.stanford.slac.elog_plus.service.cache.LogbookSnapshot;
+import edu.stanford.slac.elog_plus.service.cache.LogbookSnapshotService;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+import static edu.stanford.slac.ad.eed.baselib.exception.Utility.wrapCatch;
+
+/**
+ * Convert a page of entries into summaries resolving all the relations
+ * (logbooks, tags, attachments, following up, referenced by and shifts)
+ * with one query per relation for the whole page, instead of one query
+ * per relation for each entry.
+ */
+@Service
+@Log4j2
+@AllArgsConstructor
+public class EntrySummaryHydrator {
+    final private EntryRepository entryRepository;
+    final private LogbookSnapshotService logbookSnapshotService;
+    final private AttachmentRepository attachmentRepository;
+    final private EntryMapper entryMapper;
+    final private LogbookMapper logbookMapper;
+    final private AttachmentMapper attachmentMapper;
+
+    /**
+     * Convert a page of entries to summaries
+     *
+     * @param entries the entries to convert
+     * @return the summaries in the same order of the entries in input
+     */
+    public List<EntrySummaryDTO> toSummaries(List<Entry> entries) {
+        return toSummaries(entries, null, null);
+    }
+
+    /**
+     * Convert a single entry to summary
+     *
+     * @param entry the entry to convert
+     * @return the summary or null if the entry is null
+     */
+    public EntrySummaryDTO toSummary(Entry entry) {
+        if (entry == null) return null;
+        return toSummaries(List.of(entry)).get(0);
+    }
+
+    /**
+     * Convert a page of entries to summaries reusing the relations already resolved
+     * by the search, the relations passed as null are loaded
+     *
+     * @param entries              the entries to convert
+     * @param followingUpByEntryId the already resolved following up relation or null
+     * @param referencedByEntryId  the already resolved referenced by relation or null
+     * @return the summaries in the same order of the entries in input
+     */
+    public List<EntrySummaryDTO> toSummaries(
+            List<Entry> entries,
+            Map<String, String> followingUpByEntryId,
+            Map<String, List<String>> referencedByEntryId) {
+        if (entries == null || entries.isEmpty()) return new ArrayList<>();
+        Set<String> entryIds = new HashSet<>();
+        Set<String> logbookIds = new HashSet<>();
+        Set<String> tagIds = new HashSet<>();
+        Set<String> attachmentIds = new HashSet<>();
+        for (Entry entry : entries) {
+            if (entry.getId() != null) entryIds.add(entry.getId());
+            if (entry.getLogbooks() != null) logbookIds.addAll(entry.getLogbooks());
+            if (entry.getTags() != null) tagIds.addAll(entry.getTags());
+            if (entry.getAttachments() != null) attachmentIds.addAll(entry.getAttachments());
+        }
+
+        if (followingUpByEntryId == null) followingUpByEntryId = loadFollowingUp(entryIds);
+        if (referencedByEntryId == null) referencedByEntryId = loadReferencedBy(entryIds);
+        LogbookSnapshot snapshot = logbookSnapshotService.get();
+        Map<String, Logbook> logbookById = loadLogbooks(snapshot, logbookIds);
+        Map<String, TagDTO> tagById = loadTags(snapshot, tagIds, logbookById.values());
+        Map<String, AttachmentDTO> attachmentById = loadAttachments(attachmentIds);
+
+        List<EntrySummaryDTO> result = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            EntrySummaryDTO summary = entryMapper.toSearchResultWithoutRelations(entry);
+            result.add(
+                    summary.toBuilder()
+                            .logbooks(toLogbookSummaries(entry.getLogbooks(), logbookById))
+                            .tags(toTags(entry.getTags(), tagById))
+                            .attachments(toAttachments(entry.getAttachments(), attachmentById))
+                            .followingUp(followingUpByEntryId.get(entry.getId()))
+                            .referencedBy(entry.getId() == null ? null : referencedByEntryId.getOrDefault(entry.getId(), new ArrayList<>()))
+                            .shifts(toShifts(snapshot, entry, logbookById))
+                            .build()
+            );
+        }
+        return result;
+    }
+
+    /**
+     * Load, with a single query, the entry that each entry in input follows up
+     *
+     * @param entryIds the ids of the entries
+     * @return the map between the entry id and the id of the entry it follows up
+     */
+    private Map<String, String> loadFollowingUp(Set<String> entryIds) {
+        Map<String, String> result = new HashMap<>();
+        List<Entry> followed = wrapCatch(
+                () -> entryRepository.findFollowingUpByFollowUpIds(entryIds),
+                -1,
+                "EntrySummaryHydrator::loadFollowingUp"
+        );
+        for (Entry entry : followed) {
+            for (String followUpId : entry.getFollowUps()) {
+                if (entryIds.contains(followUpId)) {
+                    result.putIfAbsent(followUpId, entry.getId());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Load, with a single query, the entries that refer each entry in input
+     *
+     * @param entryIds the ids of the entries
+     * @return the map between the entry id and the ids of the entries that refer it
+     */
+    private Map<String, List<String>> loadReferencedBy(Set<String> entryIds) {
+        Map<String, List<String>> result = new HashMap<>();
+        List<Entry> referencing = wrapCatch(
+                () -> entryRepository.findReferencingByReferencedIds(entryIds),
+                -1,
+                "EntrySummaryHydrator::loadReferencedBy"
+        );
+        for (Entry entry : referencing) {
+            for (String referencedId : entry.getReferences()) {
+                if (!entryIds.contains(referencedId)) continue;
+                List<String> referencedBy = result.computeIfAbsent(referencedId, k -> new ArrayList<>());
+                if (!referencedBy.contains(entry.getId())) referencedBy.add(entry.getId());
+            }
+        }
+        return result;
+    }
+
+    private Map<String, Logbook> loadLogbooks(LogbookSnapshot snapshot, Set<String> logbookIds) {
+        Map<String, Logbook> result = new HashMap<>();
+        logbookIds.forEach(id -> snapshot.getLogbook(id).ifPresent(l -> result.put(l.getId(), l)));
+        return result;
+    }
+
+    /**
+     * Resolve the tags using the logbooks already loaded, the tags that are not found
+     * on them are resolved with the logbook snapshot
+     */
+    private Map<String, TagDTO> loadTags(LogbookSnapshot snapshot, Set<String> tagIds, Collection<Logbook> loadedLogbooks) {
+        Map<String, TagDTO> result = new HashMap<>();
+        if (tagIds.isEmpty()) return result;
+        collectTags(tagIds, loadedLogbooks, result);
+        if (result.size() < tagIds.size()) {
+            Set<String> missingTagIds = new HashSet<>(tagIds);
+            missingTagIds.removeAll(result.keySet());
+            Set<Logbook> tagOwners = new HashSet<>();
+            missingTagIds.forEach(id -> snapshot.getLogbookByTagId(id).ifPresent(tagOwners::add));
+            collectTags(missingTagIds, tagOwners, result);
+        }
+        return result;
+    }
+
+    private void collectTags(Set<String> tagIds, Collection<Logbook> logbooks, Map<String, TagDTO> result) {
+        for (Logbook logbook : logbooks) {
+            if (logbook.getTags() == null) continue;
+            LogbookSummaryDTO logbookSummary = logbookMapper.fromModelToSummaryDTO(logbook);
+            for (Tag tag : logbook.getTags()) {
+                if (!tagIds.contains(tag.getId())) continue;
+                result.putIfAbsent(
+                        tag.getId(),
+                        TagDTO.builder()
+                                .id(tag.getId())
+                                .name(tag.getName())
+                                .description(tag.getDescription())
+                                .logbook(logbookSummary)
+                                .build()
+                );
+            }
+        }
+    }
+
+    private Map<String, AttachmentDTO> loadAttachments(Set<String> attachmentIds) {
+        Map<String, AttachmentDTO> result = new HashMap<>();
+        if (attachmentIds.isEmpty()) return result;
+        wrapCatch(
+                () -> attachmentRepository.findAllById(attachmentIds),
+                -1,
+                "EntrySummaryHydrator::loadAttachments"
+        ).forEach(a -> result.put(a.getId(), attachmentMapper.fromModel(a)));
+        return result;
+    }
+
+    private List<LogbookSummaryDTO> toLogbookSummaries(List<String> logbookIds, Map<String, Logbook> logbookById) {
+        if (logbookIds == null) return null;
+        List<LogbookSummaryDTO> result = new ArrayList<>(logbookIds.size());
+        for (String logbookId : logbookIds) {
+            Logbook logbook = logbookById.get(logbookId);
+            if (logbook == null) {
+                throw LogbookNotFound.logbookNotFoundBuilderWitLId()
+                        .errorCode(-1)
+                        .logbookId(logbookId)
+                        .errorDomain("EntrySummaryHydrator::toLogbookSummaries")
+                        .build();
+            }
+            result.add(logbookMapper.fromModelToSummaryDTO(logbook));
+        }
+        return result;
+    }
+
+    private List<TagDTO> toTags(List<String> tagIds, Map<String, TagDTO> tagById) {
+        if (tagIds == null) return null;
+        List<TagDTO> result = new ArrayList<>(tagIds.size());
+        for (String tagId : tagIds) {
+            TagDTO tag = tagById.get(tagId);
+            if (tag == null) {
+                throw TagNotFound.tagNotFoundBuilder()
+                        .errorCode(-1)
+                        .tagName(tagId)
+                        .errorDomain("EntrySummaryHydrator::toTags")
+                        .build();
+            }
+            result.add(tag);
+        }
+        return result;
+    }
+
+    private List<AttachmentDTO> toAttachments(List<String> attachmentIds, Map<String, AttachmentDTO> attachmentById) {
+        if (attachmentIds == null) return null;
+        List<AttachmentDTO> result = new ArrayList<>(attachmentIds.size());
+        for (String attachmentId : attachmentIds) {
+            AttachmentDTO attachment = attachmentById.get(attachmentId);
+            if (attachment == null) {
+                throw AttachmentNotFound.attachmentNotFoundBuilder()
+                        .errorCode(-2)
+                        .attachmentID(attachmentId)
+                        .errorDomain("EntrySummaryHydrator::toAttachments")
+                        .build();
+            }
+            result.add(attachment);
+        }
+        return result;
+    }
+
+    /**
+     * Find, for each logbook, the shift that contains the event time using the
+     * shift ids stamped on the entry or, when the entry has not been stamped, the shift lookup
+     * tables of the snapshot, as {@link LogbookService#findShiftByLocalTime}
+     */
+    private List<LogbookShiftDTO> toShifts(LogbookSnapshot snapshot, Entry entry, Map<String, Logbook> logbookById) {
+        List<LogbookShiftDTO> result = new ArrayList<>();
+        List<String> logbookIds = entry.getLogbooks();
+        if (logbookIds == null || logbookIds.isEmpty()) return result;
+        if (entry.getShifts() == null && entry.getEventAt() == null) return result;
+        for (String logbookId : logbookIds) {
+            Logbook logbook = logbookById.get(logbookId);
+            if (logbook == null) continue;
+            Shift shift = entry.getShifts() != null ?
+                    findStampedShift(snapshot, logbookId, entry.getShifts()) :
+                    snapshot.findShift(logbookId, entry.getEventAt().toLocalTime());
+            if (shift == null) continue;
+            result.add(
+                    LogbookShiftDTO.builder()
+                            .id(shift.getId())
+                            .name(shift.getName())
+                            .from(shift.getFrom())
+                            .to(shift.getTo())
+                            .logbook(logbookMapper.fromModelToSummaryDTO(logbook))
+                            .build()
+            );
+        }
+        return result;
+    }
+
+    private Shift findStampedShift(LogbookSnapshot snapshot, String logbookId, List<String> shiftIds) {
+        for (String shiftId : shiftIds) {
+            Optional<Logbook> owner = snapshot.getLogbookByShiftId(shiftId);
+            if (owner.isPresent() && owner.get().getId().equals(logbookId)) {
+                return snapshot.getShift(shiftId).orElse(null);
+            }
+        }
+        return null;
+    }
+}
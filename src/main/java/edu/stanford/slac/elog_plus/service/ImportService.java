@@ -1,20 +1,23 @@
 package edu.stanford.slac.elog_plus.service;
 
+import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
+import edu.stanford.slac.elog_plus.api.v1.dto.BulkEntryResultDTO;
 import edu.stanford.slac.elog_plus.api.v1.dto.EntryImportDTO;
 import edu.stanford.slac.elog_plus.api.v1.mapper.EntryMapper;
 import edu.stanford.slac.elog_plus.exception.EntryNotFound;
 import edu.stanford.slac.elog_plus.model.Entry;
 import edu.stanford.slac.elog_plus.model.FileObjectDescription;
 import edu.stanford.slac.elog_plus.repository.EntryRepository;
+import edu.stanford.slac.elog_plus.service.cache.OriginIdCache;
 import lombok.AllArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
 import static edu.stanford.slac.ad.eed.baselib.exception.Utility.assertion;
 import static edu.stanford.slac.ad.eed.baselib.exception.Utility.wrapCatch;
+import static java.util.Collections.emptyList;
 
 @Log4j2
 @Service
@@ -25,6 +28,7 @@ public class ImportService {
     private final LogbookService logbookService;
     private final AttachmentService attachmentService;
     private final EntryRepository entryRepository;
+    private final OriginIdCache originIdCache;
 
 
     /**
@@ -35,6 +39,19 @@ public class ImportService {
      * @return the id of the new entry
      */
     public String importSingleEntry(EntryImportDTO entryToUpload, List<FileObjectDescription> attachment) {
+        return importSingleEntry(entryToUpload, attachment, resolveOriginIds(List.of(entryToUpload)));
+    }
+
+    /**
+     * Upload the new entry using the origin ids already resolved, the origin id of the new entry
+     * is added to the resolved ones
+     *
+     * @param entryToUpload        the entry to upload
+     * @param attachment           the attachment list to create and associate
+     * @param importedIdByOriginId the entry id by origin id of the entry and of its references
+     * @return the id of the new entry
+     */
+    private String importSingleEntry(EntryImportDTO entryToUpload, List<FileObjectDescription> attachment, Map<String, String> importedIdByOriginId) {
         // in case we have the origin id check for record existence
         Entry supersededEntry = null;
         String newEntryId = null;
@@ -44,7 +61,7 @@ public class ImportService {
         if (entryToUpload.originId() != null) {
             log.info("[import {}] check for already present origin id", entryToUpload.title());
             assertion(
-                    () -> !entryService.existsByOriginId(entryToUpload.originId()),
+                    () -> !importedIdByOriginId.containsKey(entryToUpload.originId()),
                     -2,
                     "Entry with origin id '%s' already exists".formatted(entryToUpload.originId()),
                     "ImportService::importSingleEntry"
@@ -83,11 +100,7 @@ public class ImportService {
             List<String> localIdReferenced = new ArrayList<>();
             for (String originalIdReference :
                     entryToUpload.referencesByOriginId()) {
-                String localId = wrapCatch(
-                        () -> entryService.getIdFromOriginId(originalIdReference),
-                        -3,
-                        "ImportService::importSingleEntry"
-                );
+                String localId = importedIdByOriginId.get(originalIdReference);
                 assertion(
                         () -> localId != null,
                         -3,
@@ -107,6 +120,8 @@ public class ImportService {
                 -2,
                 "ImportService::importSingleEntry"
         );
+        originIdCache.put(entryToUpload.originId(), newEntryId);
+        if (entryToUpload.originId() != null) importedIdByOriginId.put(entryToUpload.originId(), newEntryId);
 
         // check if we have completed
         if (supersededEntry != null) {
@@ -138,6 +153,115 @@ public class ImportService {
         return newEntryId;
     }
 
+    /**
+     * Import many entries, the entries without supersede and references are created with one bulk
+     * insert, the others are imported one by one, in order, after the bulk. The entries whose origin
+     * id has already been imported, before or earlier in the same import, are not imported again and
+     * their result carries the id of the existing entry, so a redelivered entry is imported only once.
+     *
+     * @param entriesToUpload the entries to import, with the logbooks and the tags as ids
+     * @return the result of each entry, in the same order of the input
+     */
+    public List<BulkEntryResultDTO> importEntries(List<EntryImportDTO> entriesToUpload) {
+        BulkEntryResultDTO[] results = new BulkEntryResultDTO[entriesToUpload.size()];
+        // resolve the origin ids of all the entries and their references with one query
+        Map<String, String> importedIdByOriginId = resolveOriginIds(entriesToUpload);
+
+        List<Entry> bulkEntries = new ArrayList<>();
+        List<Integer> bulkEntriesIndex = new ArrayList<>();
+        List<Integer> singleEntriesIndex = new ArrayList<>();
+        Map<String, Integer> firstIndexByOriginId = new HashMap<>();
+        Map<Integer, Integer> duplicateOfIndex = new HashMap<>();
+        for (int idx = 0; idx < entriesToUpload.size(); idx++) {
+            EntryImportDTO entryToUpload = entriesToUpload.get(idx);
+            if (entryToUpload.originId() != null && importedIdByOriginId.containsKey(entryToUpload.originId())) {
+                log.info("[import {}] origin id {} already imported", entryToUpload.title(), entryToUpload.originId());
+                results[idx] = BulkEntryResultDTO.created(idx, importedIdByOriginId.get(entryToUpload.originId()));
+            } else if (entryToUpload.originId() != null && firstIndexByOriginId.containsKey(entryToUpload.originId())) {
+                // a duplicate of an entry of the same import gets the result of the first one
+                duplicateOfIndex.put(idx, firstIndexByOriginId.get(entryToUpload.originId()));
+            } else {
+                if (entryToUpload.originId() != null) firstIndexByOriginId.put(entryToUpload.originId(), idx);
+                if (
+                        entryToUpload.supersedeOfByOriginId() != null ||
+                                (entryToUpload.referencesByOriginId() != null && !entryToUpload.referencesByOriginId().isEmpty())
+                ) {
+                    // need the entries created before it
+                    singleEntriesIndex.add(idx);
+                } else {
+                    bulkEntries.add(entryMapper.fromDTO(entryToUpload, emptyList()));
+                    bulkEntriesIndex.add(idx);
+                }
+            }
+        }
+
+        List<BulkEntryResultDTO> bulkResults = entryService.createNewBulk(bulkEntries);
+        for (int idx = 0; idx < bulkResults.size(); idx++) {
+            BulkEntryResultDTO bulkResult = bulkResults.get(idx);
+            int resultIndex = bulkEntriesIndex.get(idx);
+            results[resultIndex] = bulkResult.toBuilder().index(resultIndex).build();
+            String originId = entriesToUpload.get(resultIndex).originId();
+            if (bulkResult.errorCode() == 0 && originId != null) {
+                // the following entries can reference the ones just created
+                originIdCache.put(originId, bulkResult.id());
+                importedIdByOriginId.put(originId, bulkResult.id());
+            }
+        }
+        for (int idx : singleEntriesIndex) {
+            try {
+                results[idx] = BulkEntryResultDTO.created(idx, importSingleEntry(entriesToUpload.get(idx), emptyList(), importedIdByOriginId));
+            } catch (ControllerLogicException e) {
+                results[idx] = BulkEntryResultDTO.failed(idx, e.getErrorCode(), e.getErrorMessage());
+            }
+        }
+        duplicateOfIndex.forEach(
+                (idx, firstIdx) -> {
+                    BulkEntryResultDTO firstResult = results[firstIdx];
+                    results[idx] = firstResult.errorCode() == 0 ?
+                            BulkEntryResultDTO.created(idx, firstResult.id()) :
+                            BulkEntryResultDTO.failed(idx, firstResult.errorCode(), firstResult.errorMessage());
+                }
+        );
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Resolve the origin ids of the entries and of their references
+     *
+     * @param entries the entries to import
+     * @return the entry id by origin id of the ones already imported
+     */
+    private Map<String, String> resolveOriginIds(List<EntryImportDTO> entries) {
+        Set<String> originIds = new HashSet<>();
+        for (EntryImportDTO entry : entries) {
+            if (entry.originId() != null) originIds.add(entry.originId());
+            if (entry.referencesByOriginId() != null) originIds.addAll(entry.referencesByOriginId());
+        }
+        if (originIds.isEmpty()) return new HashMap<>();
+        return new HashMap<>(originIdCache.resolve(originIds));
+    }
+
+    /**
+     * Create the tags on all the logbooks, the missing tags of a logbook are created with one update
+     *
+     * @param tags       all tag names
+     * @param logbookIds all logbook ids
+     * @return the ids of the tag on all the logbooks by tag name
+     */
+    public Map<String, List<String>> ensureTagsIdsByName(Collection<String> tags, List<String> logbookIds) {
+        Map<String, List<String>> tagIdsByName = new HashMap<>();
+        tags.forEach(tagName -> tagIdsByName.put(tagName, new ArrayList<>()));
+        for (String logbookId : logbookIds) {
+            Map<String, String> tagIdByName = wrapCatch(
+                    () -> logbookService.ensureTags(logbookId, tags),
+                    -2,
+                    "ImportService::ensureTagsIdsByName"
+            );
+            tagIdsByName.forEach((tagName, tagIds) -> tagIds.add(tagIdByName.get(tagName)));
+        }
+        return tagIdsByName;
+    }
+
     /**
      * Create tags name on all logbooks
      *
@@ -154,17 +278,12 @@ public class ImportService {
                     -1,
                     "ImportService::ensureTagByNameAndLogbooks"
             );
-
-            for (String tagName :
-                    tags) {
-                tagIds.add(wrapCatch(
-                                () -> logbookService.ensureTag(lb.id(), tagName),
-                                -2,
-                                "ImportService::ensureTagByNameAndLogbooks"
-                        )
-                );
-            }
-
+            Map<String, String> tagIdByName = wrapCatch(
+                    () -> logbookService.ensureTags(lb.id(), tags),
+                    -2,
+                    "ImportService::ensureTagByNameAndLogbooks"
+            );
+            tags.forEach(tagName -> tagIds.add(tagIdByName.get(tagName)));
         }
         return tagIds;
     }
@@ -19,7 +19,9 @@ import edu.stanford.slac.elog_plus.model.Shift;
 import edu.stanford.slac.elog_plus.model.Tag;
 import edu.stanford.slac.elog_plus.repository.EntryRepository;
 import edu.stanford.slac.elog_plus.repository.LogbookRepository;
-import edu.stanford.slac.elog_plus.utility.DateUtilities;
+import edu.stanford.slac.elog_plus.service.cache.AuthorizedLogbookCache;
+import edu.stanford.slac.elog_plus.service.cache.LogbookSnapshot;
+import edu.stanford.slac.elog_plus.service.cache.LogbookSnapshotService;
 import edu.stanford.slac.elog_plus.utility.StringUtilities;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
@@ -47,6 +49,9 @@ public class LogbookService {
     private final LogbookMapper logbookMapper;
     private final EntryRepository entryRepository;
     private final LogbookRepository logbookRepository;
+    private final LogbookSnapshotService logbookSnapshotService;
+    private final AuthorizedLogbookCache authorizedLogbookCache;
+    private final ShiftStampService shiftStampService;
     private final AuthenticationTokenRepository authenticationTokenRepository;
     private final AuthService authService;
     private final AuthorizationServices authorizationServices;
@@ -69,11 +74,7 @@ public class LogbookService {
      * @return the lis tof all logbooks
      */
     public List<String> getAllIdsReadAll() {
-        return wrapCatch(
-                ()->logbookRepository.findAllByReadAllIsTrue().stream().map(Logbook::getId).toList(),
-                -1,
-                "LogbookService:getAllIdsReadAll"
-        );
+        return logbookSnapshotService.get().getReadAllIds();
     }
 
     /**
@@ -82,11 +83,7 @@ public class LogbookService {
      * @return the lis tof all logbooks
      */
     public List<String> getAllIdsWriteAll() {
-        return wrapCatch(
-                ()->logbookRepository.findAllByWriteAllIsTrue().stream().map(Logbook::getId).toList(),
-                -1,
-                "LogbookService:getAllIdsWriteAll"
-        );
+        return logbookSnapshotService.get().getWriteAllIds();
     }
 
     /**
@@ -96,14 +93,10 @@ public class LogbookService {
      */
     public List<LogbookDTO> getAllLogbook(Optional<Boolean> includeAuthorization) {
         return wrapCatch(
-                () -> logbookRepository.findAll()
-                        .stream()
-                        .map(
-                                lb -> logbookMapper.fromModel(
-                                        lb,
-                                        includeAuthorization.orElse(false)
-                                )
-                        ).collect(Collectors.toList()),
+                () -> logbookMapper.fromModels(
+                        logbookSnapshotService.get().getLogbooks(),
+                        includeAuthorization.orElse(false)
+                ),
                 -1,
                 "LogbookService::getAllLogbook"
         );
@@ -117,7 +110,7 @@ public class LogbookService {
      */
     public LogbookSummaryDTO getSummaryById(String logbookId) {
         return wrapCatch(
-                () -> logbookRepository.findById(logbookId)
+                () -> logbookSnapshotService.get().getLogbook(logbookId)
                         .map(
                                 logbookMapper::fromModelToSummaryDTO
                         ).orElseThrow(
@@ -169,6 +162,7 @@ public class LogbookService {
                 () -> logbookRepository.save(toSave),
                 -3,
                 "LogbookService::createNew");
+        logbookSnapshotService.invalidate();
         log.info("New logbooks '{}' created", newLogbook.getName());
         return newLogbook.getId();
     }
@@ -224,6 +218,7 @@ public class LogbookService {
             lbToUpdated.setTags(new ArrayList<>());
         }
 
+        List<String> shiftsBeforeUpdate = shiftSignature(lbToUpdated.getShifts());
         // normalize name and shift
         lbToUpdated.setName(
                 StringUtilities.logbookNameNormalization(logbookDTO.name())
@@ -257,6 +252,10 @@ public class LogbookService {
                 -6,
                 "LogbookService:update"
         );
+        logbookSnapshotService.invalidate();
+        if (!shiftsBeforeUpdate.equals(shiftSignature(updatedLB.getShifts()))) {
+            shiftStampService.requestStamp(logbookId);
+        }
         log.info("Logbook '{}' has been updated", lbToUpdated.getName());
         return logbookMapper.fromModel(
                 updatedLB,
@@ -417,6 +416,15 @@ public class LogbookService {
         }
     }
 
+    /**
+     * Return the shifts as comparable values, used to find when the time frames of the shifts change
+     */
+    private List<String> shiftSignature(List<Shift> shifts) {
+        return shifts.stream()
+                .map(s -> "%s|%s|%s".formatted(s.getId(), s.getFrom(), s.getTo()))
+                .toList();
+    }
+
     /**
      * Return the full logbooks description
      *
@@ -431,17 +439,18 @@ public class LogbookService {
      * Return the full logbooks description
      *
      * @param logbookIds the logbooks id
-     * @return the full logbooks list
+     * @return the full logbooks list in the order of the ids, the not found ids are skipped
      */
-    public List<LogbookDTO> getLogbook(List<String> logbookIds, Optional<Boolean> includeAuthorizations) {
-        return wrapCatch(() -> logbookRepository.findAllById(
-                        logbookIds
-                ).stream().map(
-                        lb -> logbookMapper.fromModel(
-                                lb,
-                                includeAuthorizations.orElse(false)
-                        )
-                ).toList(),
+    public List<LogbookDTO> getLogbook(Collection<String> logbookIds, Optional<Boolean> includeAuthorizations) {
+        LogbookSnapshot snapshot = logbookSnapshotService.get();
+        return wrapCatch(() -> logbookMapper.fromModels(
+                        logbookIds.stream()
+                                .distinct()
+                                .map(snapshot::getLogbook)
+                                .flatMap(Optional::stream)
+                                .toList(),
+                        includeAuthorizations.orElse(false)
+                ),
                 -1,
                 "LogbookService:getLogbook"
         );
@@ -455,7 +464,7 @@ public class LogbookService {
      */
     public LogbookDTO getLogbook(String logbookId, Optional<Boolean> includeAuthorizations) {
         return wrapCatch(
-                () -> logbookRepository.findById(
+                () -> logbookSnapshotService.get().getLogbook(
                         logbookId
                 ).map(
                         lb -> logbookMapper.fromModel(
@@ -481,7 +490,7 @@ public class LogbookService {
      */
     public LogbookDTO getLogbookByName(@NotNull String logbookName) {
         Optional<Logbook> lb = wrapCatch(
-                () -> logbookRepository.findByName(logbookName.toLowerCase()),
+                () -> logbookSnapshotService.get().getLogbookByName(logbookName),
                 -1,
                 "LogbookService:getLogbookByName"
         );
@@ -503,12 +512,7 @@ public class LogbookService {
      * @return true if the logbooks exists
      */
     public Boolean existByName(@NotNull String logbookName) {
-        return wrapCatch(
-                () -> logbookRepository.existsByName(
-                        logbookName.toLowerCase()
-                ),
-                -1,
-                "LogbookService::existByName");
+        return logbookSnapshotService.get().getLogbookByName(logbookName).isPresent();
     }
 
     /**
@@ -518,12 +522,7 @@ public class LogbookService {
      * @return true if the logbooks exists
      */
     public Boolean existById(String logbookId) {
-        return wrapCatch(
-                () -> logbookRepository.existsById(
-                        logbookId
-                ),
-                -1,
-                "LogbookService::existById");
+        return logbookSnapshotService.get().getLogbook(logbookId).isPresent();
     }
 
     /**
@@ -557,7 +556,7 @@ public class LogbookService {
                         .errorDomain("LogbookService::createNewTag")
                         .build()
         );
-        return wrapCatch(
+        String tagId = wrapCatch(
                 () -> logbookRepository.ensureTag(
                         logbookId,
                         tagMapper.fromDTO(finalNewTagDTO)
@@ -565,6 +564,8 @@ public class LogbookService {
                 -3,
                 "LogbookService:createNewTag"
         );
+        logbookSnapshotService.invalidate();
+        return tagId;
     }
 
 
@@ -576,7 +577,13 @@ public class LogbookService {
      */
     public String ensureTag(String logbookId, String tagName) {
         assertOnLogbook(logbookId, -1, "LogbookService:ensureTag");
-        return wrapCatch(
+        // the tag already exists so there is nothing to write
+        Optional<Tag> foundTag = logbookSnapshotService.get().getTagByName(
+                logbookId,
+                StringUtilities.tagNameNormalization(tagName)
+        );
+        if (foundTag.isPresent()) return foundTag.get().getId();
+        String tagId = wrapCatch(
                 () ->
                         logbookRepository.ensureTag(
                                 logbookId,
@@ -591,6 +598,43 @@ public class LogbookService {
                 -2,
                 "LogbookService:ensureTag"
         );
+        logbookSnapshotService.invalidate();
+        return tagId;
+    }
+
+    /**
+     * Create all the tags that don't exist with one update of the logbook
+     *
+     * @param logbookId the logbooks id
+     * @param tagNames  the tag names
+     * @return the id of the tag by the name in input
+     */
+    public Map<String, String> ensureTags(String logbookId, Collection<String> tagNames) {
+        assertOnLogbook(logbookId, -1, "LogbookService:ensureTags");
+        Map<String, String> tagIdByNormalizedName = new HashMap<>();
+        List<Tag> missingTags = new ArrayList<>();
+        for (String normalizedName : tagNames.stream().map(StringUtilities::tagNameNormalization).distinct().toList()) {
+            // the tags that already exist are taken from the snapshot
+            Optional<Tag> foundTag = logbookSnapshotService.get().getTagByName(logbookId, normalizedName);
+            if (foundTag.isPresent()) {
+                tagIdByNormalizedName.put(normalizedName, foundTag.get().getId());
+            } else {
+                missingTags.add(tagMapper.fromDTO(NewTagDTO.builder().name(normalizedName).build()));
+            }
+        }
+        if (!missingTags.isEmpty()) {
+            tagIdByNormalizedName.putAll(
+                    wrapCatch(
+                            () -> logbookRepository.ensureTags(logbookId, missingTags),
+                            -2,
+                            "LogbookService:ensureTags"
+                    )
+            );
+            logbookSnapshotService.invalidate();
+        }
+        Map<String, String> tagIdByName = new HashMap<>();
+        tagNames.forEach(tagName -> tagIdByName.put(tagName, tagIdByNormalizedName.get(StringUtilities.tagNameNormalization(tagName))));
+        return tagIdByName;
     }
 
     /**
@@ -603,16 +647,12 @@ public class LogbookService {
      * @return true if the tag exists
      */
     public Boolean tagExistForLogbook(String logbookId, String tagName) {
-        return wrapCatch(
-                () -> logbookRepository.tagExistByName(
-                        logbookId,
-                        StringUtilities.tagNameNormalization(
-                                tagName
-                        )
-                ),
-                -1,
-                "LogbookService:tagExistForLogbook"
-        );
+        return logbookSnapshotService.get().getTagByName(
+                logbookId,
+                StringUtilities.tagNameNormalization(
+                        tagName
+                )
+        ).isPresent();
     }
 
     /**
@@ -623,11 +663,9 @@ public class LogbookService {
      */
     public List<TagDTO> getAllTags(String logbookId) {
         assertOnLogbook(logbookId, -1, "LogbookService:getAllTags");
-        List<Tag> allTag = wrapCatch(
-                () -> logbookRepository.getAllTagFor(logbookId),
-                -2,
-                "LogbookService:getAllTags"
-        );
+        List<Tag> allTag = logbookSnapshotService.get().getLogbook(logbookId)
+                .map(Logbook::getTags)
+                .orElse(List.of());
         return allTag.stream()
                 .map(
                         tagMapper::fromModel
@@ -642,11 +680,7 @@ public class LogbookService {
      * @return the logbook summary which the tag belong
      */
     public LogbookSummaryDTO getLogbookSummaryForTagId(String tagId) {
-        Optional<Logbook> logbook = wrapCatch(
-                () -> logbookRepository.findByTagsIdIs(tagId),
-                -1,
-                "LogbookService:getLogbookSummaryForTagId"
-        );
+        Optional<Logbook> logbook = logbookSnapshotService.get().getLogbookByTagId(tagId);
         return logbook.map(
                 logbookMapper::fromModelToSummaryDTO
         ).orElseThrow(
@@ -658,11 +692,7 @@ public class LogbookService {
     }
 
     private void assertOnLogbook(String logbookId, Integer error, String domain) {
-        boolean logbook = wrapCatch(
-                () -> logbookRepository.existsById(logbookId),
-                -1,
-                "LogbookService:assertOnLogbook"
-        );
+        boolean logbook = logbookSnapshotService.get().getLogbook(logbookId).isPresent();
         assertion(
                 () -> logbook,
                 LogbookNotFound.logbookNotFoundBuilder()
@@ -762,6 +792,8 @@ public class LogbookService {
                 -3,
                 "LogbookService:addShift"
         );
+        logbookSnapshotService.invalidate();
+        shiftStampService.requestStamp(logbookId);
     }
 
     /**
@@ -824,6 +856,8 @@ public class LogbookService {
                 -3,
                 "LogbookService:addShift"
         );
+        logbookSnapshotService.invalidate();
+        shiftStampService.requestStamp(logbookId);
         return shiftToAdd.getId();
     }
 
@@ -889,6 +923,8 @@ public class LogbookService {
                 -3,
                 "LogbookService:addShift"
         );
+        logbookSnapshotService.invalidate();
+        shiftStampService.requestStamp(logbookId);
     }
 
     /**
@@ -899,26 +935,22 @@ public class LogbookService {
      * @return the found shift, if eny matches
      */
     public Optional<LogbookShiftDTO> findShiftByLocalTime(String logbookId, LocalTime localTime) {
-        LogbookDTO logbook = getLogbook(logbookId);
-        // //remove the seconds and nanoseconds to input date
-        localTime = localTime.withSecond(0).withNano(0);
-        LocalTime finalLocalTime = localTime;
-        return logbook.shifts().stream().filter(
-                s -> {
-                    var fromDate = DateUtilities.fromUTCString(s.from());
-                    var toDate = DateUtilities.fromUTCString(s.to());
-                    return DateUtilities.isBetween(
-                            fromDate,
-                            toDate,
-                            finalLocalTime
-                    );
-                }
-        ).findAny().map(
-                s -> LogbookShiftDTO.builder()
-                        .id(s.id())
-                        .name(s.name())
-                        .from(s.from())
-                        .to(s.to())
+        LogbookSnapshot snapshot = logbookSnapshotService.get();
+        Logbook logbook = snapshot.getLogbook(logbookId).orElseThrow(
+                () -> LogbookNotFound.logbookNotFoundBuilder()
+                        .errorCode(-1)
+                        .errorDomain("LogbookService::findShiftByLocalTime")
+                        .build()
+        );
+        // the shifts are compiled in a minute of the day table, the seconds are ignored
+        Shift shift = snapshot.findShift(logbookId, localTime);
+        if (shift == null) return Optional.empty();
+        return Optional.of(
+                LogbookShiftDTO.builder()
+                        .id(shift.getId())
+                        .name(shift.getName())
+                        .from(shift.getFrom())
+                        .to(shift.getTo())
                         .logbook(
                                 logbookMapper.fromModelToSummaryDTO(logbook)
                         )
@@ -926,6 +958,37 @@ public class LogbookService {
         );
     }
 
+    /**
+     * Return the shifts, with their logbook, stamped on an entry
+     *
+     * @param logbookIds the logbooks of the entry, used to order the result
+     * @param shiftIds   the shift ids stamped on the entry
+     * @return the found shifts, the ids of the shifts that don't exist anymore are ignored
+     */
+    public List<LogbookShiftDTO> getShiftsByIds(List<String> logbookIds, List<String> shiftIds) {
+        LogbookSnapshot snapshot = logbookSnapshotService.get();
+        List<LogbookShiftDTO> result = new ArrayList<>();
+        for (String logbookId : logbookIds) {
+            for (String shiftId : shiftIds) {
+                Optional<Logbook> logbook = snapshot.getLogbookByShiftId(shiftId);
+                if (logbook.isEmpty() || !logbook.get().getId().equals(logbookId)) continue;
+                Shift shift = snapshot.getShift(shiftId).orElseThrow();
+                result.add(
+                        LogbookShiftDTO.builder()
+                                .id(shift.getId())
+                                .name(shift.getName())
+                                .from(shift.getFrom())
+                                .to(shift.getTo())
+                                .logbook(
+                                        logbookMapper.fromModelToSummaryDTO(logbook.get())
+                                )
+                                .build()
+                );
+            }
+        }
+        return result;
+    }
+
     /**
      * Check if the tad id exists in any of logbooks names
      *
@@ -934,24 +997,13 @@ public class LogbookService {
      * @return true if the tag exists
      */
     public boolean tagIdExistInAnyLogbookIds(String tagId, List<String> logbookIds) {
-        return wrapCatch(
-                () -> logbookRepository.existsByIdInAndTagsIdIs(
-                        logbookIds,
-                        tagId
-                ),
-                -1,
-                "LogbookService:tagIdExistInAnyLogbooksNames"
-        );
+        return logbookSnapshotService.get().getLogbookByTagId(tagId)
+                .map(lb -> logbookIds.contains(lb.getId()))
+                .orElse(false);
     }
 
     public Optional<TagDTO> getTagById(String tagId) {
-        Optional<Tag> tag = wrapCatch(
-                () -> logbookRepository.getTagsByID(
-                        tagId
-                ),
-                -1,
-                "LogbookService:getTagById"
-        );
+        Optional<Tag> tag = logbookSnapshotService.get().getTag(tagId);
         return tag.map(
                 tagMapper::fromModel
         );
@@ -1139,6 +1191,7 @@ public class LogbookService {
                 -1,
                 "LogbookService:deleteLogbookAuthorization"
         );
+        authorizedLogbookCache.invalidate();
     }
 
     /**
@@ -1158,6 +1211,7 @@ public class LogbookService {
                 -1,
                 "LogbookService:deleteLogbookAuthorization"
         );
+        authorizedLogbookCache.invalidate();
     }
 
     /**
@@ -1179,6 +1233,7 @@ public class LogbookService {
                 -1,
                 "LogbookService:deleteLogbookAuthorization"
         );
+        authorizedLogbookCache.invalidate();
     }
 
     /**
@@ -1200,6 +1255,7 @@ public class LogbookService {
                 -1,
                 "LogbookService:deleteLogbookAuthorization"
         );
+        authorizedLogbookCache.invalidate();
     }
 
     /**
@@ -1258,6 +1314,7 @@ public class LogbookService {
                     );
                 }
         );
+        authorizedLogbookCache.invalidate();
     }
 
 
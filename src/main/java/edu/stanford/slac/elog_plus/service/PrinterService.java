@@ -7,11 +7,11 @@ import com.hp.jipp.trans.IppPacketData;
 import edu.stanford.slac.ad.eed.baselib.api.v1.dto.PersonDTO;
 import edu.stanford.slac.ad.eed.baselib.config.AppProperties;
 import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
-import edu.stanford.slac.ad.eed.baselib.service.PeopleGroupService;
 import edu.stanford.slac.elog_plus.api.v1.dto.EntryNewDTO;
 import edu.stanford.slac.elog_plus.api.v1.dto.LogbookDTO;
 import edu.stanford.slac.elog_plus.config.ELOGAppProperties;
 import edu.stanford.slac.elog_plus.model.FileObjectDescription;
+import edu.stanford.slac.elog_plus.service.cache.PersonDirectoryCache;
 import lombok.AllArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.apache.tika.config.TikaConfig;
@@ -41,7 +41,7 @@ import static io.jsonwebtoken.lang.Collections.emptyList;
 public class PrinterService {
     private final ELOGAppProperties elogAppProperties;
     private final AppProperties appProperties;
-    private final PeopleGroupService peopleGroupService;
+    private final PersonDirectoryCache personDirectoryCache;
     private final EntryService entryService;
     private final AttachmentService attachmentService;
 
@@ -360,7 +360,7 @@ public class PrinterService {
                     .mail(auth.getPrincipal().toString())
                     .build();
         } else {
-            creator = peopleGroupService.findPerson(auth);
+            creator = personDirectoryCache.findPerson(auth);
         }
         entryService.createNew(
                 EntryNewDTO.builder()
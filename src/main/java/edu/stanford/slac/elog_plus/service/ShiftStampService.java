@@ -0,0 +1,148 @@
+package edu.stanford.slac.elog_plus.service;
+
+import edu.stanford.slac.elog_plus.config.ELOGAppProperties;
+import edu.stanford.slac.elog_plus.model.Entry;
+import edu.stanford.slac.elog_plus.model.ShiftStampJob;
+import edu.stanford.slac.elog_plus.repository.ShiftStampJobRepository;
+import edu.stanford.slac.elog_plus.service.cache.LogbookSnapshot;
+import edu.stanford.slac.elog_plus.service.cache.LogbookSnapshotService;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static edu.stanford.slac.ad.eed.baselib.exception.Utility.wrapCatch;
+
+/**
+ * Manage the shifts stored on the entries. The shifts are stamped when the entry is created
+ * and, when the shifts of a logbook change, all the entries of the logbook are restamped in
+ * background by a job that is resumed from the last processed entry.
+ */
+@Log4j2
+@Service
+@AllArgsConstructor
+public class ShiftStampService {
+    private static final long PROCESSING_TIMEOUT = 60000; // 60 seconds
+    private final MongoTemplate mongoTemplate;
+    private final ShiftStampJobRepository shiftStampJobRepository;
+    private final LogbookSnapshotService logbookSnapshotService;
+    private final ELOGAppProperties elogAppProperties;
+
+    /**
+     * Return the ids of the shifts, one for each logbook, that contain the event date
+     *
+     * @param logbookIds the logbook ids of the entry
+     * @param eventAt    the event date of the entry
+     * @return the shift ids
+     */
+    public List<String> findShiftIds(List<String> logbookIds, LocalDateTime eventAt) {
+        if (eventAt == null) return List.of();
+        return logbookSnapshotService.get().findShiftIds(logbookIds, eventAt.toLocalTime());
+    }
+
+    /**
+     * Request the restamp of all the entries of the logbook, a request for a logbook that is
+     * already being restamped restarts the job from the beginning
+     *
+     * @param logbookId the logbook id
+     */
+    public void requestStamp(String logbookId) {
+        wrapCatch(
+                () -> {
+                    shiftStampJobRepository.request(logbookId);
+                    return null;
+                },
+                -1,
+                "ShiftStampService::requestStamp"
+        );
+        log.info("[shift stamp] restamp requested for the logbook {}", logbookId);
+    }
+
+    /**
+     * Return the restamp job of the logbook
+     *
+     * @param logbookId the logbook id
+     * @return the job if a restamp has ever been requested
+     */
+    public Optional<ShiftStampJob> getJob(String logbookId) {
+        return wrapCatch(
+                () -> shiftStampJobRepository.findById(logbookId),
+                -1,
+                "ShiftStampService::getJob"
+        );
+    }
+
+    /**
+     * Process all the pending jobs
+     */
+    public void processPendingJobs() {
+        String processingId = UUID.randomUUID().toString();
+        ShiftStampJob job;
+        while ((job = shiftStampJobRepository.findAndTakeNext(processingId, new Date(System.currentTimeMillis() - PROCESSING_TIMEOUT))) != null) {
+            try {
+                process(job, processingId);
+            } catch (Exception e) {
+                log.error("[shift stamp] error restamping the logbook {}", job.getId(), e);
+            } finally {
+                shiftStampJobRepository.release(job.getId(), processingId);
+            }
+        }
+    }
+
+    /**
+     * Restamp the entries of the job logbook starting from the last processed entry
+     */
+    private void process(ShiftStampJob job, String processingId) {
+        int batchSize = elogAppProperties.getShiftStampBatchSize();
+        log.info("[shift stamp] restamp of the logbook {} started from {} after {} entries", job.getId(), job.getLastEntryId(), job.getProcessed());
+        while (true) {
+            Query query = new Query(Criteria.where("logbooks").is(job.getId()));
+            if (job.getLastEntryId() != null) {
+                query.addCriteria(Criteria.where("id").gt(job.getLastEntryId()));
+            }
+            query.with(Sort.by(Sort.Direction.ASC, "id")).limit(batchSize);
+            query.fields().include("logbooks", "eventAt");
+            List<Entry> entries = mongoTemplate.find(query, Entry.class);
+            if (entries.isEmpty()) break;
+
+            // the snapshot is taken for each batch so a change of the shifts during the job is used
+            LogbookSnapshot snapshot = logbookSnapshotService.get();
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Entry.class);
+            for (Entry entry : entries) {
+                bulk.updateOne(
+                        new Query(Criteria.where("id").is(entry.getId())),
+                        new Update().set(
+                                "shifts",
+                                entry.getEventAt() == null ?
+                                        List.of() :
+                                        snapshot.findShiftIds(entry.getLogbooks(), entry.getEventAt().toLocalTime())
+                        )
+                );
+            }
+            bulk.execute();
+
+            job.setLastEntryId(entries.getLast().getId());
+            job.setProcessed(job.getProcessed() + entries.size());
+            if (!shiftStampJobRepository.updateProgress(job, processingId)) {
+                // the job has been requested again, it will be restarted from the beginning
+                log.info("[shift stamp] restamp of the logbook {} has been requested again", job.getId());
+                return;
+            }
+            log.info("[shift stamp] restamped {} entries of the logbook {}", job.getProcessed(), job.getId());
+        }
+        if (shiftStampJobRepository.complete(job, processingId)) {
+            log.info("[shift stamp] restamp of the logbook {} completed, {} entries processed", job.getId(), job.getProcessed());
+        }
+    }
+}
@@ -9,6 +9,7 @@ import edu.stanford.slac.ad.eed.baselib.service.AuthService;
 import edu.stanford.slac.elog_plus.api.v1.dto.ApplicationDetailsDTO;
 import edu.stanford.slac.elog_plus.api.v1.dto.GroupDetailsDTO;
 import edu.stanford.slac.elog_plus.api.v1.dto.NewApplicationDTO;
+import edu.stanford.slac.elog_plus.service.concurrent.FanOutExecutor;
 import lombok.AllArgsConstructor;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
@@ -22,6 +23,7 @@ import static edu.stanford.slac.ad.eed.baselib.exception.Utility.assertion;
 @AllArgsConstructor
 public class ApplicationAuthorizationService {
     private final AuthService authService;
+    private final FanOutExecutor fanOutExecutor;
 
     public boolean canCreateApp(Authentication authentication, NewApplicationDTO newApplicationDTO) {
         assertion(
@@ -89,14 +91,11 @@ public class ApplicationAuthorizationService {
     public boolean applyFilterOnApplicationList(ApiResultResponse<List<ApplicationDetailsDTO>> foundEntryResult, Authentication authentication) {
         foundEntryResult.setPayload
                 (
-                        foundEntryResult
-                                .getPayload()
-                                .parallelStream()
-                                .map
-                                        (
-                                                group -> completeAuthorization(group, authentication)
-                                        )
-                                .toList()
+                        fanOutExecutor.map
+                                (
+                                        foundEntryResult.getPayload(),
+                                        group -> completeAuthorization(group, authentication)
+                                )
                 );
         return true;
     }
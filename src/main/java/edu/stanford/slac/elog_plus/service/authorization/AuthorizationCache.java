@@ -7,6 +7,7 @@ import lombok.Data;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.annotation.RequestScope;
 
+import java.util.BitSet;
 import java.util.List;
 
 @Component
@@ -16,4 +17,8 @@ import java.util.List;
 public class AuthorizationCache {
     private List<String> authorizedLogbookId;
     private List<LogbookSummaryDTO> authorizedLogbookSummaries;
+    /**
+     * The indexes of the authorized logbook ids, as assigned by {@link edu.stanford.slac.elog_plus.service.cache.LogbookIdIndex}
+     */
+    private BitSet authorizedLogbookBits;
 }
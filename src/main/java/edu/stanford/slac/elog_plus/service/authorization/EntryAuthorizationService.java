@@ -8,6 +8,8 @@ import edu.stanford.slac.elog_plus.exception.LogbookNotAuthorized;
 import edu.stanford.slac.elog_plus.exception.ResourceNotFound;
 import edu.stanford.slac.elog_plus.service.EntryService;
 import edu.stanford.slac.elog_plus.service.LogbookService;
+import edu.stanford.slac.elog_plus.service.cache.AuthorizedLogbookCache;
+import edu.stanford.slac.elog_plus.service.cache.LogbookIdIndex;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
@@ -15,9 +17,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 
-import java.util.Collections;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 
@@ -33,6 +33,8 @@ public class EntryAuthorizationService {
     private final AuthService authService;
     private final EntryService entryService;
     private final LogbookService logbookService;
+    private final AuthorizedLogbookCache authorizedLogbookCache;
+    private final LogbookIdIndex logbookIdIndex;
 
     /**
      * Check if the user can create a new entry
@@ -74,6 +76,48 @@ public class EntryAuthorizationService {
         return true;
     }
 
+    /**
+     * Check if the user can create all the new entries of a bulk, the authorization is checked
+     * once for each distinct logbook of the bulk
+     *
+     * @param authentication the authentication object
+     * @param newEntries     the new entries to create
+     * @return true if the user can create all the new entries
+     */
+    public boolean canCreateNewEntries(Authentication authentication, List<EntryNewDTO> newEntries) {
+        List<String> allPublicWritableLogbookIds = logbookService.getAllIdsWriteAll();
+        Set<String> logbookIds = new HashSet<>();
+        if (newEntries != null) {
+            newEntries.stream().filter(e -> e.logbooks() != null).forEach(e -> logbookIds.addAll(e.logbooks()));
+        }
+        assertion(
+                NotAuthorized
+                        .notAuthorizedBuilder()
+                        .errorCode(-1)
+                        .errorDomain("EntryAuthorizationService::canCreateNewEntries")
+                        .build(),
+                // can write to all the logbooks of the bulk
+                () -> all
+                        (
+                                logbookIds.stream()
+                                        .map
+                                                (
+                                                        logbookId -> (Supplier<Boolean>) () ->
+                                                                any(
+                                                                        () -> allPublicWritableLogbookIds.contains(logbookId),
+                                                                        () -> authService.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
+                                                                                authentication,
+                                                                                Write,
+                                                                                "/logbook/%s".formatted(logbookId)
+                                                                        )
+                                                                )
+                                                )
+                                        .toList()
+                        )
+        );
+        return true;
+    }
+
     /**
      * Check if the user can create a new supersede entry
      *
@@ -176,22 +220,20 @@ public class EntryAuthorizationService {
         // return all public readable logbook ids
         List<String> allPublicReadableLogbookIds = logbookService.getAllIdsReadAll();
         // check for authorizations
-        List<String> lbForTheEntry = entryService.getLogbooksForAnEntryId(entryId);
+        List<String> lbForTheEntry = entryService.getAccessMetadata(entryId).logbooks();
+        boolean isRoot = authService.checkForRoot(authentication);
+        BitSet authorizedLogbookBits = isRoot ? null : authorizedLogbookCache.getAuthorizedLogbookBits(authentication, Read);
         // contains all logbook that the entry belongs and the user can read
         Stream<String> authorizedIdStream = lbForTheEntry
                 .stream()
                 .filter
                         (
-                                // filter only
-                                lbId -> authService.checkAuthorizationForOwnerAuthTypeAndResourcePrefix
-                                        (
-                                                authentication,
-                                                Read,
-                                                "/logbook/%s".formatted(lbId)
-                                        )
+                                // root can read all logbook
+                                lbId -> isRoot || logbookIdIndex.contains(authorizedLogbookBits, lbId)
                         );
 
-        authorizationCache.setAuthorizedLogbookId(
+        setAuthorizedLogbook(
+                authorizationCache,
                 Stream.concat(authorizedIdStream, allPublicReadableLogbookIds.stream())
                         .distinct()
                         .toList()
@@ -207,7 +249,7 @@ public class EntryAuthorizationService {
                 //and
                 () -> any(
                         // is root
-                        () -> authService.checkForRoot(authentication),
+                        () -> isRoot,
                         // or is authorized at least in on e logbook to read
                         () -> !authorizationCache.getAuthorizedLogbookId().isEmpty()
                 )
@@ -227,10 +269,11 @@ public class EntryAuthorizationService {
         // the entry to clean
         EntryDTO entry = foundEntryResult.getPayload();
         //we have to filter out the logbook not authorized
+        BitSet authorizedLogbookBits = authorizationCache.getAuthorizedLogbookBits();
         List<LogbookSummaryDTO> authorizedLogbookSummary = entry.logbooks()
                 .stream()
                 .filter(
-                        lb -> authorizationCache.getAuthorizedLogbookId().contains(lb.id())
+                        lb -> logbookIdIndex.contains(authorizedLogbookBits, lb.id())
                 ).toList();
         foundEntryResult.setPayload(entry.toBuilder().logbooks(authorizedLogbookSummary).build());
         return true;
@@ -257,22 +300,28 @@ public class EntryAuthorizationService {
      * @return true if the user can create the new follow-up entry
      */
     public boolean applyFilterAuthorizationOnEntrySummaryDTOList(ApiResultResponse<List<EntrySummaryDTO>> foundSummaries, Authentication authentication, AuthorizationCache authorizationCache) {
+        // an empty authorized list means that the search was not restricted to any logbook
+        BitSet authorizedLogbookBits = authorizationCache.getAuthorizedLogbookBits();
+        if (authorizedLogbookBits == null || authorizedLogbookBits.isEmpty()) return true;
         // The entries to clean
-        List<EntrySummaryDTO> entrySummaries = foundSummaries.getPayload();
-        List<EntrySummaryDTO> updatedEntrySummaries = entrySummaries.stream()
+        List<EntrySummaryDTO> updatedEntrySummaries = foundSummaries.getPayload().stream()
                 .map
                         (
                                 entrySummary ->
                                 {
+                                    BitSet entryBits = toLogbookBits(entrySummary);
+                                    // nothing to remove when all the logbooks, and so all the tags, of the entry are authorized
+                                    entryBits.andNot(authorizedLogbookBits);
+                                    if (entryBits.isEmpty()) return entrySummary;
                                     // Filter out the unauthorized logbooks
                                     List<LogbookSummaryDTO> authorizedLogbookSummary = entrySummary.logbooks()
                                             .stream()
-                                            .filter(lb -> authorizationCache.getAuthorizedLogbookId().isEmpty() || authorizationCache.getAuthorizedLogbookId().contains(lb.id()))
+                                            .filter(lb -> logbookIdIndex.contains(authorizedLogbookBits, lb.id()))
                                             .toList();
                                     // filter out tags not authorized
                                     List<TagDTO> authorizedTag = entrySummary.tags()
                                             .stream()
-                                            .filter(tag -> authorizationCache.getAuthorizedLogbookId().isEmpty() || authorizationCache.getAuthorizedLogbookId().contains(tag.logbook().id()))
+                                            .filter(tag -> logbookIdIndex.contains(authorizedLogbookBits, tag.logbook().id()))
                                             .toList();
                                     // Create a new EntrySummaryDTO with the filtered logbooks using toBuilder
                                     return entrySummary.toBuilder()
@@ -295,8 +344,6 @@ public class EntryAuthorizationService {
      * @return true if the user can search for the entries
      */
     public boolean canSearchEntry(Authentication authentication, Optional<List<String>> logBooks, AuthorizationCache authorizationCache) {
-        // return all public readable logbook ids
-        List<String> allPublicReadableLogbookIds = logbookService.getAllIdsReadAll();
         // check authorization on
         assertion(
                 NotAuthorized.notAuthorizedBuilder()
@@ -308,33 +355,16 @@ public class EntryAuthorizationService {
         );
 
         if (!authService.checkForRoot(authentication)) {
-            // if user is not root we need to check for specific authorization
-            List<String> allAuthorizedLogbookIds = authService.getAllAuthorizationForOwnerAndAndAuthTypeAndResourcePrefix(
-                            authentication.getCredentials().toString(),
-                            Read,
-                            "/logbook/",
-                            Optional.empty()
-                    ).stream().map(
-                            auth -> auth.resource().substring(
-                                    auth.resource().lastIndexOf("/") + 1
-                            )
-                    )
-                    .toList();
-
-            // set the authorization cache
-            var authorizedLogbook =
-                    // join without duplicates all authorized and all public readable logbook
-                    Stream.concat(allAuthorizedLogbookIds.stream(), allPublicReadableLogbookIds.stream())
-                            .distinct()
-                            .toList();
+            // if user is not root we need to check for specific authorization, the cached ids
+            // include all authorized and all public readable logbook
+            Set<String> authorizedLogbookIds = authorizedLogbookCache.getAuthorizedLogbookIds(authentication, Read);
 
             // Check if the user has specified some logbooks
             if (logBooks.isPresent() && !logBooks.get().isEmpty()) {
                 // give error if one of the logbook is not authorized
-                List<String> finalAuthorizedLogbook = authorizedLogbook;
                 logBooks.get().forEach(
                         lId -> {
-                            if (!finalAuthorizedLogbook.contains(lId)) {
+                            if (!authorizedLogbookIds.contains(lId)) {
                                 // notify the error on logbook authorization
                                 var logbook = logbookService.getLogbook(lId);
                                 throw ResourceNotFound.notFoundByTypeNameAndValue()
@@ -346,19 +376,69 @@ public class EntryAuthorizationService {
                             }
                         }
                 );
-                // at this time all logbook in logBooks are authorized
-                authorizedLogbook = Stream.concat(authorizedLogbook.stream(), logBooks.get().stream())
-                        .distinct()
-                        .toList();
             }
-            if(!authorizedLogbook.isEmpty()) {
+            if(!authorizedLogbookIds.isEmpty()) {
                 // cache the found authorized logbook
-                authorizationCache.setAuthorizedLogbookId(authorizedLogbook);
+                setAuthorizedLogbook(authorizationCache, new ArrayList<>(authorizedLogbookIds));
             }
         } else {
             // if user is root we can use all logbook
-            authorizationCache.setAuthorizedLogbookId(logBooks.orElse(Collections.emptyList()));
+            setAuthorizedLogbook(authorizationCache, logBooks.orElse(Collections.emptyList()));
         }
         return true;
     }
+
+    /**
+     * Filter out of the summaries the logbooks where the user is not authorized to read and
+     * remove the summaries that have no more logbooks
+     *
+     * @param authentication the authentication object
+     * @param summaries      the list of entry summary to filter
+     * @return the list of entry summary that are authorized for the authentication
+     */
+    public List<EntrySummaryDTO> filterEntrySummaryByAuthentication(Authentication authentication, List<EntrySummaryDTO> summaries) {
+        // root is authorized on all logbook
+        if (authService.checkForRoot(authentication)) return summaries;
+        BitSet authorizedLogbookBits = authorizedLogbookCache.getAuthorizedLogbookBits(authentication, Read);
+        return summaries
+                .stream()
+                .map(
+                        entry -> {
+                            BitSet entryBits = toLogbookBits(entry);
+                            if (!entryBits.intersects(authorizedLogbookBits)) return null;
+                            entryBits.andNot(authorizedLogbookBits);
+                            if (entryBits.isEmpty()) return entry;
+                            // recreate the summary with the authorized logbook
+                            return entry.toBuilder()
+                                    .logbooks(
+                                            entry.logbooks()
+                                                    .stream()
+                                                    .filter(lb -> logbookIdIndex.contains(authorizedLogbookBits, lb.id()))
+                                                    .toList()
+                                    )
+                                    .build();
+                        }
+                )
+                // remove all summary for which the user is unauthorized on all logbook
+                .filter(entry -> entry != null && !entry.logbooks().isEmpty())
+                .toList();
+    }
+
+    /**
+     * Fill the authorization cache with the authorized logbook ids and their indexes
+     */
+    private void setAuthorizedLogbook(AuthorizationCache authorizationCache, List<String> logbookIds) {
+        authorizationCache.setAuthorizedLogbookId(logbookIds);
+        authorizationCache.setAuthorizedLogbookBits(logbookIdIndex.toBitSet(logbookIds));
+    }
+
+    /**
+     * Return the indexes of the logbooks of the entry and of its tags
+     */
+    private BitSet toLogbookBits(EntrySummaryDTO entrySummary) {
+        BitSet bits = new BitSet();
+        entrySummary.logbooks().forEach(lb -> bits.set(logbookIdIndex.indexOf(lb.id())));
+        entrySummary.tags().forEach(tag -> bits.set(logbookIdIndex.indexOf(tag.logbook().id())));
+        return bits;
+    }
 }
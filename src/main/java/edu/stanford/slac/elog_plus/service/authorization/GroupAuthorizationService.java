@@ -7,6 +7,7 @@ import edu.stanford.slac.ad.eed.baselib.api.v2.dto.UpdateLocalGroupDTO;
 import edu.stanford.slac.ad.eed.baselib.exception.NotAuthorized;
 import edu.stanford.slac.ad.eed.baselib.service.AuthService;
 import edu.stanford.slac.elog_plus.api.v1.dto.GroupDetailsDTO;
+import edu.stanford.slac.elog_plus.service.concurrent.FanOutExecutor;
 import lombok.AllArgsConstructor;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
@@ -20,6 +21,7 @@ import static edu.stanford.slac.ad.eed.baselib.exception.Utility.assertion;
 @AllArgsConstructor
 public class GroupAuthorizationService {
     private final AuthService authService;
+    private final FanOutExecutor fanOutExecutor;
 
     /**
      * Check if the user can create a group
@@ -142,14 +144,11 @@ public class GroupAuthorizationService {
     public boolean applyFilterOnGroupList(ApiResultResponse<List<GroupDetailsDTO>> foundEntryResult, Authentication authentication) {
         foundEntryResult.setPayload
                 (
-                        foundEntryResult
-                                .getPayload()
-                                .parallelStream()
-                                .map
-                                        (
-                                                group -> completeAuthorization(group, authentication)
-                                        )
-                                .toList()
+                        fanOutExecutor.map
+                                (
+                                        foundEntryResult.getPayload(),
+                                        group -> completeAuthorization(group, authentication)
+                                )
                 );
         return true;
     }
@@ -9,6 +9,7 @@ import edu.stanford.slac.elog_plus.api.v1.dto.*;
 import edu.stanford.slac.elog_plus.exception.ResourceNotFound;
 import edu.stanford.slac.elog_plus.service.AuthorizationServices;
 import edu.stanford.slac.elog_plus.service.LogbookService;
+import edu.stanford.slac.elog_plus.service.concurrent.FanOutExecutor;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
@@ -31,6 +32,7 @@ public class LogbookAuthorizationService {
     private final AppProperties appProperties;
     private final LogbookService logbookService;
     private final AuthorizationServices authorizationServices;
+    private final FanOutExecutor fanOutExecutor;
 
     /**
      * Check for read authorization
@@ -379,14 +381,11 @@ public class LogbookAuthorizationService {
     public boolean applyFilterOnUserList(ApiResultResponse<List<UserDetailsDTO>> userList, Authentication authentication) {
         userList.setPayload
                 (
-                        userList
-                                .getPayload()
-                                .parallelStream()
-                                .map
-                                        (
-                                                user -> completeUserAuthorization(user, authentication)
-                                        )
-                                .toList()
+                        fanOutExecutor.map
+                                (
+                                        userList.getPayload(),
+                                        user -> completeUserAuthorization(user, authentication)
+                                )
                 );
         return true;
     }
@@ -417,7 +416,7 @@ public class LogbookAuthorizationService {
     private UserDetailsDTO completeUserAuthorization(UserDetailsDTO user, Authentication authentication) {
         List<DetailsAuthorizationDTO> filteredUserAuthorization = user
                 .authorizations()
-                .parallelStream()
+                .stream()
                 .filter
                         (
                                 authorizationDTO -> {
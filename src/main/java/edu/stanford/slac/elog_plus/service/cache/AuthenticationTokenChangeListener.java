@@ -0,0 +1,22 @@
+package edu.stanford.slac.elog_plus.service.cache;
+
+import edu.stanford.slac.ad.eed.baselib.model.AuthenticationToken;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Clear the validated token cache when an application or logbook token is deleted
+ * through the repository or the template
+ */
+@Component
+@RequiredArgsConstructor
+public class AuthenticationTokenChangeListener extends AbstractMongoEventListener<AuthenticationToken> {
+    private final ValidatedTokenCache validatedTokenCache;
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<AuthenticationToken> event) {
+        validatedTokenCache.evictAll();
+    }
+}
@@ -0,0 +1,34 @@
+package edu.stanford.slac.elog_plus.service.cache;
+
+import edu.stanford.slac.ad.eed.baselib.model.Authorization;
+import edu.stanford.slac.ad.eed.baselib.model.LocalGroup;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Invalidate the authorized logbooks cache when an authorization or a local group is saved
+ * or deleted through the repository or the template, the partial updates are invalidated
+ * by the services that do them
+ */
+@Component
+@RequiredArgsConstructor
+public class AuthorizationChangeListener extends AbstractMongoEventListener<Object> {
+    private final AuthorizedLogbookCache authorizedLogbookCache;
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Object> event) {
+        if (event.getSource() instanceof Authorization || event.getSource() instanceof LocalGroup) {
+            authorizedLogbookCache.invalidate();
+        }
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Object> event) {
+        if (event.getType() != null && (Authorization.class.isAssignableFrom(event.getType()) || LocalGroup.class.isAssignableFrom(event.getType()))) {
+            authorizedLogbookCache.invalidate();
+        }
+    }
+}
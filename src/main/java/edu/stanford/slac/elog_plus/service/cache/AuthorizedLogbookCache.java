@@ -0,0 +1,197 @@
+package edu.stanford.slac.elog_plus.service.cache;
+
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationTypeDTO;
+import edu.stanford.slac.ad.eed.baselib.service.AuthService;
+import edu.stanford.slac.elog_plus.config.ELOGAppProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationTypeDTO.Read;
+import static edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationTypeDTO.Write;
+import static edu.stanford.slac.ad.eed.baselib.exception.Utility.wrapCatch;
+
+/**
+ * Hold, for each user and authorization type, the ids of the logbooks where the user is authorized.
+ * The ids include the logbooks authorized through the groups and the logbooks readable (or writable) by all.
+ * <p>
+ * The cache is a small LRU, an entry is discarded when it is the least recently used one, when its
+ * time to live expires, when the logbook snapshot used to build it is invalidated and when an authorization
+ * or a group is changed. The changes are notified to the other replicas through a hazelcast topic.
+ */
+@Log4j2
+@Service
+@RequiredArgsConstructor
+public class AuthorizedLogbookCache {
+    public static final String INVALIDATION_TOPIC = "elog-authorized-logbook-invalidation";
+    private static final String LOGBOOK_RESOURCE_PREFIX = "/logbook/";
+    private final AtomicLong generation = new AtomicLong();
+    private final AuthService authService;
+    private final ELOGAppProperties elogAppProperties;
+    private final LogbookSnapshotService logbookSnapshotService;
+    private final LogbookIdIndex logbookIdIndex;
+    private final ClusterInvalidationNotifier clusterInvalidationNotifier;
+    private final MeterRegistry meterRegistry;
+    private final Counter authorizedLogbookCacheHitCounter;
+    private final Counter authorizedLogbookCacheMissCounter;
+    private Map<CacheKey, CacheEntry> cache;
+    private UUID invalidationSubscription;
+
+    @PostConstruct
+    public void init() {
+        int maxSize = elogAppProperties.getAuthorizedLogbookCacheSize();
+        cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, CacheEntry> eldest) {
+                return size() > maxSize;
+            }
+        };
+        invalidationSubscription = clusterInvalidationNotifier.subscribe(INVALIDATION_TOPIC, this::invalidateLocal);
+        Gauge
+                .builder("elog_plus_authorized_logbook_cache_size", this, AuthorizedLogbookCache::size)
+                .description("The number of users with the authorized logbooks in cache")
+                .register(meterRegistry);
+        Gauge
+                .builder("elog_plus_authorized_logbook_cache_ttl_seconds", elogAppProperties, ELOGAppProperties::getAuthorizedLogbookCacheTtlSeconds)
+                .description("The time to live of the authorized logbooks in cache")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        clusterInvalidationNotifier.unsubscribe(INVALIDATION_TOPIC, invalidationSubscription);
+    }
+
+    /**
+     * Return the ids of the logbooks where the user is authorized. For the read and the write the ids of the
+     * logbooks readable or writable by all are included.
+     *
+     * @param authentication    the authentication of the user
+     * @param authorizationType the minimum authorization type
+     * @return the unmodifiable set of the authorized logbook ids
+     */
+    public Set<String> getAuthorizedLogbookIds(Authentication authentication, AuthorizationTypeDTO authorizationType) {
+        return getEntry(authentication, authorizationType).logbookIds();
+    }
+
+    /**
+     * Return the indexes, as assigned by {@link LogbookIdIndex}, of the logbooks where the user is authorized.
+     * The content is the same of {@link #getAuthorizedLogbookIds}.
+     *
+     * @param authentication    the authentication of the user
+     * @param authorizationType the minimum authorization type
+     * @return a copy of the set of the authorized logbook indexes
+     */
+    public BitSet getAuthorizedLogbookBits(Authentication authentication, AuthorizationTypeDTO authorizationType) {
+        return (BitSet) getEntry(authentication, authorizationType).logbookBits().clone();
+    }
+
+    private CacheEntry getEntry(Authentication authentication, AuthorizationTypeDTO authorizationType) {
+        CacheKey key = new CacheKey(authentication.getCredentials().toString(), authorizationType);
+        LogbookSnapshot snapshot = logbookSnapshotService.get();
+        long now = System.currentTimeMillis();
+        CacheEntry entry;
+        synchronized (cache) {
+            entry = cache.get(key);
+            if (entry != null && (entry.snapshot() != snapshot || entry.expiresAt() <= now)) {
+                cache.remove(key);
+                entry = null;
+            }
+        }
+        if (entry != null) {
+            authorizedLogbookCacheHitCounter.increment();
+            return entry;
+        }
+        authorizedLogbookCacheMissCounter.increment();
+        long loadingGeneration = generation.get();
+        Set<String> logbookIds = load(key, snapshot);
+        long ttlMillis = TimeUnit.SECONDS.toMillis(elogAppProperties.getAuthorizedLogbookCacheTtlSeconds());
+        entry = new CacheEntry(logbookIds, logbookIdIndex.toBitSet(logbookIds), snapshot, now + ttlMillis);
+        // an invalidation that happened during the load makes the loaded ids already old
+        if (ttlMillis > 0) {
+            synchronized (cache) {
+                if (generation.get() == loadingGeneration) {
+                    cache.put(key, entry);
+                }
+            }
+        }
+        return entry;
+    }
+
+    private double size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * Invalidate the cache on this and on all the other replicas. When called within a
+     * transaction the invalidation is repeated after the completion, so the ids loaded
+     * before the commit are not kept.
+     */
+    public void invalidate() {
+        invalidateAll();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCompletion(int status) {
+                            invalidateAll();
+                        }
+                    }
+            );
+        }
+    }
+
+    private Set<String> load(CacheKey key, LogbookSnapshot snapshot) {
+        Set<String> logbookIds = new HashSet<>();
+        wrapCatch(
+                () -> authService.getAllAuthorizationForOwnerAndAndAuthTypeAndResourcePrefix(
+                        key.owner(),
+                        key.authorizationType(),
+                        LOGBOOK_RESOURCE_PREFIX,
+                        Optional.empty()
+                ),
+                -1,
+                "AuthorizedLogbookCache::getAuthorizedLogbookIds"
+        ).forEach(
+                auth -> logbookIds.add(auth.resource().substring(auth.resource().lastIndexOf("/") + 1))
+        );
+        if (key.authorizationType() == Read) {
+            logbookIds.addAll(snapshot.getReadAllIds());
+        } else if (key.authorizationType() == Write) {
+            logbookIds.addAll(snapshot.getWriteAllIds());
+        }
+        return Collections.unmodifiableSet(logbookIds);
+    }
+
+    private void invalidateAll() {
+        invalidateLocal();
+        clusterInvalidationNotifier.publish(INVALIDATION_TOPIC);
+    }
+
+    private void invalidateLocal() {
+        synchronized (cache) {
+            generation.incrementAndGet();
+            cache.clear();
+        }
+    }
+
+    private record CacheKey(String owner, AuthorizationTypeDTO authorizationType) {
+    }
+
+    private record CacheEntry(Set<String> logbookIds, BitSet logbookBits, LogbookSnapshot snapshot, long expiresAt) {
+    }
+}
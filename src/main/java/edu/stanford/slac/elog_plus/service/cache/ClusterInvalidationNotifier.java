@@ -0,0 +1,77 @@
+package edu.stanford.slac.elog_plus.service.cache;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.topic.ITopic;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Notify the invalidation of a local cache to the other replicas through a hazelcast topic.
+ * When there is no hazelcast instance the invalidation is local only.
+ */
+@Log4j2
+@Component
+public class ClusterInvalidationNotifier {
+    private final String instanceId = UUID.randomUUID().toString();
+    private final HazelcastInstance hazelcastInstance;
+
+    public ClusterInvalidationNotifier(ObjectProvider<HazelcastInstance> hazelcastInstanceProvider) {
+        this.hazelcastInstance = hazelcastInstanceProvider.getIfAvailable();
+        if (hazelcastInstance == null) {
+            log.info("[cluster invalidation] no hazelcast instance, the invalidation is local only");
+        }
+    }
+
+    /**
+     * Subscribe to the invalidations published by the other replicas
+     *
+     * @param topicName    the name of the topic
+     * @param invalidation called when another replica publishes an invalidation
+     * @return the subscription, to pass to {@link #unsubscribe}, or null if there is no hazelcast instance
+     */
+    public UUID subscribe(String topicName, Runnable invalidation) {
+        if (hazelcastInstance == null) return null;
+        ITopic<String> topic = hazelcastInstance.getTopic(topicName);
+        return topic.addMessageListener(
+                message -> {
+                    // the local invalidation has already been done by the publisher
+                    if (instanceId.equals(message.getMessageObject())) return;
+                    log.debug("[cluster invalidation] {} invalidated by {}", topicName, message.getMessageObject());
+                    invalidation.run();
+                }
+        );
+    }
+
+    /**
+     * Remove the subscription
+     *
+     * @param topicName    the name of the topic
+     * @param subscription the subscription returned by {@link #subscribe}
+     */
+    public void unsubscribe(String topicName, UUID subscription) {
+        if (hazelcastInstance == null || subscription == null) return;
+        try {
+            hazelcastInstance.getTopic(topicName).removeMessageListener(subscription);
+        } catch (Exception e) {
+            // the hazelcast instance can be already shut down
+            log.debug("[cluster invalidation] error removing the listener of {}: {}", topicName, e.getMessage());
+        }
+    }
+
+    /**
+     * Notify the invalidation to the other replicas
+     *
+     * @param topicName the name of the topic
+     */
+    public void publish(String topicName) {
+        if (hazelcastInstance == null) return;
+        try {
+            hazelcastInstance.getTopic(topicName).publish(instanceId);
+        } catch (Exception e) {
+            log.error("[cluster invalidation] error notifying the invalidation of {} to the other replicas: {}", topicName, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package edu.stanford.slac.elog_plus.service.cache;
+
+import lombok.Builder;
+
+import java.util.List;
+
+/**
+ * Is the part of an entry needed to check the access to it, only the fields that
+ * never change after the creation of the entry are kept
+ *
+ * @param id       the entry id
+ * @param logbooks the logbooks which the entry belongs
+ */
+@Builder(toBuilder = true)
+public record EntryAccessMetadata(
+        String id,
+        List<String> logbooks
+) {
+}
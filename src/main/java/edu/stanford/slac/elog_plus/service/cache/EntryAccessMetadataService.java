@@ -0,0 +1,95 @@
+package edu.stanford.slac.elog_plus.service.cache;
+
+import edu.stanford.slac.elog_plus.config.ELOGAppProperties;
+import edu.stanford.slac.elog_plus.model.Entry;
+import edu.stanford.slac.elog_plus.repository.EntryRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static edu.stanford.slac.ad.eed.baselib.exception.Utility.wrapCatch;
+
+/**
+ * Return the access metadata of the entries, loaded with a projection and kept in a
+ * small LRU cache. An entry is evicted when it is saved or deleted on this node.
+ * <p>
+ * The logbooks of an entry never change after the creation (a change creates a new
+ * superseding entry) so the cache is not synchronized among the replicas. The fields
+ * changed by query, like the superseded by, are not part of the metadata because
+ * those updates don't fire the save event that evicts the entry.
+ */
+@Log4j2
+@Service
+public class EntryAccessMetadataService {
+    private final EntryRepository entryRepository;
+    private final Map<String, EntryAccessMetadata> cache;
+
+    public EntryAccessMetadataService(EntryRepository entryRepository, ELOGAppProperties elogAppProperties) {
+        this.entryRepository = entryRepository;
+        int maxSize = elogAppProperties.getEntryAccessCacheSize();
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, EntryAccessMetadata> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Return the access metadata of the entry
+     *
+     * @param entryId the entry id
+     * @return the access metadata or empty if the entry doesn't exist
+     */
+    public Optional<EntryAccessMetadata> get(String entryId) {
+        synchronized (cache) {
+            EntryAccessMetadata found = cache.get(entryId);
+            if (found != null) return Optional.of(found);
+        }
+        Optional<EntryAccessMetadata> loaded = wrapCatch(
+                () -> entryRepository.findAccessMetadataById(entryId),
+                -1,
+                "EntryAccessMetadataService::get"
+        ).map(this::toAccessMetadata);
+        loaded.ifPresent(
+                metadata -> {
+                    synchronized (cache) {
+                        cache.put(entryId, metadata);
+                    }
+                }
+        );
+        return loaded;
+    }
+
+    /**
+     * Remove the entry from the cache
+     *
+     * @param entryId the entry id
+     */
+    public void evict(String entryId) {
+        synchronized (cache) {
+            cache.remove(entryId);
+        }
+    }
+
+    /**
+     * Remove all the entries from the cache
+     */
+    public void evictAll() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    private EntryAccessMetadata toAccessMetadata(Entry entry) {
+        return EntryAccessMetadata
+                .builder()
+                .id(entry.getId())
+                .logbooks(entry.getLogbooks() == null ? List.of() : List.copyOf(entry.getLogbooks()))
+                .build();
+    }
+}
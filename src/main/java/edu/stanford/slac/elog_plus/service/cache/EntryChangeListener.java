@@ -0,0 +1,30 @@
+package edu.stanford.slac.elog_plus.service.cache;
+
+import edu.stanford.slac.elog_plus.model.Entry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Evict the access metadata of an entry when it is saved, the removal of the entries
+ * is done by query so the whole caches of the access metadata and of the origin ids are cleared
+ */
+@Component
+@RequiredArgsConstructor
+public class EntryChangeListener extends AbstractMongoEventListener<Entry> {
+    private final EntryAccessMetadataService entryAccessMetadataService;
+    private final OriginIdCache originIdCache;
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Entry> event) {
+        entryAccessMetadataService.evict(event.getSource().getId());
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Entry> event) {
+        entryAccessMetadataService.evictAll();
+        originIdCache.evictAll();
+    }
+}
@@ -0,0 +1,28 @@
+package edu.stanford.slac.elog_plus.service.cache;
+
+import edu.stanford.slac.elog_plus.model.Logbook;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Invalidate the logbook snapshot when a logbook is saved or deleted through the
+ * repository or the template, the partial updates are invalidated by the logbook service
+ */
+@Component
+@RequiredArgsConstructor
+public class LogbookChangeListener extends AbstractMongoEventListener<Logbook> {
+    private final LogbookSnapshotService logbookSnapshotService;
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Logbook> event) {
+        logbookSnapshotService.invalidate();
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Logbook> event) {
+        logbookSnapshotService.invalidate();
+    }
+}
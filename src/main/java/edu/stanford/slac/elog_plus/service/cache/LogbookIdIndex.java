@@ -0,0 +1,57 @@
+package edu.stanford.slac.elog_plus.service.cache;
+
+import org.springframework.stereotype.Component;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Intern the logbook ids in dense integer indexes, so a set of logbooks can be held
+ * in a {@link BitSet} and the authorization checks become bit operations.
+ * The index of a logbook never changes during the life of the application.
+ */
+@Component
+public class LogbookIdIndex {
+    private final Map<String, Integer> indexById = new ConcurrentHashMap<>();
+    private final AtomicInteger nextIndex = new AtomicInteger();
+
+    /**
+     * Return the index of the logbook, assigning a new one the first time the id is seen
+     *
+     * @param logbookId the logbook id
+     * @return the index of the logbook
+     */
+    public int indexOf(String logbookId) {
+        return indexById.computeIfAbsent(logbookId, id -> nextIndex.getAndIncrement());
+    }
+
+    /**
+     * Return the set with the indexes of the logbooks
+     *
+     * @param logbookIds the logbook ids
+     * @return the set of the indexes
+     */
+    public BitSet toBitSet(Collection<String> logbookIds) {
+        BitSet bits = new BitSet(nextIndex.get());
+        if (logbookIds == null) return bits;
+        for (String logbookId : logbookIds) {
+            bits.set(indexOf(logbookId));
+        }
+        return bits;
+    }
+
+    /**
+     * Check if the logbook belongs to the set, a logbook never indexed doesn't belong to any set
+     *
+     * @param bits      the set of the indexes
+     * @param logbookId the logbook id
+     * @return true if the logbook belongs to the set
+     */
+    public boolean contains(BitSet bits, String logbookId) {
+        Integer index = indexById.get(logbookId);
+        return index != null && bits.get(index);
+    }
+}
@@ -0,0 +1,206 @@
+package edu.stanford.slac.elog_plus.service.cache;
+
+import edu.stanford.slac.elog_plus.model.Logbook;
+import edu.stanford.slac.elog_plus.model.Shift;
+import edu.stanford.slac.elog_plus.model.Tag;
+
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * Is an immutable view of all the logbooks with their tags and shifts, indexed by
+ * logbook id, logbook name and tag id. The snapshot is created in one shot and is
+ * replaced, never updated, when a logbook changes.
+ * <p>
+ * The returned models are shared among all the readers and must not be modified.
+ */
+public final class LogbookSnapshot {
+    private final List<Logbook> logbooks;
+    private final Map<String, Logbook> logbookById;
+    private final Map<String, Logbook> logbookByName;
+    private final Map<String, Tag> tagById;
+    private final Map<String, Logbook> logbookByTagId;
+    private final Map<String, ShiftLookupTable> shiftTableByLogbookId;
+    private final Map<String, Shift> shiftById;
+    private final Map<String, Logbook> logbookByShiftId;
+    private final List<String> readAllIds;
+    private final List<String> writeAllIds;
+
+    private LogbookSnapshot(List<Logbook> logbooks) {
+        Map<String, Logbook> byId = new LinkedHashMap<>();
+        Map<String, Logbook> byName = new HashMap<>();
+        Map<String, Tag> tags = new HashMap<>();
+        Map<String, Logbook> byTagId = new HashMap<>();
+        Map<String, ShiftLookupTable> shiftTables = new HashMap<>();
+        Map<String, Shift> shifts = new HashMap<>();
+        Map<String, Logbook> byShiftId = new HashMap<>();
+        List<String> readAll = new ArrayList<>();
+        List<String> writeAll = new ArrayList<>();
+        for (Logbook logbook : logbooks) {
+            // the lists are replaced by unmodifiable copies so the snapshot cannot change
+            logbook.setTags(logbook.getTags() == null ? List.of() : List.copyOf(logbook.getTags()));
+            logbook.setShifts(logbook.getShifts() == null ? List.of() : List.copyOf(logbook.getShifts()));
+            byId.put(logbook.getId(), logbook);
+            if (logbook.getName() != null) byName.put(logbook.getName().toLowerCase(), logbook);
+            for (Tag tag : logbook.getTags()) {
+                tags.put(tag.getId(), tag);
+                byTagId.put(tag.getId(), logbook);
+            }
+            for (Shift shift : logbook.getShifts()) {
+                shifts.put(shift.getId(), shift);
+                byShiftId.put(shift.getId(), logbook);
+            }
+            shiftTables.put(logbook.getId(), ShiftLookupTable.compile(logbook.getShifts()));
+            if (logbook.isReadAll()) readAll.add(logbook.getId());
+            if (logbook.isWriteAll()) writeAll.add(logbook.getId());
+        }
+        this.logbooks = List.copyOf(byId.values());
+        this.logbookById = Collections.unmodifiableMap(byId);
+        this.logbookByName = Collections.unmodifiableMap(byName);
+        this.tagById = Collections.unmodifiableMap(tags);
+        this.logbookByTagId = Collections.unmodifiableMap(byTagId);
+        this.shiftTableByLogbookId = Collections.unmodifiableMap(shiftTables);
+        this.shiftById = Collections.unmodifiableMap(shifts);
+        this.logbookByShiftId = Collections.unmodifiableMap(byShiftId);
+        this.readAllIds = List.copyOf(readAll);
+        this.writeAllIds = List.copyOf(writeAll);
+    }
+
+    /**
+     * Create the snapshot of the logbooks
+     *
+     * @param logbooks all the logbooks, they are owned by the snapshot after the call
+     * @return the new snapshot
+     */
+    public static LogbookSnapshot of(List<Logbook> logbooks) {
+        return new LogbookSnapshot(logbooks);
+    }
+
+    /**
+     * @return all the logbooks
+     */
+    public List<Logbook> getLogbooks() {
+        return logbooks;
+    }
+
+    /**
+     * @return the ids of all the logbooks
+     */
+    public Set<String> getLogbookIds() {
+        return logbookById.keySet();
+    }
+
+    /**
+     * @param logbookId the logbook id
+     * @return the logbook with the id
+     */
+    public Optional<Logbook> getLogbook(String logbookId) {
+        return Optional.ofNullable(logbookById.get(logbookId));
+    }
+
+    /**
+     * @param name the logbook name, the case is ignored
+     * @return the logbook with the name
+     */
+    public Optional<Logbook> getLogbookByName(String name) {
+        if (name == null) return Optional.empty();
+        return Optional.ofNullable(logbookByName.get(name.toLowerCase()));
+    }
+
+    /**
+     * @param tagId the tag id
+     * @return the tag with the id
+     */
+    public Optional<Tag> getTag(String tagId) {
+        return Optional.ofNullable(tagById.get(tagId));
+    }
+
+    /**
+     * @param tagId the tag id
+     * @return the logbook that owns the tag
+     */
+    public Optional<Logbook> getLogbookByTagId(String tagId) {
+        return Optional.ofNullable(logbookByTagId.get(tagId));
+    }
+
+    /**
+     * @param logbookId the logbook id
+     * @param tagName   the tag name, the case is ignored
+     * @return the tag of the logbook with the name
+     */
+    public Optional<Tag> getTagByName(String logbookId, String tagName) {
+        return getLogbook(logbookId)
+                .flatMap(
+                        lb -> lb.getTags().stream()
+                                .filter(t -> t.getName() != null && t.getName().equalsIgnoreCase(tagName))
+                                .findFirst()
+                );
+    }
+
+    /**
+     * @param logbookId the logbook id
+     * @return the shifts of the logbook, empty if the logbook doesn't exist
+     */
+    public List<Shift> getShifts(String logbookId) {
+        return getLogbook(logbookId).map(Logbook::getShifts).orElse(List.of());
+    }
+
+    /**
+     * Find the shift of the logbook that contains the local time
+     *
+     * @param logbookId the logbook id
+     * @param localTime the local time, the seconds are ignored
+     * @return the shift or null if the logbook doesn't exist or no shift contains the time
+     */
+    public Shift findShift(String logbookId, LocalTime localTime) {
+        ShiftLookupTable table = shiftTableByLogbookId.get(logbookId);
+        return table == null ? null : table.find(localTime);
+    }
+
+    /**
+     * @param shiftId the shift id
+     * @return the shift with the id
+     */
+    public Optional<Shift> getShift(String shiftId) {
+        return Optional.ofNullable(shiftById.get(shiftId));
+    }
+
+    /**
+     * @param shiftId the shift id
+     * @return the logbook that owns the shift
+     */
+    public Optional<Logbook> getLogbookByShiftId(String shiftId) {
+        return Optional.ofNullable(logbookByShiftId.get(shiftId));
+    }
+
+    /**
+     * Find, for each logbook, the id of the shift that contains the local time
+     *
+     * @param logbookIds the logbook ids
+     * @param localTime  the local time, the seconds are ignored
+     * @return the ids of the found shifts in the order of the logbooks
+     */
+    public List<String> findShiftIds(List<String> logbookIds, LocalTime localTime) {
+        List<String> result = new ArrayList<>();
+        if (logbookIds == null || localTime == null) return result;
+        for (String logbookId : logbookIds) {
+            Shift shift = findShift(logbookId, localTime);
+            if (shift != null) result.add(shift.getId());
+        }
+        return result;
+    }
+
+    /**
+     * @return the ids of the logbooks readable by all
+     */
+    public List<String> getReadAllIds() {
+        return readAllIds;
+    }
+
+    /**
+     * @return the ids of the logbooks writable by all
+     */
+    public List<String> getWriteAllIds() {
+        return writeAllIds;
+    }
+}
@@ -0,0 +1,116 @@
+package edu.stanford.slac.elog_plus.service.cache;
+
+import edu.stanford.slac.elog_plus.repository.LogbookRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static edu.stanford.slac.ad.eed.baselib.exception.Utility.wrapCatch;
+
+/**
+ * Hold the snapshot of all the logbooks, tags and shifts. The snapshot is loaded
+ * on the first read after an invalidation and is shared by all the readers until the next
+ * invalidation. Every change to a logbook invalidates the local snapshot and is notified
+ * to the other replicas through a hazelcast topic.
+ */
+@Log4j2
+@Service
+@RequiredArgsConstructor
+public class LogbookSnapshotService {
+    public static final String INVALIDATION_TOPIC = "elog-logbook-snapshot-invalidation";
+    private final AtomicLong generation = new AtomicLong();
+    // a lock instead of a monitor so a virtual thread waiting for the load doesn't pin its carrier
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private final LogbookRepository logbookRepository;
+    private final ClusterInvalidationNotifier clusterInvalidationNotifier;
+    private final Counter logbookSnapshotHitCounter;
+    private final Counter logbookSnapshotMissCounter;
+    private final Timer logbookSnapshotLoadTimer;
+    private volatile LogbookSnapshot snapshot;
+    private UUID invalidationSubscription;
+
+    @PostConstruct
+    public void init() {
+        invalidationSubscription = clusterInvalidationNotifier.subscribe(INVALIDATION_TOPIC, this::invalidateLocal);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        clusterInvalidationNotifier.unsubscribe(INVALIDATION_TOPIC, invalidationSubscription);
+    }
+
+    /**
+     * Return the current snapshot, loading it if it has been invalidated
+     *
+     * @return the current snapshot
+     */
+    public LogbookSnapshot get() {
+        LogbookSnapshot current = snapshot;
+        if (current != null) {
+            logbookSnapshotHitCounter.increment();
+            return current;
+        }
+        logbookSnapshotMissCounter.increment();
+        loadLock.lock();
+        try {
+            current = snapshot;
+            if (current != null) return current;
+            long loadingGeneration = generation.get();
+            LogbookSnapshot loaded = logbookSnapshotLoadTimer.record(
+                    () -> LogbookSnapshot.of(
+                            wrapCatch(
+                                    logbookRepository::findAll,
+                                    -1,
+                                    "LogbookSnapshotService::get"
+                            )
+                    )
+            );
+            // an invalidation that happened during the load makes the loaded snapshot already old
+            if (generation.get() == loadingGeneration) {
+                snapshot = loaded;
+            }
+            return loaded;
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    /**
+     * Invalidate the snapshot on this and on all the other replicas. When called within a
+     * transaction the invalidation is repeated after the completion, so a snapshot loaded
+     * before the commit is not kept.
+     */
+    public void invalidate() {
+        invalidateAll();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCompletion(int status) {
+                            invalidateAll();
+                        }
+                    }
+            );
+        }
+    }
+
+    private void invalidateAll() {
+        invalidateLocal();
+        clusterInvalidationNotifier.publish(INVALIDATION_TOPIC);
+    }
+
+    private void invalidateLocal() {
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+}
@@ -0,0 +1,123 @@
+package edu.stanford.slac.elog_plus.service.cache;
+
+import edu.stanford.slac.elog_plus.config.ELOGAppProperties;
+import edu.stanford.slac.elog_plus.model.Entry;
+import edu.stanford.slac.elog_plus.repository.EntryRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+import static edu.stanford.slac.ad.eed.baselib.exception.Utility.wrapCatch;
+
+/**
+ * Resolve the origin ids of the imported entries to the local entry ids. The origin ids
+ * not in the small LRU cache are loaded with one query, and the entries created by the
+ * import are added to the cache so the references that follow them during a migration
+ * are resolved without going to the database.
+ * <p>
+ * The origin id of an entry never changes and is unique, so the cache is cleared only when
+ * the entries are removed, on this node and on the other replicas through a hazelcast topic.
+ */
+@Log4j2
+@Service
+public class OriginIdCache {
+    public static final String INVALIDATION_TOPIC = "elog-origin-id-invalidation";
+    private final EntryRepository entryRepository;
+    private final ClusterInvalidationNotifier clusterInvalidationNotifier;
+    private final Map<String, String> cache;
+    private UUID invalidationSubscription;
+
+    public OriginIdCache(
+            EntryRepository entryRepository,
+            ELOGAppProperties elogAppProperties,
+            ClusterInvalidationNotifier clusterInvalidationNotifier) {
+        this.entryRepository = entryRepository;
+        this.clusterInvalidationNotifier = clusterInvalidationNotifier;
+        int maxSize = elogAppProperties.getOriginIdCacheSize();
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    @PostConstruct
+    public void init() {
+        invalidationSubscription = clusterInvalidationNotifier.subscribe(INVALIDATION_TOPIC, this::evictAllLocal);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        clusterInvalidationNotifier.unsubscribe(INVALIDATION_TOPIC, invalidationSubscription);
+    }
+
+    /**
+     * Resolve the origin ids, the ones not found in the cache are loaded with one query
+     *
+     * @param originIds the origin ids to resolve
+     * @return the entry id by origin id, the origin ids that have not been imported are not in the map
+     */
+    public Map<String, String> resolve(Collection<String> originIds) {
+        Map<String, String> result = new HashMap<>();
+        Set<String> toLoad = new HashSet<>();
+        synchronized (cache) {
+            for (String originId : originIds) {
+                if (originId == null) continue;
+                String found = cache.get(originId);
+                if (found != null) {
+                    result.put(originId, found);
+                } else {
+                    toLoad.add(originId);
+                }
+            }
+        }
+        if (toLoad.isEmpty()) return result;
+
+        List<Entry> loaded = wrapCatch(
+                () -> entryRepository.findOriginIdByOriginIdIn(toLoad),
+                -1,
+                "OriginIdCache::resolve"
+        );
+        log.debug("[origin id cache] {} origin ids loaded, {} found", toLoad.size(), loaded.size());
+        synchronized (cache) {
+            loaded.forEach(
+                    entry -> {
+                        cache.put(entry.getOriginId(), entry.getId());
+                        result.put(entry.getOriginId(), entry.getId());
+                    }
+            );
+        }
+        return result;
+    }
+
+    /**
+     * Add the origin id of an imported entry to the cache
+     *
+     * @param originId the origin id, nothing is done if null
+     * @param entryId  the id of the entry
+     */
+    public void put(String originId, String entryId) {
+        if (originId == null || entryId == null) return;
+        synchronized (cache) {
+            cache.put(originId, entryId);
+        }
+    }
+
+    /**
+     * Remove all the origin ids from the cache of this node and clear the cache of the other replicas
+     */
+    public void evictAll() {
+        evictAllLocal();
+        clusterInvalidationNotifier.publish(INVALIDATION_TOPIC);
+    }
+
+    private void evictAllLocal() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+}
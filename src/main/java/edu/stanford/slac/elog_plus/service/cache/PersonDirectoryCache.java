@@ -0,0 +1,232 @@
+package edu.stanford.slac.elog_plus.service.cache;
+
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.PersonDTO;
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.PersonQueryParameterDTO;
+import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
+import edu.stanford.slac.ad.eed.baselib.service.PeopleGroupService;
+import edu.stanford.slac.elog_plus.config.ELOGAppProperties;
+import edu.stanford.slac.elog_plus.exception.UserNotFound;
+import io.micrometer.core.instrument.Counter;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Cache in front of the {@link PeopleGroupService} to avoid a directory lookup for every
+ * write of the same user. The found persons are kept for a time to live, the persons not found
+ * are kept for a shorter time to live. A person is not found when the directory answers with an
+ * error whose type is mapped to the {@link HttpStatus#NOT_FOUND} status, all the other errors are
+ * never cached and are rethrown unchanged.
+ * <p>
+ * When the directory cannot be contacted (the failure is wrapped in a plain {@link ControllerLogicException})
+ * an expired person still in cache is returned, so a directory hiccup doesn't stop the users that have
+ * been already resolved.
+ */
+@Log4j2
+@Service
+public class PersonDirectoryCache {
+    private final PeopleGroupService peopleGroupService;
+    private final ELOGAppProperties elogAppProperties;
+    private final Counter personCacheHitCounter;
+    private final Counter personCacheMissCounter;
+    private final Map<Object, CacheEntry> cache;
+
+    public PersonDirectoryCache(
+            PeopleGroupService peopleGroupService,
+            ELOGAppProperties elogAppProperties,
+            Counter personCacheHitCounter,
+            Counter personCacheMissCounter) {
+        this.peopleGroupService = peopleGroupService;
+        this.elogAppProperties = elogAppProperties;
+        this.personCacheHitCounter = personCacheHitCounter;
+        this.personCacheMissCounter = personCacheMissCounter;
+        int maxSize = elogAppProperties.getPersonCacheSize();
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, CacheEntry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Return the person of the authentication
+     *
+     * @param authentication the authentication
+     * @return the person
+     */
+    public PersonDTO findPerson(Authentication authentication) {
+        return lookup(
+                new PersonKey(KeyType.Authentication, authentication.getCredentials().toString()),
+                () -> peopleGroupService.findPerson(authentication)
+        );
+    }
+
+    /**
+     * Return the person by the email
+     *
+     * @param email the email of the person
+     * @return the person
+     */
+    public PersonDTO findPersonByEMail(String email) {
+        return lookup(
+                new PersonKey(KeyType.Mail, email),
+                () -> peopleGroupService.findPersonByEMail(email)
+        );
+    }
+
+    /**
+     * Return the person by the uid
+     *
+     * @param uid the uid of the person
+     * @return the person
+     */
+    public PersonDTO findPersonByUid(String uid) {
+        return lookup(
+                new PersonKey(KeyType.Uid, uid),
+                () -> peopleGroupService.findPersonByUid(uid)
+        );
+    }
+
+    /**
+     * Return the persons for a list of emails, each email is looked up once and only the
+     * persons not in cache are searched on the directory, one lookup for each of them
+     *
+     * @param emails the emails of the persons
+     * @return the found persons by email, the emails not found are not present in the map
+     */
+    public Map<String, PersonDTO> findPersonsByEMail(Collection<String> emails) {
+        Map<String, PersonDTO> result = new HashMap<>();
+        for (String email : new LinkedHashSet<>(emails)) {
+            try {
+                PersonDTO person = findPersonByEMail(email);
+                if (person != null) result.put(email, person);
+            } catch (UserNotFound e) {
+                log.debug("[person directory] person '{}' not found", email);
+            } catch (ControllerLogicException e) {
+                log.warn("[person directory] person '{}' cannot be resolved: {}", email, e.getMessage());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Search the persons, the result of the same query is reused and each found person is
+     * kept also by the email
+     *
+     * @param personQueryParameterDTO the query parameter
+     * @return the found persons
+     */
+    @SuppressWarnings("unchecked")
+    public List<PersonDTO> findPersons(PersonQueryParameterDTO personQueryParameterDTO) {
+        return (List<PersonDTO>) lookup(
+                personQueryParameterDTO,
+                () -> {
+                    List<PersonDTO> found = List.copyOf(peopleGroupService.findPersons(personQueryParameterDTO));
+                    found.stream().filter(p -> p.mail() != null).forEach(
+                            p -> store(new PersonKey(KeyType.Mail, p.mail()), new CacheEntry(p, null, expiration(false)))
+                    );
+                    return found;
+                }
+        );
+    }
+
+    /**
+     * Remove all the persons from the cache
+     */
+    public void evictAll() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T lookup(Object key, Supplier<T> loader) {
+        CacheEntry found;
+        synchronized (cache) {
+            found = cache.get(key);
+        }
+        if (found != null && found.expiresAt() > System.currentTimeMillis()) {
+            personCacheHitCounter.increment();
+            if (found.notFoundErrorCode() != null) throw notFound(key, found.notFoundErrorCode());
+            return (T) found.value();
+        }
+        personCacheMissCounter.increment();
+        try {
+            T value = loader.get();
+            store(key, new CacheEntry(value, null, expiration(false)));
+            return value;
+        } catch (RuntimeException e) {
+            if (key instanceof PersonKey && e instanceof ControllerLogicException controllerLogicException && isNotFound(controllerLogicException)) {
+                // the directory answered that the person doesn't exist
+                store(key, new CacheEntry(null, controllerLogicException.getErrorCode(), expiration(true)));
+                throw notFound(key, controllerLogicException.getErrorCode());
+            }
+            if (isDirectoryFailure(e) && found != null && found.notFoundErrorCode() == null) {
+                log.warn("[person directory] error contacting the directory, the cached value of {} is used: {}", key, e.getMessage());
+                return (T) found.value();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Return true if the error is the answer of the directory for a person that doesn't exist
+     */
+    private static boolean isNotFound(ControllerLogicException e) {
+        if (e instanceof UserNotFound) return true;
+        ResponseStatus responseStatus = AnnotatedElementUtils.findMergedAnnotation(e.getClass(), ResponseStatus.class);
+        return responseStatus != null && responseStatus.code() == HttpStatus.NOT_FOUND;
+    }
+
+    /**
+     * Return true if the error is a failure contacting the directory and not an answer of it,
+     * the typed errors are answers of the directory
+     */
+    private static boolean isDirectoryFailure(RuntimeException e) {
+        return !(e instanceof ControllerLogicException) || e.getClass() == ControllerLogicException.class;
+    }
+
+    /**
+     * Create the error for a person not found, a new exception is created for each caller
+     */
+    private static UserNotFound notFound(Object key, Integer errorCode) {
+        PersonKey personKey = (PersonKey) key;
+        return UserNotFound.userNotFound()
+                .errorCode(errorCode)
+                // the credentials of the authentication are not reported
+                .userName(personKey.type() == KeyType.Authentication ? "authenticated user" : personKey.value())
+                .errorDomain("PersonDirectoryCache::lookup")
+                .build();
+    }
+
+    private void store(Object key, CacheEntry entry) {
+        synchronized (cache) {
+            cache.put(key, entry);
+        }
+    }
+
+    private long expiration(boolean negative) {
+        long ttlSeconds = negative ? elogAppProperties.getPersonCacheNegativeTtlSeconds() : elogAppProperties.getPersonCacheTtlSeconds();
+        return System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ttlSeconds);
+    }
+
+    private enum KeyType {
+        Authentication,
+        Mail,
+        Uid
+    }
+
+    private record PersonKey(KeyType type, String value) {
+    }
+
+    private record CacheEntry(Object value, Integer notFoundErrorCode, long expiresAt) {
+    }
+}
@@ -0,0 +1,111 @@
+package edu.stanford.slac.elog_plus.service.cache;
+
+import edu.stanford.slac.elog_plus.model.Shift;
+import lombok.extern.log4j.Log4j2;
+
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.List;
+
+/**
+ * Is the shifts of a logbook compiled in one slot per minute of the day, so the shift
+ * that contains a time is found with an array access.
+ * <p>
+ * The shift bounds are stored in UTC and are compared with the local time of the entry using the
+ * current offset of the system zone, the same done by {@link edu.stanford.slac.elog_plus.utility.DateUtilities#fromUTCString}.
+ * For this reason the slots are indexed by the UTC minute of the day and the local time is shifted
+ * using the offset, that is cached up to the next transition of the zone.
+ */
+@Log4j2
+public final class ShiftLookupTable {
+    public static final int MINUTES_IN_DAY = 24 * 60;
+    private static final ShiftLookupTable EMPTY = new ShiftLookupTable(new Shift[MINUTES_IN_DAY]);
+    private static volatile ZoneOffsetWindow offsetWindow = new ZoneOffsetWindow(0, Long.MIN_VALUE);
+    private final Shift[] shiftByUTCMinute;
+
+    private ShiftLookupTable(Shift[] shiftByUTCMinute) {
+        this.shiftByUTCMinute = shiftByUTCMinute;
+    }
+
+    /**
+     * Compile the shifts in the lookup table, the bounds are both inclusive and a shift
+     * with the 'from' after the 'to' spans midnight. When two shifts overlap the first one in
+     * the list wins, as in the linear search.
+     *
+     * @param shifts the shifts of the logbook
+     * @return the lookup table
+     */
+    public static ShiftLookupTable compile(List<Shift> shifts) {
+        if (shifts == null || shifts.isEmpty()) return EMPTY;
+        Shift[] table = new Shift[MINUTES_IN_DAY];
+        for (Shift shift : shifts) {
+            int from = toMinuteOfDay(shift.getFrom());
+            int to = toMinuteOfDay(shift.getTo());
+            if (from < 0 || to < 0) {
+                log.warn("[shift lookup] the shift '{}' has invalid bounds {}-{} and is ignored", shift.getId(), shift.getFrom(), shift.getTo());
+                continue;
+            }
+            int length = Math.floorMod(to - from, MINUTES_IN_DAY) + 1;
+            for (int idx = 0; idx < length; idx++) {
+                int slot = (from + idx) % MINUTES_IN_DAY;
+                if (table[slot] == null) table[slot] = shift;
+            }
+        }
+        return new ShiftLookupTable(table);
+    }
+
+    /**
+     * Find the shift that contains the local time
+     *
+     * @param localTime the local time, the seconds are ignored
+     * @return the shift or null if no shift contains the time
+     */
+    public Shift find(LocalTime localTime) {
+        int localMinute = localTime.getHour() * 60 + localTime.getMinute();
+        return shiftByUTCMinute[Math.floorMod(localMinute - currentOffsetMinutes(), MINUTES_IN_DAY)];
+    }
+
+    /**
+     * Convert the 'HH:mm' string in the minute of the day
+     *
+     * @return the minute of the day or -1 if the string is not valid
+     */
+    static int toMinuteOfDay(String time) {
+        if (time == null) return -1;
+        int separator = time.indexOf(':');
+        if (separator < 1 || separator != time.length() - 3) return -1;
+        try {
+            int hour = Integer.parseInt(time, 0, separator, 10);
+            int minute = Integer.parseInt(time, separator + 1, time.length(), 10);
+            if (hour > 23 || minute > 59) return -1;
+            return hour * 60 + minute;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Return the offset in minutes of the system zone, the value is recomputed only
+     * when the next transition of the zone is reached
+     */
+    private static int currentOffsetMinutes() {
+        ZoneOffsetWindow window = offsetWindow;
+        long now = System.currentTimeMillis();
+        if (now < window.validUntil()) return window.offsetMinutes();
+        ZoneRules rules = ZoneId.systemDefault().getRules();
+        Instant instant = Instant.ofEpochMilli(now);
+        ZoneOffsetTransition next = rules.nextTransition(instant);
+        window = new ZoneOffsetWindow(
+                rules.getOffset(instant).getTotalSeconds() / 60,
+                next == null ? Long.MAX_VALUE : next.toEpochSecond() * 1000
+        );
+        offsetWindow = window;
+        return window.offsetMinutes();
+    }
+
+    private record ZoneOffsetWindow(int offsetMinutes, long validUntil) {
+    }
+}
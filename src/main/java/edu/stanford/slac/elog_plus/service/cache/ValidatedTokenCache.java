@@ -0,0 +1,179 @@
+package edu.stanford.slac.elog_plus.service.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.stanford.slac.elog_plus.config.ELOGAppProperties;
+import io.micrometer.core.instrument.Counter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hold the authentications resolved from the user and application tokens, so the signature of a token
+ * presented many times is verified only once. The tokens are kept by their hash up to their
+ * expiration, capped by a max time to live, in a bounded LRU map.
+ * <p>
+ * The deletion of an application token evicts it from the cache of this node and clears the
+ * cache of the other replicas through a hazelcast topic.
+ */
+@Log4j2
+@Service
+public class ValidatedTokenCache {
+    public static final String INVALIDATION_TOPIC = "elog-validated-token-invalidation";
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private final ELOGAppProperties elogAppProperties;
+    private final ClusterInvalidationNotifier clusterInvalidationNotifier;
+    private final Counter validatedTokenCacheHitCounter;
+    private final Counter validatedTokenCacheMissCounter;
+    private final Map<String, CachedAuthentication> cache;
+    private UUID invalidationSubscription;
+
+    public ValidatedTokenCache(
+            ELOGAppProperties elogAppProperties,
+            ClusterInvalidationNotifier clusterInvalidationNotifier,
+            Counter validatedTokenCacheHitCounter,
+            Counter validatedTokenCacheMissCounter) {
+        this.elogAppProperties = elogAppProperties;
+        this.clusterInvalidationNotifier = clusterInvalidationNotifier;
+        this.validatedTokenCacheHitCounter = validatedTokenCacheHitCounter;
+        this.validatedTokenCacheMissCounter = validatedTokenCacheMissCounter;
+        int maxSize = elogAppProperties.getValidatedTokenCacheSize();
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedAuthentication> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    @PostConstruct
+    public void init() {
+        invalidationSubscription = clusterInvalidationNotifier.subscribe(INVALIDATION_TOPIC, this::evictAllLocal);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        clusterInvalidationNotifier.unsubscribe(INVALIDATION_TOPIC, invalidationSubscription);
+    }
+
+    /**
+     * Return the authentication resolved from the token
+     *
+     * @param token the user or application token
+     * @return the authentication or null if the token is not in cache or is expired
+     */
+    public Authentication get(String token) {
+        String key = hash(token);
+        long now = System.currentTimeMillis();
+        synchronized (cache) {
+            CachedAuthentication found = cache.get(key);
+            if (found != null) {
+                if (found.expiresAt() > now) {
+                    validatedTokenCacheHitCounter.increment();
+                    return found.authentication();
+                }
+                cache.remove(key);
+            }
+        }
+        validatedTokenCacheMissCounter.increment();
+        return null;
+    }
+
+    /**
+     * Keep the authentication resolved from the token up to the expiration of the token
+     *
+     * @param token          the user or application token
+     * @param authentication the authentication resolved from the token
+     */
+    public void put(String token, Authentication authentication) {
+        long now = System.currentTimeMillis();
+        long expiresAt = now + TimeUnit.SECONDS.toMillis(elogAppProperties.getValidatedTokenCacheMaxTtlSeconds());
+        Long tokenExpiration = getExpiration(token);
+        if (tokenExpiration != null) {
+            expiresAt = Math.min(expiresAt, tokenExpiration);
+        }
+        if (expiresAt <= now) return;
+        CachedAuthentication cachedAuthentication = new CachedAuthentication(authentication, expiresAt);
+        synchronized (cache) {
+            cache.put(hash(token), cachedAuthentication);
+        }
+    }
+
+    /**
+     * Remove the token from the cache of this node and clear the cache of the other replicas
+     *
+     * @param token the user or application token
+     */
+    public void evict(String token) {
+        synchronized (cache) {
+            cache.remove(hash(token));
+        }
+        clusterInvalidationNotifier.publish(INVALIDATION_TOPIC);
+    }
+
+    /**
+     * Remove the tokens resolved for the owner from the cache of this node and clear the cache of the other replicas
+     *
+     * @param owner the owner of the tokens, as returned by the credentials of the authentication
+     */
+    public void evictOwner(String owner) {
+        synchronized (cache) {
+            cache.values().removeIf(c -> owner.equals(String.valueOf(c.authentication().getCredentials())));
+        }
+        clusterInvalidationNotifier.publish(INVALIDATION_TOPIC);
+    }
+
+    /**
+     * Clear the cache of this node and of the other replicas
+     */
+    public void evictAll() {
+        evictAllLocal();
+        clusterInvalidationNotifier.publish(INVALIDATION_TOPIC);
+    }
+
+    private void evictAllLocal() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Return the expiration in milliseconds of the jwt token, the signature has already been
+     * verified by the authentication manager
+     *
+     * @return the expiration or null if the token has no expiration
+     */
+    private Long getExpiration(String token) {
+        String[] parts = token.split("\\.");
+        if (parts.length < 2) return null;
+        try {
+            JsonNode claims = objectMapper.readTree(Base64.getUrlDecoder().decode(parts[1]));
+            JsonNode exp = claims.get("exp");
+            return exp != null && exp.canConvertToLong() ? TimeUnit.SECONDS.toMillis(exp.asLong()) : null;
+        } catch (Exception e) {
+            log.debug("[validated token] error reading the expiration of the token: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private String hash(String token) {
+        try {
+            return HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8))
+            );
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record CachedAuthentication(Authentication authentication, long expiresAt) {
+    }
+}
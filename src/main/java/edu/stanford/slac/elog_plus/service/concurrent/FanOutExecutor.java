@@ -0,0 +1,279 @@
+package edu.stanford.slac.elog_plus.service.concurrent;
+
+import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
+import edu.stanford.slac.elog_plus.config.ELOGAppProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.security.concurrent.DelegatingSecurityContextCallable;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Run the request scoped parallel work on a dedicated executor instead of the common ForkJoinPool,
+ * so a blocking lookup can't starve the other users of the common pool.
+ * <p>
+ * The tasks run on virtual threads, or on a fixed pool of platform threads when the virtual threads
+ * are disabled, and at most {@code fanOutMaxConcurrency} of them run at the same time, the others wait
+ * in queue. The security context of the submitting thread is propagated to the tasks.
+ * The small lists, and the lists mapped from within a task, are mapped on the calling thread.
+ */
+@Log4j2
+@Service
+public class FanOutExecutor {
+    private static final ThreadLocal<Boolean> IN_FAN_OUT = ThreadLocal.withInitial(() -> false);
+    private final ELOGAppProperties elogAppProperties;
+    private final MeterRegistry meterRegistry;
+    private final Timer fanOutTaskTimer;
+    private final Timer fanOutQueueTimer;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final Semaphore permits;
+    private final ExecutorService executorService;
+
+    public FanOutExecutor(
+            ELOGAppProperties elogAppProperties,
+            MeterRegistry meterRegistry,
+            Timer fanOutTaskTimer,
+            Timer fanOutQueueTimer) {
+        this.elogAppProperties = elogAppProperties;
+        this.meterRegistry = meterRegistry;
+        this.fanOutTaskTimer = fanOutTaskTimer;
+        this.fanOutQueueTimer = fanOutQueueTimer;
+        int maxConcurrency = Math.max(1, elogAppProperties.getFanOutMaxConcurrency());
+        if (elogAppProperties.getFanOutVirtualThreads()) {
+            this.permits = new Semaphore(maxConcurrency);
+            this.executorService = Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name("elog-fan-out-", 0).factory()
+            );
+        } else {
+            // the pool size already bounds the concurrency
+            this.permits = null;
+            this.executorService = Executors.newFixedThreadPool(
+                    maxConcurrency,
+                    Thread.ofPlatform().name("elog-fan-out-", 0).daemon(true).factory()
+            );
+        }
+        log.info("[fan out] executor created with max concurrency {} on {} threads", maxConcurrency, elogAppProperties.getFanOutVirtualThreads() ? "virtual" : "platform");
+    }
+
+    @PostConstruct
+    public void init() {
+        Gauge
+                .builder("elog_plus_fan_out_queue_depth", queued, AtomicInteger::get)
+                .description("The number of fan out tasks waiting to be run")
+                .register(meterRegistry);
+        Gauge
+                .builder("elog_plus_fan_out_running", running, AtomicInteger::get)
+                .description("The number of fan out tasks running")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executorService.shutdownNow();
+    }
+
+    /**
+     * Map all the items in parallel
+     *
+     * @param items  the items to map
+     * @param mapper the function to apply to each item
+     * @return the mapped items in the same order of the input
+     */
+    public <T, R> List<R> map(List<T> items, Function<T, R> mapper) {
+        if (items == null || items.isEmpty()) return List.of();
+        if (items.size() < elogAppProperties.getFanOutParallelThreshold() || IN_FAN_OUT.get()) {
+            return items.stream().map(mapper).toList();
+        }
+        List<Future<R>> futures = new ArrayList<>(items.size());
+        try {
+            for (T item : items) {
+                futures.add(submit(() -> mapper.apply(item)));
+            }
+            List<R> result = new ArrayList<>(items.size());
+            for (Future<R> future : futures) {
+                result.add(join(future));
+            }
+            return result;
+        } finally {
+            futures.forEach(f -> f.cancel(true));
+        }
+    }
+
+    /**
+     * Open a scope where the tasks are forked and joined within a deadline, when the scope
+     * is closed the tasks still running are cancelled
+     *
+     * @param deadline the max time given to all the tasks of the scope
+     * @param parallel if false the tasks are run on the calling thread when forked
+     * @return the scope
+     */
+    public Scope openScope(Duration deadline, boolean parallel) {
+        return new Scope(System.nanoTime() + deadline.toNanos(), parallel && !IN_FAN_OUT.get());
+    }
+
+    /**
+     * Submit a task
+     *
+     * @param task the task to run
+     * @return the future of the task, the cancel with interruption stops the task
+     */
+    public <T> Future<T> submit(Supplier<T> task) {
+        long submittedAt = System.nanoTime();
+        AtomicBoolean dequeued = new AtomicBoolean();
+        Runnable dequeue = () -> {
+            if (dequeued.compareAndSet(false, true)) queued.decrementAndGet();
+        };
+        // the security context of the current thread is captured here and set on the task thread
+        Callable<T> callable = new DelegatingSecurityContextCallable<>(() -> run(task, submittedAt, dequeue));
+        FutureTask<T> futureTask = new FutureTask<>(callable) {
+            @Override
+            protected void done() {
+                // a task cancelled before running leaves the queue here
+                dequeue.run();
+            }
+        };
+        queued.incrementAndGet();
+        try {
+            executorService.execute(futureTask);
+        } catch (RejectedExecutionException e) {
+            dequeue.run();
+            throw e;
+        }
+        return futureTask;
+    }
+
+    /**
+     * Wait for the future and rethrow the error of the task as is
+     *
+     * @param future the future to wait for
+     * @return the result of the task
+     */
+    public static <T> T join(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw interrupted();
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static ControllerLogicException interrupted() {
+        return ControllerLogicException
+                .builder()
+                .errorCode(-1)
+                .errorMessage("Interrupted while waiting for a parallel task")
+                .errorDomain("FanOutExecutor::join")
+                .build();
+    }
+
+    /**
+     * Return the error of a task as unchecked exception
+     */
+    static RuntimeException unwrap(Throwable cause) {
+        if (cause instanceof CompletionException && cause.getCause() != null) cause = cause.getCause();
+        if (cause instanceof RuntimeException runtimeException) return runtimeException;
+        if (cause instanceof Error error) throw error;
+        return new CompletionException(cause);
+    }
+
+    private <T> T run(Supplier<T> task, long submittedAt, Runnable dequeue) throws InterruptedException {
+        try {
+            if (permits != null) permits.acquire();
+        } finally {
+            dequeue.run();
+        }
+        try {
+            running.incrementAndGet();
+            fanOutQueueTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+            IN_FAN_OUT.set(true);
+            long startedAt = System.nanoTime();
+            try {
+                return task.get();
+            } finally {
+                fanOutTaskTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            IN_FAN_OUT.remove();
+            running.decrementAndGet();
+            if (permits != null) permits.release();
+        }
+    }
+
+    /**
+     * Group the tasks forked by a request, all the tasks are joined within the same deadline and
+     * the ones not completed when the scope is closed are cancelled, so no task outlives the request
+     */
+    public final class Scope implements AutoCloseable {
+        private final long deadlineNanos;
+        private final boolean parallel;
+        private final List<Future<?>> forked = new ArrayList<>();
+
+        private Scope(long deadlineNanos, boolean parallel) {
+            this.deadlineNanos = deadlineNanos;
+            this.parallel = parallel;
+        }
+
+        /**
+         * Fork a task in the scope
+         *
+         * @param task the task to run
+         * @return the future of the task
+         */
+        public <T> Future<T> fork(Supplier<T> task) {
+            Future<T> future;
+            if (parallel) {
+                future = submit(task);
+            } else {
+                FutureTask<T> inline = new FutureTask<>(task::get);
+                inline.run();
+                future = inline;
+            }
+            forked.add(future);
+            return future;
+        }
+
+        /**
+         * Wait for the task until the deadline of the scope
+         *
+         * @param future the future returned by {@link #fork(Supplier)}
+         * @return the result of the task
+         */
+        public <T> T join(Future<T> future) {
+            try {
+                return future.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw interrupted();
+            } catch (ExecutionException e) {
+                throw unwrap(e.getCause());
+            } catch (TimeoutException e) {
+                throw ControllerLogicException
+                        .builder()
+                        .errorCode(-2)
+                        .errorMessage("The parallel tasks have not completed within the deadline")
+                        .errorDomain("FanOutExecutor::Scope::join")
+                        .build();
+            }
+        }
+
+        @Override
+        public void close() {
+            forked.forEach(f -> f.cancel(true));
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package edu.stanford.slac.elog_plus.task;
+
+import edu.stanford.slac.elog_plus.service.ShiftStampService;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Log4j2
+@Component
+@AllArgsConstructor
+public class ShiftStampTask {
+    private final ShiftStampService shiftStampService;
+
+    @Scheduled(fixedDelayString = "${edu.stanford.slac.elog-plus.shift-stamp-fixed-delay-ms}")
+    public void restampShifts() {
+        log.debug("Processing the shift restamp jobs");
+        shiftStampService.processPendingJobs();
+        log.debug("Processing the shift restamp jobs done");
+    }
+}
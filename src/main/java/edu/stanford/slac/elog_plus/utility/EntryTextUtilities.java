@@ -0,0 +1,88 @@
+package edu.stanford.slac.elog_plus.utility;
+
+import edu.stanford.slac.elog_plus.model.Entry;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static edu.stanford.slac.elog_plus.api.v1.mapper.EntryMapper.ELOG_ENTRY_REF;
+import static edu.stanford.slac.elog_plus.api.v1.mapper.EntryMapper.ELOG_ENTRY_REF_ID;
+
+/**
+ * Compute the information derived from the html body of an entry, the body is parsed
+ * once at write time and the derived fields are stored along with the entry
+ */
+public class EntryTextUtilities {
+    /**
+     * The max number of characters of the plain text excerpt
+     */
+    public static final int EXCERPT_MAX_LENGTH = 256;
+
+    /**
+     * Parse the html body
+     *
+     * @param text the html body
+     * @return the parsed document or null if the text is null or empty
+     */
+    public static Document parse(String text) {
+        if (text == null || text.isEmpty()) return null;
+        return Jsoup.parseBodyFragment(text);
+    }
+
+    /**
+     * Return the unique entry ids referenced by the body
+     *
+     * @param document the parsed body
+     * @return the list of the referenced ids in the order they are found
+     */
+    public static List<String> findReferences(Document document) {
+        List<String> result = new ArrayList<>();
+        if (document == null) return result;
+        for (Element element : document.select(ELOG_ENTRY_REF)) {
+            if (!element.hasAttr(ELOG_ENTRY_REF_ID)) continue;
+            String id = element.attr(ELOG_ENTRY_REF_ID);
+            if (id.isEmpty() || result.contains(id)) continue;
+            result.add(id);
+        }
+        return result;
+    }
+
+    /**
+     * Parse the body of the entry and fill all the derived fields
+     *
+     * @param entry          the entry to update
+     * @param fillReferences if true also the references are filled using the body
+     */
+    public static void fillDerivedFields(Entry entry, boolean fillReferences) {
+        Document document = parse(entry.getText());
+        if (fillReferences) {
+            entry.setReferences(findReferences(document));
+        }
+        fillDerivedFields(entry, document);
+    }
+
+    /**
+     * Fill the derived fields of the entry using its already parsed body
+     *
+     * @param entry    the entry to update
+     * @param document the parsed body of the entry, null if the body is empty
+     */
+    public static void fillDerivedFields(Entry entry, Document document) {
+        String text = entry.getText();
+        entry.setTextEmpty(text == null || text.isEmpty());
+        entry.setTextLength(text == null ? 0 : text.length());
+        if (document == null) {
+            entry.setReferencesInBody(false);
+            entry.setTextExcerpt("");
+            return;
+        }
+        entry.setReferencesInBody(!document.select(ELOG_ENTRY_REF).isEmpty());
+        String plainText = document.body().text();
+        entry.setTextExcerpt(
+                plainText.length() > EXCERPT_MAX_LENGTH ? plainText.substring(0, EXCERPT_MAX_LENGTH) : plainText
+        );
+    }
+}
@@ -0,0 +1,293 @@
+package edu.stanford.slac.elog_plus.consumer;
+
+import com.github.javafaker.Faker;
+import edu.stanford.slac.ad.eed.baselib.auth.JWTHelper;
+import edu.stanford.slac.ad.eed.baselib.config.AppProperties;
+import edu.stanford.slac.ad.eed.baselib.model.AuthenticationToken;
+import edu.stanford.slac.ad.eed.baselib.model.Authorization;
+import edu.stanford.slac.ad.eed.baselib.service.AuthService;
+import edu.stanford.slac.elog_plus.api.v1.dto.BulkEntryResultDTO;
+import edu.stanford.slac.elog_plus.api.v1.dto.EntryImportDTO;
+import edu.stanford.slac.elog_plus.api.v1.dto.NewLogbookDTO;
+import edu.stanford.slac.elog_plus.api.v1.dto.TagDTO;
+import edu.stanford.slac.elog_plus.api.v2.dto.ImportEntryDTO;
+import edu.stanford.slac.elog_plus.model.Attachment;
+import edu.stanford.slac.elog_plus.model.Entry;
+import edu.stanford.slac.elog_plus.model.Logbook;
+import edu.stanford.slac.elog_plus.service.ImportService;
+import edu.stanford.slac.elog_plus.service.LogbookService;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@AutoConfigureMockMvc
+@SpringBootTest()
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles({"test"})
+@TestPropertySource(properties = "edu.stanford.slac.elog-plus.import-batch-enabled=true")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class ProcessLogImportBatchTest {
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private AppProperties appProperties;
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private JWTHelper jwtHelper;
+    @Autowired
+    private LogbookService logbookService;
+    @Autowired
+    private ImportService importService;
+    @Autowired
+    private KafkaTemplate<String, ImportEntryDTO> importEntryDTOKafkaTemplate;
+    @Value("${edu.stanford.slac.elog-plus.import-entry-topic}")
+    private String importEntryTopic;
+    @Autowired
+    private KafkaAdmin kafkaAdmin;
+
+    @BeforeEach
+    public void resetData() {
+        mongoTemplate.remove(new Query(), Entry.class);
+        mongoTemplate.remove(new Query(), Attachment.class);
+        mongoTemplate.remove(new Query(), Logbook.class);
+        mongoTemplate.remove(new Query(), Authorization.class);
+        mongoTemplate.remove(new Query(), AuthenticationToken.class);
+        appProperties.getRootUserList().clear();
+        appProperties.getRootUserList().add("user1@slac.stanford.edu");
+        authService.updateRootUser();
+
+        try (AdminClient adminClient = AdminClient.create(kafkaAdmin.getConfigurationProperties())) {
+            Set<String> existingTopics = adminClient.listTopics().names().get();
+            List.of(importEntryTopic, "%s-dlt".formatted(importEntryTopic))
+                    .stream()
+                    .filter(existingTopics::contains)
+                    .forEach(topic -> {
+                        try {
+                            adminClient.deleteTopics(Collections.singletonList(topic)).all().get();
+                        } catch (Exception e) {
+                            System.err.println("Failed to delete topic " + topic + ": " + e.getMessage());
+                        }
+                    });
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to recreate Kafka topic", e);
+        }
+    }
+
+    @Test
+    public void importBatchGroupedByLogbooksOnlyOnce() {
+        Faker faker = new Faker();
+        List<ImportEntryDTO> toImport = new ArrayList<>();
+        for (int idx = 0; idx < 20; idx++) {
+            toImport.add(
+                    ImportEntryDTO
+                            .builder()
+                            .readerUserIds(List.of("user2@slac.stanford.edu"))
+                            .entry(
+                                    EntryImportDTO
+                                            .builder()
+                                            // the consecutive records on the same logbooks are imported together
+                                            .logbooks(List.of(idx < 10 ? "batch-logbook-a" : "batch-logbook-b"))
+                                            .tags(List.of("tag-1", "tag-%d".formatted(idx % 4)))
+                                            .title("entry %d".formatted(idx))
+                                            .text(faker.lorem().paragraph())
+                                            .originId("batch-origin-%d".formatted(idx))
+                                            .build()
+                            )
+                            .build()
+            );
+        }
+        // a record without logbooks is sent to the dead letter topic and doesn't stop the others
+        toImport.add(
+                ImportEntryDTO
+                        .builder()
+                        .entry(EntryImportDTO.builder().title("no logbooks").text("").originId("batch-no-logbooks").build())
+                        .build()
+        );
+        toImport.forEach(this::send);
+
+        await()
+                .atMost(60, SECONDS)
+                .pollDelay(2, SECONDS)
+                .until(() -> mongoTemplate.count(new Query(), Entry.class) == 20);
+
+        List<TagDTO> tagsA = logbookService.getLogbookByName("batch-logbook-a").tags();
+        assertThat(tagsA).extracting(TagDTO::name).containsExactlyInAnyOrder("tag-0", "tag-1", "tag-2", "tag-3");
+        List<TagDTO> tagsB = logbookService.getLogbookByName("batch-logbook-b").tags();
+        assertThat(tagsB).extracting(TagDTO::name).containsExactlyInAnyOrder("tag-0", "tag-1", "tag-2", "tag-3");
+        Entry entry = mongoTemplate.findOne(new Query(Criteria.where("originId").is("batch-origin-3")), Entry.class);
+        assertThat(entry).isNotNull();
+        assertThat(entry.getTags()).hasSize(2);
+        assertThat(mongoTemplate.count(new Query(Criteria.where("originId").is("batch-no-logbooks")), Entry.class)).isEqualTo(0);
+
+        // the redelivered records are not imported twice
+        toImport.subList(0, 5).forEach(this::send);
+        send(
+                ImportEntryDTO
+                        .builder()
+                        .entry(
+                                EntryImportDTO
+                                        .builder()
+                                        .logbooks(List.of("batch-logbook-a"))
+                                        .title("last entry")
+                                        .text(faker.lorem().paragraph())
+                                        .originId("batch-origin-last")
+                                        .build()
+                        )
+                        .build()
+        );
+        await()
+                .atMost(60, SECONDS)
+                .pollDelay(2, SECONDS)
+                .until(() -> mongoTemplate.count(new Query(Criteria.where("originId").is("batch-origin-last")), Entry.class) == 1);
+        assertThat(mongoTemplate.count(new Query(), Entry.class)).isEqualTo(21);
+    }
+
+    @Test
+    public void importBatchResolveReferencesByOriginId() {
+        Faker faker = new Faker();
+        List<ImportEntryDTO> toImport = new ArrayList<>();
+        for (int idx = 0; idx < 10; idx++) {
+            toImport.add(
+                    ImportEntryDTO
+                            .builder()
+                            .entry(
+                                    EntryImportDTO
+                                            .builder()
+                                            .logbooks(List.of("batch-logbook-a"))
+                                            .title("entry %d".formatted(idx))
+                                            .text(faker.lorem().paragraph())
+                                            .originId("ref-origin-%d".formatted(idx))
+                                            // each entry references the previous one
+                                            .referencesByOriginId(idx == 0 ? null : List.of("ref-origin-%d".formatted(idx - 1)))
+                                            .build()
+                            )
+                            .build()
+            );
+        }
+        toImport.forEach(this::send);
+
+        await()
+                .atMost(60, SECONDS)
+                .pollDelay(2, SECONDS)
+                .until(() -> mongoTemplate.count(new Query(), Entry.class) == 10);
+        for (int idx = 1; idx < 10; idx++) {
+            Entry entry = mongoTemplate.findOne(new Query(Criteria.where("originId").is("ref-origin-%d".formatted(idx))), Entry.class);
+            Entry previousEntry = mongoTemplate.findOne(new Query(Criteria.where("originId").is("ref-origin-%d".formatted(idx - 1))), Entry.class);
+            assertThat(entry).isNotNull();
+            assertThat(previousEntry).isNotNull();
+            assertThat(entry.getReferences()).containsExactly(previousEntry.getId());
+        }
+
+        // the origin id is unique
+        assertThrows(
+                DuplicateKeyException.class,
+                () -> mongoTemplate.insert(
+                        Entry.builder().title("duplicated").originId("ref-origin-0").build()
+                )
+        );
+    }
+
+    @Test
+    public void importEntriesReturnTheFirstIdForTheDuplicatedOriginId() {
+        String logbookId = logbookService.createNew(NewLogbookDTO.builder().name("batch-logbook-duplicates").build());
+        List<EntryImportDTO> entries = new ArrayList<>();
+        for (String originId : List.of("dup-origin-1", "dup-origin-2", "dup-origin-1")) {
+            entries.add(
+                    EntryImportDTO
+                            .builder()
+                            .logbooks(List.of(logbookId))
+                            .title("entry %s".formatted(originId))
+                            .text("text")
+                            .originId(originId)
+                            .build()
+            );
+        }
+        List<BulkEntryResultDTO> results = assertDoesNotThrow(() -> importService.importEntries(entries));
+        assertThat(results).extracting(BulkEntryResultDTO::errorCode).containsExactly(0, 0, 0);
+        assertThat(results.get(2).id()).isEqualTo(results.get(0).id());
+        assertThat(mongoTemplate.count(new Query(), Entry.class)).isEqualTo(2);
+    }
+
+    @Test
+    public void importBatchDeadLetterTheNotAuthorizedRunAndGoOn() {
+        Faker faker = new Faker();
+        // a user that is not root can't create the logbook, the run is not redelivered
+        send(
+                ImportEntryDTO
+                        .builder()
+                        .entry(
+                                EntryImportDTO
+                                        .builder()
+                                        .logbooks(List.of("batch-logbook-not-authorized"))
+                                        .title("not authorized entry")
+                                        .text(faker.lorem().paragraph())
+                                        .originId("batch-not-authorized")
+                                        .build()
+                        )
+                        .build(),
+                "user2@slac.stanford.edu"
+        );
+        send(
+                ImportEntryDTO
+                        .builder()
+                        .entry(
+                                EntryImportDTO
+                                        .builder()
+                                        .logbooks(List.of("batch-logbook-a"))
+                                        .title("authorized entry")
+                                        .text(faker.lorem().paragraph())
+                                        .originId("batch-authorized")
+                                        .build()
+                        )
+                        .build()
+        );
+
+        await()
+                .atMost(60, SECONDS)
+                .pollDelay(2, SECONDS)
+                .until(() -> mongoTemplate.count(new Query(Criteria.where("originId").is("batch-authorized")), Entry.class) == 1);
+        assertThat(mongoTemplate.count(new Query(), Entry.class)).isEqualTo(1);
+        assertThat(logbookService.existByName("batch-logbook-not-authorized")).isFalse();
+    }
+
+    private void send(ImportEntryDTO dto) {
+        send(dto, "user1@slac.stanford.edu");
+    }
+
+    private void send(ImportEntryDTO dto, String userEmail) {
+        // the same key keeps the records on the same partition, in order
+        ProducerRecord<String, ImportEntryDTO> message = new ProducerRecord<>(importEntryTopic, "key", dto);
+        message.headers().add("Authorization", jwtHelper.generateJwt(userEmail).getBytes());
+        assertDoesNotThrow(() -> importEntryDTOKafkaTemplate.send(message).get());
+    }
+}
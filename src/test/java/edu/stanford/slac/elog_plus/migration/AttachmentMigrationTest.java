@@ -4,6 +4,8 @@ import edu.stanford.slac.elog_plus.migration.M008_RenameSupersedeBy;
 import edu.stanford.slac.elog_plus.migration.M009_CreateAttachmentReferenceInfoIndex;
 import edu.stanford.slac.elog_plus.model.Attachment;
 import edu.stanford.slac.elog_plus.model.Entry;
+import edu.stanford.slac.elog_plus.model.AttachmentMiniPreview;
+import edu.stanford.slac.elog_plus.repository.AttachmentMiniPreviewRepository;
 import edu.stanford.slac.elog_plus.repository.AttachmentRepository;
 import edu.stanford.slac.elog_plus.repository.EntryRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -34,6 +36,8 @@ public class AttachmentMigrationTest {
     MongoTemplate mongoTemplate;
     @Autowired
     AttachmentRepository attachmentRepository;
+    @Autowired
+    AttachmentMiniPreviewRepository attachmentMiniPreviewRepository;
 
     static class WrongAttachment extends Attachment {
         public LocalDateTime creationData;
@@ -42,6 +46,7 @@ public class AttachmentMigrationTest {
     @BeforeEach
     public void clean() {
         mongoTemplate.remove(new Query(), Attachment.class);
+        mongoTemplate.remove(new Query(), AttachmentMiniPreview.class);
     }
 
     @Test
@@ -71,4 +76,40 @@ public class AttachmentMigrationTest {
             assertThat(attachment.getCreatedDate()).isNotNull();
         });
     }
+
+    @Test
+    public void testMoveMiniPreviewToItsOwnCollection() {
+        Vector<String> attachmentIdWithMiniPreview = new Vector<>();
+        for (int i = 0; i < 300; i++) {
+            var savedAttachment = attachmentRepository.save(
+                    Attachment.builder().fileName("file-%d".formatted(i)).build()
+            );
+            if (i % 3 == 0) {
+                // simulate the inline mini preview of the previous version
+                mongoTemplate.getCollection("attachment").updateOne(
+                        new org.bson.Document("_id", new org.bson.types.ObjectId(savedAttachment.getId())),
+                        new org.bson.Document("$set", new org.bson.Document("miniPreview", new byte[]{1, 2, (byte) i}))
+                );
+                attachmentIdWithMiniPreview.add(savedAttachment.getId());
+            }
+        }
+
+        // run the migration
+        assertDoesNotThrow(
+                () -> new M014_MoveAttachmentMiniPreview(mongoTemplate).changeSet()
+        );
+
+        assertThat(mongoTemplate.getCollection("attachment").countDocuments(new org.bson.Document("miniPreview", new org.bson.Document("$exists", true)))).isEqualTo(0);
+        assertThat(attachmentMiniPreviewRepository.count()).isEqualTo(attachmentIdWithMiniPreview.size());
+        attachmentRepository.findAll().forEach(attachment -> {
+            if (attachmentIdWithMiniPreview.contains(attachment.getId())) {
+                assertThat(attachment.getMiniPreviewAvailable()).isTrue();
+                var miniPreview = attachmentMiniPreviewRepository.findById(attachment.getId());
+                assertThat(miniPreview).isPresent();
+                assertThat(miniPreview.get().getData()).hasSize(3);
+            } else {
+                assertThat(attachment.getMiniPreviewAvailable()).isFalse();
+            }
+        });
+    }
 }
@@ -3,6 +3,7 @@ package edu.stanford.slac.elog_plus.migration;
 import edu.stanford.slac.elog_plus.migration.M008_RenameSupersedeBy;
 import edu.stanford.slac.elog_plus.model.Entry;
 import edu.stanford.slac.elog_plus.repository.EntryRepository;
+import edu.stanford.slac.elog_plus.utility.EntryTextUtilities;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,6 +16,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.util.Vector;
@@ -73,4 +75,60 @@ public class EntryMigrationTest {
             }
         });
     }
+
+    @Test
+    public void testFillEntryTextDerivedFields() {
+        Entry withReference = entryRepository.save(
+                Entry.builder()
+                        .title("with reference")
+                        .text("<p>see <elog-entry-ref id=\"fake-id\"></elog-entry-ref> for <b>details</b></p>")
+                        .build()
+        );
+        Entry emptyBody = entryRepository.save(
+                Entry.builder()
+                        .title("empty body")
+                        .text("")
+                        .build()
+        );
+        Entry longBody = entryRepository.save(
+                Entry.builder()
+                        .title("long body")
+                        .text("<p>%s</p>".formatted("a".repeat(1000)))
+                        .build()
+        );
+        // simulate the entries created before the derived fields
+        mongoTemplate.updateMulti(
+                new Query(),
+                new Update()
+                        .unset("referencesInBody")
+                        .unset("textEmpty")
+                        .unset("textExcerpt")
+                        .unset("textLength"),
+                Entry.class
+        );
+
+        // run the migration
+        assertDoesNotThrow(
+                () -> new M013_FillEntryTextDerivedFields(mongoTemplate).changeSet()
+        );
+
+        Entry found = entryRepository.findById(withReference.getId()).orElseThrow();
+        assertThat(found.getReferencesInBody()).isTrue();
+        assertThat(found.getTextEmpty()).isFalse();
+        assertThat(found.getTextExcerpt()).isEqualTo("see for details");
+        assertThat(found.getTextLength()).isEqualTo(withReference.getText().length());
+
+        found = entryRepository.findById(emptyBody.getId()).orElseThrow();
+        assertThat(found.getReferencesInBody()).isFalse();
+        assertThat(found.getTextEmpty()).isTrue();
+        assertThat(found.getTextExcerpt()).isEmpty();
+        assertThat(found.getTextLength()).isEqualTo(0);
+
+        found = entryRepository.findById(longBody.getId()).orElseThrow();
+        assertThat(found.getReferencesInBody()).isFalse();
+        assertThat(found.getTextExcerpt()).hasSize(EntryTextUtilities.EXCERPT_MAX_LENGTH);
+        assertThat(found.getTextLength()).isEqualTo(1007);
+        // the body is untouched
+        assertThat(found.getText()).isEqualTo(longBody.getText());
+    }
 }
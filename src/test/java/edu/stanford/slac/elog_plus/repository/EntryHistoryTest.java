@@ -0,0 +1,97 @@
+package edu.stanford.slac.elog_plus.repository;
+
+import edu.stanford.slac.elog_plus.migration.M016_EntryHistoryView;
+import edu.stanford.slac.elog_plus.model.Entry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+
+/**
+ * Check the history of an entry loaded walking the supersede chain with a single $graphLookup
+ */
+@AutoConfigureMockMvc
+@SpringBootTest()
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles(profiles = "test")
+public class EntryHistoryTest {
+    private static final int VERSIONS = 10;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private EntryRepository entryRepository;
+    // the ids of the versions from the oldest to the newest
+    private final List<String> versionIds = new ArrayList<>();
+
+    @BeforeAll
+    public void initData() {
+        mongoTemplate.remove(new Query(), Entry.class);
+        // the view is created by the migration, running it again should not fail
+        assertDoesNotThrow(() -> new M016_EntryHistoryView(mongoTemplate).changeSet());
+        Entry previous = null;
+        for (int idx = 0; idx < VERSIONS; idx++) {
+            Entry version = mongoTemplate.insert(
+                    Entry
+                            .builder()
+                            .title("version %d".formatted(idx))
+                            .text("body of the version %d".formatted(idx))
+                            .logbooks(List.of("lb-1"))
+                            .build()
+            );
+            if (previous != null) {
+                previous.setSupersededBy(version.getId());
+                mongoTemplate.save(previous);
+            }
+            versionIds.add(version.getId());
+            previous = version;
+        }
+        // an unrelated entry
+        mongoTemplate.insert(Entry.builder().title("other").logbooks(List.of("lb-1")).build());
+    }
+
+    @Test
+    public void historyReturnAllThePreviousVersionsFromTheNewest() {
+        List<Entry> history = assertDoesNotThrow(
+                () -> entryRepository.findHistory(versionIds.get(VERSIONS - 1), 100)
+        );
+        List<String> expected = new ArrayList<>(versionIds.subList(0, VERSIONS - 1));
+        Collections.reverse(expected);
+        assertThat(history).extracting(Entry::getId).containsExactlyElementsOf(expected);
+        assertThat(history).allSatisfy(e -> assertThat(e.getText()).isNull());
+    }
+
+    @Test
+    public void historyStopAtTheMaxDepth() {
+        List<Entry> history = assertDoesNotThrow(
+                () -> entryRepository.findHistory(versionIds.get(VERSIONS - 1), 3)
+        );
+        assertThat(history).extracting(Entry::getId).containsExactly(
+                versionIds.get(VERSIONS - 2),
+                versionIds.get(VERSIONS - 3),
+                versionIds.get(VERSIONS - 4)
+        );
+    }
+
+    @Test
+    public void historyOfTheFirstVersionIsEmpty() {
+        List<Entry> history = assertDoesNotThrow(
+                () -> entryRepository.findHistory(versionIds.get(0), 100)
+        );
+        assertThat(history).isEmpty();
+    }
+}
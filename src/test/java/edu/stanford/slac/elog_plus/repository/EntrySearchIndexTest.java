@@ -0,0 +1,203 @@
+package edu.stanford.slac.elog_plus.repository;
+
+import edu.stanford.slac.elog_plus.migration.M011_EntrySearchIndex;
+import edu.stanford.slac.elog_plus.model.Entry;
+import edu.stanford.slac.elog_plus.model.EntryCursor;
+import edu.stanford.slac.elog_plus.model.QueryParameterWithAnchor;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Check, with the explain of the queries issued by the repository, that the search
+ * is resolved by an index scan without any in memory sort
+ */
+@AutoConfigureMockMvc
+@SpringBootTest()
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles(profiles = "test")
+public class EntrySearchIndexTest {
+    @SpyBean
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private EntryRepository entryRepository;
+    private LocalDateTime now;
+    private List<Entry> entries;
+
+    @BeforeAll
+    public void initData() {
+        mongoTemplate.remove(new Query(), Entry.class);
+        assertDoesNotThrow(
+                () -> new M011_EntrySearchIndex(mongoTemplate).changeSet()
+        );
+        now = LocalDateTime.now();
+        entries = new ArrayList<>();
+        for (int idx = 0; idx < 500; idx++) {
+            entries.add(
+                    Entry
+                            .builder()
+                            .title("entry %d".formatted(idx))
+                            .text("text")
+                            .logbooks(List.of("lb-%d".formatted(idx % 5)))
+                            .tags(List.of("tag-%d".formatted(idx % 7), "tag-%d".formatted(idx % 3)))
+                            .supersededBy(idx % 10 == 0 ? "superseded" : null)
+                            .eventAt(now.minusMinutes(idx))
+                            .loggedAt(now.minusMinutes(idx))
+                            .build()
+            );
+        }
+        mongoTemplate.insertAll(entries);
+    }
+
+    @Test
+    public void searchOnLogbooksOrderedByEventAtUseIndex() {
+        assertSearchUseIndexWithoutSort(
+                QueryParameterWithAnchor
+                        .builder()
+                        .logbooks(List.of("lb-1", "lb-2"))
+                        .endDate(now)
+                        .limit(10)
+                        .build()
+        );
+    }
+
+    @Test
+    public void searchOnLogbooksOrderedByLoggedAtUseIndex() {
+        assertSearchUseIndexWithoutSort(
+                QueryParameterWithAnchor
+                        .builder()
+                        .logbooks(List.of("lb-1", "lb-2"))
+                        .endDate(now)
+                        .sortByLogDate(true)
+                        .limit(10)
+                        .build()
+        );
+    }
+
+    @Test
+    public void contextWindowOnLogbooksUseIndex() {
+        // the entry 13 is on the logbook lb-3 and is not superseded
+        assertSearchUseIndexWithoutSort(
+                QueryParameterWithAnchor
+                        .builder()
+                        .logbooks(List.of("lb-3"))
+                        .anchorID(entries.get(13).getId())
+                        .contextSize(5)
+                        .limit(10)
+                        .build()
+        );
+    }
+
+    @Test
+    public void searchOnLogbooksAndTagsUseIndex() {
+        assertSearchUseIndexWithoutSort(
+                QueryParameterWithAnchor
+                        .builder()
+                        .logbooks(List.of("lb-1", "lb-4"))
+                        .tags(List.of("tag-1"))
+                        .limit(10)
+                        .build()
+        );
+    }
+
+    @Test
+    public void searchOnAllTagsOrderedByLoggedAtUseIndex() {
+        assertSearchUseIndexWithoutSort(
+                QueryParameterWithAnchor
+                        .builder()
+                        .tags(List.of("tag-1", "tag-2"))
+                        .requireAllTags(true)
+                        .sortByLogDate(true)
+                        .limit(10)
+                        .build()
+        );
+    }
+
+    @Test
+    public void seekFromCursorUseIndex() {
+        assertSearchUseIndexWithoutSort(
+                QueryParameterWithAnchor
+                        .builder()
+                        .logbooks(List.of("lb-1", "lb-2"))
+                        .cursor(EntryCursor.of(entries.get(101), false))
+                        .limit(10)
+                        .build()
+        );
+    }
+
+    @Test
+    public void searchOnAllLogbooksUseIndex() {
+        assertSearchUseIndexWithoutSort(
+                QueryParameterWithAnchor
+                        .builder()
+                        .limit(10)
+                        .build()
+        );
+    }
+
+    /**
+     * Execute the search through the repository and explain every query it has issued
+     */
+    private void assertSearchUseIndexWithoutSort(QueryParameterWithAnchor queryParameter) {
+        clearInvocations(mongoTemplate);
+        assertDoesNotThrow(
+                () -> entryRepository.searchAll(queryParameter)
+        );
+        ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, atLeastOnce()).find(queryCaptor.capture(), eq(Entry.class));
+        queryCaptor.getAllValues().forEach(this::assertIndexScanWithoutSort);
+    }
+
+    private void assertIndexScanWithoutSort(Query query) {
+        MongoPersistentEntity<?> entity = mongoTemplate.getConverter().getMappingContext().getPersistentEntity(Entry.class);
+        QueryMapper queryMapper = new QueryMapper(mongoTemplate.getConverter());
+        Document explain = mongoTemplate
+                .getCollection(mongoTemplate.getCollectionName(Entry.class))
+                .find(queryMapper.getMappedObject(query.getQueryObject(), entity))
+                .sort(queryMapper.getMappedSort(query.getSortObject(), entity))
+                .limit(query.getLimit())
+                .explain();
+        Document winningPlan = explain.get("queryPlanner", Document.class).get("winningPlan", Document.class);
+        List<String> stages = new ArrayList<>();
+        collectStages(winningPlan, stages);
+        assertThat(stages).contains("IXSCAN");
+        assertThat(stages).doesNotContain("SORT", "COLLSCAN");
+    }
+
+    /**
+     * Collect all the stage names of the plan, the plan can be the classic or the slot based engine one
+     */
+    private void collectStages(Object plan, List<String> stages) {
+        if (plan instanceof Document document) {
+            if (document.containsKey("stage")) stages.add(document.getString("stage"));
+            document.values().forEach(v -> collectStages(v, stages));
+        } else if (plan instanceof List<?> list) {
+            list.forEach(v -> collectStages(v, stages));
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package edu.stanford.slac.elog_plus.repository;
+
+import edu.stanford.slac.elog_plus.model.Entry;
+import edu.stanford.slac.elog_plus.model.QueryParameterWithAnchor;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+
+/**
+ * Check that the search and the summary listings do not load the entry body, and measure the
+ * bytes transferred and the heap allocated to load a page of entries with and without the
+ * summary projection. The entries carry a large pasted html table as body.
+ */
+@AutoConfigureMockMvc
+@SpringBootTest()
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles(profiles = "test")
+public class EntrySummaryProjectionTest {
+    private static final Logger log = LoggerFactory.getLogger(EntrySummaryProjectionTest.class);
+    private static final int PAGE_SIZE = 50;
+    private static final int ROUNDS = 20;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private EntryRepository entryRepository;
+    private final List<String> entryIds = new ArrayList<>();
+
+    @BeforeAll
+    public void initData() {
+        mongoTemplate.remove(new Query(), Entry.class);
+        String body = createHtmlTable(200, 10);
+        LocalDateTime now = LocalDateTime.now();
+        List<Entry> entries = new ArrayList<>();
+        for (int idx = 0; idx < 200; idx++) {
+            entries.add(
+                    Entry
+                            .builder()
+                            .title("entry %d".formatted(idx))
+                            .text(body)
+                            .textEmpty(false)
+                            .textLength(body.length())
+                            .logbooks(List.of("lb-%d".formatted(idx % 2)))
+                            .eventAt(now.minusMinutes(idx))
+                            .loggedAt(now.minusMinutes(idx))
+                            .build()
+            );
+        }
+        mongoTemplate.insertAll(entries).forEach(e -> entryIds.add(e.getId()));
+    }
+
+    @Test
+    public void searchDoNotLoadTheBody() {
+        List<Entry> page = assertDoesNotThrow(
+                () -> entryRepository.searchAll(
+                        QueryParameterWithAnchor
+                                .builder()
+                                .logbooks(List.of("lb-0"))
+                                .limit(PAGE_SIZE)
+                                .build()
+                )
+        );
+        assertThat(page).hasSize(PAGE_SIZE);
+        assertThat(page).allSatisfy(
+                e -> {
+                    assertThat(e.getText()).isNull();
+                    assertThat(e.getTitle()).isNotNull();
+                    assertThat(e.getTextEmpty()).isFalse();
+                }
+        );
+    }
+
+    @Test
+    public void searchWithAnchorDoNotLoadTheBody() {
+        List<Entry> entries = assertDoesNotThrow(
+                () -> entryRepository.searchPage(
+                        QueryParameterWithAnchor
+                                .builder()
+                                .anchorID(entryIds.get(100))
+                                .contextSize(10)
+                                .limit(10)
+                                .build()
+                ).getEntries()
+        );
+        assertThat(entries).hasSize(20);
+        assertThat(entries).allSatisfy(e -> assertThat(e.getText()).isNull());
+    }
+
+    @Test
+    public void summaryListingsDoNotLoadTheBody() {
+        List<Entry> entries = assertDoesNotThrow(
+                () -> entryRepository.findSummaryByIdIn(entryIds.subList(0, 10))
+        );
+        assertThat(entries).hasSize(10);
+        assertThat(entries).allSatisfy(e -> assertThat(e.getText()).isNull());
+    }
+
+    @Test
+    public void benchmarkPageWithAndWithoutSummaryProjection() {
+        Document filter = new Document("logbooks", "lb-0").append("supersededBy", new Document("$exists", false));
+        Document sort = new Document("eventAt", -1).append("_id", -1);
+        long fullBytes = pageBytes(filter, sort, new Document());
+        long summaryBytes = pageBytes(filter, sort, new Document("text", 0));
+
+        // warm up both the paths before measuring the allocations
+        pageHeap(false, 3);
+        pageHeap(true, 3);
+        long fullHeap = pageHeap(false, ROUNDS) / ROUNDS;
+        long summaryHeap = pageHeap(true, ROUNDS) / ROUNDS;
+
+        log.info(
+                "[summary projection benchmark] page of {} entries, bytes transferred full/summary: {}/{}, heap allocated full/summary: {}/{}",
+                PAGE_SIZE,
+                fullBytes,
+                summaryBytes,
+                fullHeap,
+                summaryHeap
+        );
+        assertThat(summaryBytes * 10).isLessThan(fullBytes);
+        assertThat(summaryHeap).isLessThan(fullHeap);
+    }
+
+    /**
+     * Return the size of the bson documents of a page as sent by the server
+     */
+    private long pageBytes(Document filter, Document sort, Document projection) {
+        long size = 0;
+        for (RawBsonDocument document : mongoTemplate
+                .getCollection(mongoTemplate.getCollectionName(Entry.class))
+                .withDocumentClass(RawBsonDocument.class)
+                .find(filter)
+                .projection(projection)
+                .sort(sort)
+                .limit(PAGE_SIZE)) {
+            size += document.getByteBuffer().remaining();
+        }
+        return size;
+    }
+
+    /**
+     * Return the bytes allocated by the current thread to load and convert the pages
+     */
+    private long pageHeap(boolean summary, int rounds) {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long start = threadMXBean.getCurrentThreadAllocatedBytes();
+        for (int idx = 0; idx < rounds; idx++) {
+            Query query = new Query(
+                    new Criteria().andOperator(
+                            Criteria.where("logbooks").is("lb-0"),
+                            Criteria.where("supersededBy").exists(false)
+                    )
+            ).with(Sort.by(Sort.Direction.DESC, "eventAt", "id")).limit(PAGE_SIZE);
+            if (summary) query.fields().exclude("text");
+            assertThat(mongoTemplate.find(query, Entry.class)).hasSize(PAGE_SIZE);
+        }
+        return threadMXBean.getCurrentThreadAllocatedBytes() - start;
+    }
+
+    private String createHtmlTable(int rows, int columns) {
+        StringBuilder html = new StringBuilder("<table><tbody>");
+        for (int row = 0; row < rows; row++) {
+            html.append("<tr>");
+            for (int column = 0; column < columns; column++) {
+                html.append("<td>value %d-%d</td>".formatted(row, column));
+            }
+            html.append("</tr>");
+        }
+        return html.append("</tbody></table>").toString();
+    }
+}
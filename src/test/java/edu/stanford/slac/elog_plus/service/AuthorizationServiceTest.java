@@ -4,9 +4,16 @@ import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationOwnerTypeDTO;
 import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationTypeDTO;
 import edu.stanford.slac.ad.eed.baselib.model.AuthenticationToken;
 import edu.stanford.slac.ad.eed.baselib.model.Authorization;
+import edu.stanford.slac.ad.eed.baselib.model.LocalGroup;
+import edu.stanford.slac.ad.eed.baselib.api.v2.dto.LocalGroupQueryParameterDTO;
+import edu.stanford.slac.elog_plus.api.v1.dto.DetailsAuthorizationDTO;
+import edu.stanford.slac.elog_plus.api.v1.dto.GroupDetailsDTO;
 import edu.stanford.slac.elog_plus.api.v1.dto.NewAuthorizationDTO;
 import edu.stanford.slac.elog_plus.api.v1.dto.ResourceTypeDTO;
+import edu.stanford.slac.elog_plus.exception.UserNotFound;
 import edu.stanford.slac.elog_plus.model.Logbook;
+import edu.stanford.slac.elog_plus.service.cache.PersonDirectoryCache;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
@@ -20,6 +27,11 @@ import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.tuple;
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -36,6 +48,10 @@ public class AuthorizationServiceTest {
     private AuthorizationServices authorizationServices;
     @Autowired
     private MongoTemplate mongoTemplate;
+    @Autowired
+    private PersonDirectoryCache personDirectoryCache;
+    @Autowired
+    private MeterRegistry meterRegistry;
 
     @BeforeEach
     public void preTest() {
@@ -71,4 +87,90 @@ public class AuthorizationServiceTest {
                 )
         );
     }
+
+    @Test
+    public void groupListingLoadAuthorizationsOfAllGroups() {
+        mongoTemplate.remove(new Query(), LocalGroup.class);
+        List<String> groupIds = sharedUtilityService.createDefaultGroup();
+        createAuthorization(groupIds.get(0), "r1", AuthorizationTypeDTO.Read);
+        createAuthorization(groupIds.get(1), "r1", AuthorizationTypeDTO.Write);
+        createAuthorization(groupIds.get(1), "r2", AuthorizationTypeDTO.Read);
+
+        var foundGroups = assertDoesNotThrow(
+                () -> authorizationServices.findGroups(
+                        LocalGroupQueryParameterDTO.builder().limit(10).build(),
+                        false,
+                        true
+                )
+        );
+        assertThat(foundGroups).hasSize(2);
+        var authorizationsByGroup = foundGroups.stream().collect(
+                Collectors.toMap(GroupDetailsDTO::id, GroupDetailsDTO::authorizations)
+        );
+        assertThat(authorizationsByGroup.get(groupIds.get(0)))
+                .extracting(DetailsAuthorizationDTO::resourceId, DetailsAuthorizationDTO::permission)
+                .containsExactly(tuple("r1", AuthorizationTypeDTO.Read));
+        assertThat(authorizationsByGroup.get(groupIds.get(1)))
+                .extracting(DetailsAuthorizationDTO::resourceId, DetailsAuthorizationDTO::permission)
+                .containsExactlyInAnyOrder(tuple("r1", AuthorizationTypeDTO.Write), tuple("r2", AuthorizationTypeDTO.Read));
+
+        // without the authorizations no list is filled
+        var foundGroupsWithoutAuthorizations = assertDoesNotThrow(
+                () -> authorizationServices.findGroups(
+                        LocalGroupQueryParameterDTO.builder().limit(10).build(),
+                        false,
+                        false
+                )
+        );
+        assertThat(foundGroupsWithoutAuthorizations).allSatisfy(g -> assertThat(g.authorizations()).isEmpty());
+    }
+
+    @Test
+    public void personLookupsAreCached() {
+        personDirectoryCache.evictAll();
+        double hit = meterRegistry.get("elog_plus_person_cache").tag("result", "hit").counter().count();
+        double miss = meterRegistry.get("elog_plus_person_cache").tag("result", "miss").counter().count();
+
+        var firstLookup = assertDoesNotThrow(() -> authorizationServices.findUser("user1@slac.stanford.edu", false, false));
+        var secondLookup = assertDoesNotThrow(() -> authorizationServices.findUser("user1@slac.stanford.edu", false, false));
+        assertThat(secondLookup.email()).isEqualTo(firstLookup.email());
+        assertThat(meterRegistry.get("elog_plus_person_cache").tag("result", "miss").counter().count()).isEqualTo(miss + 1);
+        assertThat(meterRegistry.get("elog_plus_person_cache").tag("result", "hit").counter().count()).isEqualTo(hit + 1);
+
+        // the lookup of many emails skips the person not found
+        var foundPersons = personDirectoryCache.findPersonsByEMail(
+                List.of("user1@slac.stanford.edu", "user2@slac.stanford.edu", "not-exists@slac.stanford.edu")
+        );
+        assertThat(foundPersons).containsOnlyKeys("user1@slac.stanford.edu", "user2@slac.stanford.edu");
+
+        // the person not found is cached too
+        double hitBeforeNotFound = meterRegistry.get("elog_plus_person_cache").tag("result", "hit").counter().count();
+        UserNotFound firstNotFound = assertThrows(
+                UserNotFound.class,
+                () -> personDirectoryCache.findPersonByEMail("not-exists@slac.stanford.edu")
+        );
+        UserNotFound secondNotFound = assertThrows(
+                UserNotFound.class,
+                () -> personDirectoryCache.findPersonByEMail("not-exists@slac.stanford.edu")
+        );
+        assertThat(meterRegistry.get("elog_plus_person_cache").tag("result", "hit").counter().count()).isEqualTo(hitBeforeNotFound + 2);
+        // every caller gets its own exception
+        assertThat(secondNotFound).isNotSameAs(firstNotFound);
+        assertThat(secondNotFound.getErrorMessage()).contains("not-exists@slac.stanford.edu");
+    }
+
+    private void createAuthorization(String groupId, String resourceId, AuthorizationTypeDTO permission) {
+        assertDoesNotThrow(
+                () -> authorizationServices.createNew(
+                        NewAuthorizationDTO
+                                .builder()
+                                .permission(permission)
+                                .resourceId(resourceId)
+                                .resourceType(ResourceTypeDTO.Logbook)
+                                .ownerType(AuthorizationOwnerTypeDTO.Group)
+                                .ownerId(groupId)
+                                .build()
+                )
+        );
+    }
 }
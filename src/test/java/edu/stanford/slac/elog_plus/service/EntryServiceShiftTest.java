@@ -3,6 +3,8 @@ package edu.stanford.slac.elog_plus.service;
 import edu.stanford.slac.elog_plus.api.v1.dto.*;
 import edu.stanford.slac.elog_plus.model.Entry;
 import edu.stanford.slac.elog_plus.model.Logbook;
+import edu.stanford.slac.elog_plus.model.ShiftStampJob;
+import edu.stanford.slac.elog_plus.repository.EntryRepository;
 import edu.stanford.slac.elog_plus.repository.AttachmentRepository;
 import edu.stanford.slac.elog_plus.utility.DateUtilities;
 import org.junit.jupiter.api.BeforeEach;
@@ -23,7 +25,10 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.*;
 
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.assertj.core.api.AssertionsForClassTypes.not;
+import static org.awaitility.Awaitility.await;
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -46,12 +51,17 @@ public class EntryServiceShiftTest {
     @Autowired
     private SharedUtilityService sharedUtilityService;
     @Autowired
+    private ShiftStampService shiftStampService;
+    @Autowired
+    private EntryRepository entryRepository;
+    @Autowired
     MongoTemplate mongoTemplate;
 
     @BeforeEach
     public void preTest() {
         mongoTemplate.remove(new Query(), Entry.class);
         mongoTemplate.remove(new Query(), Logbook.class);
+        mongoTemplate.remove(new Query(), ShiftStampJob.class);
     }
 
     private LogbookDTO getTestLogbook() {
@@ -133,4 +143,163 @@ public class EntryServiceShiftTest {
         assertThat(entryDTO.shifts().getFirst().name()).isEqualTo("Swing Shift");
     }
 
+    @Test
+    public void shiftLookupAcrossMidnight() {
+        var testLogbook = getTestLogbook();
+        assertDoesNotThrow(
+                () -> logbookService.update(
+                        testLogbook.id(),
+                        UpdateLogbookDTO
+                                .builder()
+                                .name(testLogbook.name())
+                                .tags(testLogbook.tags())
+                                .shifts(
+                                        List.of(
+                                                ShiftDTO
+                                                        .builder()
+                                                        .name("Owl Shift")
+                                                        .from(DateUtilities.toUTCString(LocalTime.of(22, 0)))
+                                                        .to(DateUtilities.toUTCString(LocalTime.of(5, 59)))
+                                                        .build(),
+                                                ShiftDTO
+                                                        .builder()
+                                                        .name("Day Shift")
+                                                        .from(DateUtilities.toUTCString(LocalTime.of(8, 0)))
+                                                        .to(DateUtilities.toUTCString(LocalTime.of(15, 59)))
+                                                        .build()
+                                        )
+                                )
+                                .build()
+                )
+        );
+
+        assertThat(logbookService.findShiftByLocalTime(testLogbook.id(), LocalTime.of(22, 0)))
+                .map(LogbookShiftDTO::name).contains("Owl Shift");
+        assertThat(logbookService.findShiftByLocalTime(testLogbook.id(), LocalTime.of(0, 0)))
+                .map(LogbookShiftDTO::name).contains("Owl Shift");
+        assertThat(logbookService.findShiftByLocalTime(testLogbook.id(), LocalTime.of(5, 59, 59)))
+                .map(LogbookShiftDTO::name).contains("Owl Shift");
+        assertThat(logbookService.findShiftByLocalTime(testLogbook.id(), LocalTime.of(6, 0))).isEmpty();
+        assertThat(logbookService.findShiftByLocalTime(testLogbook.id(), LocalTime.of(15, 59)))
+                .map(LogbookShiftDTO::name).contains("Day Shift");
+        assertThat(logbookService.findShiftByLocalTime(testLogbook.id(), LocalTime.of(16, 0))).isEmpty();
+
+        // the search rows use the same lookup
+        String newEntry = assertDoesNotThrow(
+                () -> entryService.createNew(
+                        EntryNewDTO
+                                .builder()
+                                .logbooks(List.of(testLogbook.id()))
+                                .text("This is a log for test")
+                                .title("An owl shift log")
+                                .eventAt(LocalDateTime.of(2024, 8, 15, 1, 30, 5))
+                                .build(),
+                        sharedUtilityService.getPersonForEmail("user1@slac.stanford.edu")
+                )
+        );
+        List<EntrySummaryDTO> found = assertDoesNotThrow(
+                () -> entryService.findAll(
+                        QueryWithAnchorDTO
+                                .builder()
+                                .logbooks(List.of(testLogbook.id()))
+                                .limit(10)
+                                .build()
+                )
+        );
+        assertThat(found).hasSize(1);
+        assertThat(found.getFirst().id()).isEqualTo(newEntry);
+        assertThat(found.getFirst().shifts()).extracting(LogbookShiftDTO::name).containsExactly("Owl Shift");
+    }
+
+    @Test
+    public void shiftsAreStampedAndRestampedAfterTheChange() {
+        var testLogbook = getTestLogbook();
+        assertDoesNotThrow(
+                () -> logbookService.replaceShift(
+                        testLogbook.id(),
+                        List.of(
+                                ShiftDTO
+                                        .builder()
+                                        .name("Day Shift")
+                                        .from(DateUtilities.toUTCString(LocalTime.of(8, 0)))
+                                        .to(DateUtilities.toUTCString(LocalTime.of(15, 59)))
+                                        .build()
+                        )
+                )
+        );
+        String dayShiftId = logbookService.getLogbook(testLogbook.id()).shifts().getFirst().id();
+        await().atMost(30, SECONDS).pollDelay(100, MILLISECONDS).until(
+                () -> shiftStampService.getJob(testLogbook.id()).map(ShiftStampJob::getCompleted).orElse(false)
+        );
+
+        List<String> entryIds = new ArrayList<>();
+        for (int hour = 0; hour < 24; hour++) {
+            int finalHour = hour;
+            entryIds.add(
+                    assertDoesNotThrow(
+                            () -> entryService.createNew(
+                                    EntryNewDTO
+                                            .builder()
+                                            .logbooks(List.of(testLogbook.id()))
+                                            .text("This is a log for test")
+                                            .title("Log at hour %d".formatted(finalHour))
+                                            .eventAt(LocalDateTime.of(2024, 8, 15, finalHour, 30))
+                                            .build(),
+                                    sharedUtilityService.getPersonForEmail("user1@slac.stanford.edu")
+                            )
+                    )
+            );
+        }
+        // the shifts are stamped on creation
+        for (int hour = 0; hour < 24; hour++) {
+            Entry entry = entryRepository.findById(entryIds.get(hour)).orElseThrow();
+            if (hour >= 8 && hour < 16) {
+                assertThat(entry.getShifts()).containsExactly(dayShiftId);
+            } else {
+                assertThat(entry.getShifts()).isEmpty();
+            }
+        }
+
+        // add the owl shift and wait for the restamp
+        assertDoesNotThrow(
+                () -> logbookService.replaceShift(
+                        testLogbook.id(),
+                        List.of(
+                                ShiftDTO
+                                        .builder()
+                                        .id(dayShiftId)
+                                        .name("Day Shift")
+                                        .from(DateUtilities.toUTCString(LocalTime.of(8, 0)))
+                                        .to(DateUtilities.toUTCString(LocalTime.of(15, 59)))
+                                        .build(),
+                                ShiftDTO
+                                        .builder()
+                                        .name("Owl Shift")
+                                        .from(DateUtilities.toUTCString(LocalTime.of(0, 0)))
+                                        .to(DateUtilities.toUTCString(LocalTime.of(7, 59)))
+                                        .build()
+                        )
+                )
+        );
+        String owlShiftId = logbookService.getLogbook(testLogbook.id()).shifts().stream()
+                .filter(s -> s.name().equals("Owl Shift")).findFirst().orElseThrow().id();
+        await().atMost(30, SECONDS).pollDelay(100, MILLISECONDS).until(
+                () -> shiftStampService.getJob(testLogbook.id()).map(ShiftStampJob::getCompleted).orElse(false)
+        );
+        assertThat(shiftStampService.getJob(testLogbook.id()).orElseThrow().getProcessed()).isEqualTo(24L);
+        for (int hour = 0; hour < 24; hour++) {
+            Entry entry = entryRepository.findById(entryIds.get(hour)).orElseThrow();
+            if (hour < 8) {
+                assertThat(entry.getShifts()).containsExactly(owlShiftId);
+            } else if (hour < 16) {
+                assertThat(entry.getShifts()).containsExactly(dayShiftId);
+            } else {
+                assertThat(entry.getShifts()).isEmpty();
+            }
+        }
+
+        // the full entry use the stamped shift
+        EntryDTO owlEntry = assertDoesNotThrow(() -> entryService.getFullEntry(entryIds.get(3)));
+        assertThat(owlEntry.shifts()).extracting(LogbookShiftDTO::name).containsExactly("Owl Shift");
+    }
 }
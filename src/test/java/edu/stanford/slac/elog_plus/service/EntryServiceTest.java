@@ -29,6 +29,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.SpyBean;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.http.MediaType;
 import org.springframework.kafka.core.KafkaAdmin;
@@ -187,6 +188,70 @@ public class EntryServiceTest {
         assertThat(ex.getErrorCode()).isEqualTo(-3);
     }
 
+    @Test
+    public void testFailBadAttachmentIDsReportAllTheWrongIds() {
+        var logbook = getTestLogbook();
+        ControllerLogicException ex =
+                assertThrows(
+                        ControllerLogicException.class,
+                        () -> entryService.createNew(
+                                EntryNewDTO
+                                        .builder()
+                                        .logbooks(List.of(logbook.id()))
+                                        .text("This is a log for test")
+                                        .title("A very wonderful log")
+                                        .attachments(List.of("wrong id 1", "wrong id 2", "wrong id 1"))
+                                        .build(),
+                                sharedUtilityService.getPersonForEmail("user1@slac.stanford.edu")
+                        )
+                );
+        assertThat(ex.getErrorCode()).isEqualTo(-3);
+        assertThat(ex.getErrorMessage()).contains("wrong id 1, wrong id 2");
+    }
+
+    @Test
+    public void testFailBadTagIDsReportAllTheWrongIds() {
+        var logbook = getTestLogbook();
+        ControllerLogicException ex =
+                assertThrows(
+                        ControllerLogicException.class,
+                        () -> entryService.createNew(
+                                EntryNewDTO
+                                        .builder()
+                                        .logbooks(List.of(logbook.id()))
+                                        .text("This is a log for test")
+                                        .title("A very wonderful log")
+                                        .tags(List.of("wrong tag 1", "wrong tag 2"))
+                                        .build(),
+                                sharedUtilityService.getPersonForEmail("user1@slac.stanford.edu")
+                        )
+                );
+        assertThat(ex.getErrorCode()).isEqualTo(-4);
+        assertThat(ex.getErrorMessage()).contains("wrong tag 1, wrong tag 2");
+    }
+
+    @Test
+    public void testFailBadAttachmentAndTagIDsReportTheAttachmentsFirst() {
+        var logbook = getTestLogbook();
+        ControllerLogicException ex =
+                assertThrows(
+                        ControllerLogicException.class,
+                        () -> entryService.createNew(
+                                EntryNewDTO
+                                        .builder()
+                                        .logbooks(List.of(logbook.id()))
+                                        .text("This is a log for test")
+                                        .title("A very wonderful log")
+                                        .attachments(List.of("wrong id 1"))
+                                        .tags(List.of("wrong tag 1"))
+                                        .build(),
+                                sharedUtilityService.getPersonForEmail("user1@slac.stanford.edu")
+                        )
+                );
+        assertThat(ex.getErrorCode()).isEqualTo(-3);
+        assertThat(ex.getErrorMessage()).contains("wrong id 1").doesNotContain("wrong tag 1");
+    }
+
     @Test
     public void failGettingNotFoundLog() {
         EntryNotFound exception =
@@ -2097,4 +2162,335 @@ public class EntryServiceTest {
         assertThat(referencerEntry.references()).hasSize(1).extracting("id").contains(referencedEntryId);
         assertThat(referencedEntry.referencedBy()).hasSize(1).extracting("id").contains(referencerSupersedeEntryId);
     }
+
+    @Test
+    public void searchResultRelationsAreResolvedForTheWholePage() {
+        var logbook = getTestLogbook();
+        String tagId = assertDoesNotThrow(
+                () -> logbookService.createNewTag(
+                        logbook.id(),
+                        NewTagDTO
+                                .builder()
+                                .name("page-tag")
+                                .build()
+                )
+        );
+        String rootEntryId = assertDoesNotThrow(
+                () -> entryService.createNew(
+                        EntryNewDTO
+                                .builder()
+                                .logbooks(List.of(logbook.id()))
+                                .tags(List.of(tagId))
+                                .title("Root entry")
+                                .text("This is the root entry")
+                                .build(),
+                        sharedUtilityService.getPersonForEmail("user1@slac.stanford.edu")
+                )
+        );
+        String followUpEntryId = assertDoesNotThrow(
+                () -> entryService.createNewFollowUp(
+                        rootEntryId,
+                        EntryNewDTO
+                                .builder()
+                                .logbooks(List.of(logbook.id()))
+                                .title("Follow up entry")
+                                .text("This is the follow up entry")
+                                .build(),
+                        sharedUtilityService.getPersonForEmail("user1@slac.stanford.edu")
+                )
+        );
+        String referencerEntryId = assertDoesNotThrow(
+                () -> entryService.createNew(
+                        EntryNewDTO
+                                .builder()
+                                .logbooks(List.of(logbook.id()))
+                                .tags(List.of(tagId))
+                                .title("Referencer entry")
+                                .text(sharedUtilityService.createReferenceHtmlFragment("text with reference", List.of(rootEntryId)))
+                                .build(),
+                        sharedUtilityService.getPersonForEmail("user1@slac.stanford.edu")
+                )
+        );
+
+        List<EntrySummaryDTO> page = assertDoesNotThrow(
+                () -> entryService.findAll(
+                        QueryWithAnchorDTO
+                                .builder()
+                                .limit(10)
+                                .logbooks(emptyList())
+                                .build()
+                )
+        );
+        assertThat(page).hasSize(3);
+        Map<String, EntrySummaryDTO> byId = new HashMap<>();
+        page.forEach(e -> byId.put(e.id(), e));
+
+        // every summary need to be the same of the one returned by the single entry mapping
+        assertThat(byId.get(rootEntryId).referencedBy()).containsExactly(referencerEntryId);
+        assertThat(byId.get(rootEntryId).followingUp()).isNull();
+        assertThat(byId.get(rootEntryId).tags()).extracting(TagDTO::id).containsExactly(tagId);
+        assertThat(byId.get(rootEntryId).tags().get(0).logbook().id()).isEqualTo(logbook.id());
+        assertThat(byId.get(followUpEntryId).followingUp()).isEqualTo(rootEntryId);
+        assertThat(byId.get(followUpEntryId).referencedBy()).isEmpty();
+        assertThat(byId.get(referencerEntryId).references()).containsExactly(rootEntryId);
+        assertThat(byId.get(referencerEntryId).tags()).extracting(TagDTO::name).containsExactly("page-tag");
+        page.forEach(
+                e -> assertThat(e.logbooks()).extracting(LogbookSummaryDTO::id).containsExactly(logbook.id())
+        );
+    }
+
+    @Test
+    public void searchByAnchorWithAggregationIsEqualToTheClassicSearch() {
+        var logbook = getTestLogbook();
+        List<String> createdIds = new ArrayList<>();
+        for (int idx = 0; idx < 30; idx++) {
+            int finalIdx = idx;
+            createdIds.add(
+                    assertDoesNotThrow(
+                            () -> entryService.createNew(
+                                    EntryNewDTO
+                                            .builder()
+                                            .logbooks(List.of(logbook.id()))
+                                            .text("This is a log for test")
+                                            .title("A very wonderful log")
+                                            .note(String.valueOf(finalIdx))
+                                            .build(),
+                                    sharedUtilityService.getPersonForEmail("user1@slac.stanford.edu")
+                            )
+                    )
+            );
+        }
+        String anchorId = createdIds.get(15);
+        // add a follow-up and a reference to the anchor
+        String followUpId = assertDoesNotThrow(
+                () -> entryService.createNewFollowUp(
+                        anchorId,
+                        EntryNewDTO
+                                .builder()
+                                .logbooks(List.of(logbook.id()))
+                                .title("Follow up of the anchor")
+                                .text("This is the follow up")
+                                .build(),
+                        sharedUtilityService.getPersonForEmail("user1@slac.stanford.edu")
+                )
+        );
+        String referencerId = assertDoesNotThrow(
+                () -> entryService.createNew(
+                        EntryNewDTO
+                                .builder()
+                                .logbooks(List.of(logbook.id()))
+                                .title("Referencer of the anchor")
+                                .text(sharedUtilityService.createReferenceHtmlFragment("text with reference", List.of(anchorId)))
+                                .build(),
+                        sharedUtilityService.getPersonForEmail("user1@slac.stanford.edu")
+                )
+        );
+        QueryWithAnchorDTO query = QueryWithAnchorDTO
+                .builder()
+                .logbooks(emptyList())
+                .anchorID(createdIds.get(20))
+                .contextSize(5)
+                .limit(10)
+                .build();
+        List<EntrySummaryDTO> aggregationResult = assertDoesNotThrow(
+                () -> entryService.findAll(query)
+        );
+        List<EntrySummaryDTO> classicResult;
+        try {
+            elogAppProperties.setSearchUseAggregation(false);
+            classicResult = assertDoesNotThrow(
+                    () -> entryService.findAll(query)
+            );
+        } finally {
+            elogAppProperties.setSearchUseAggregation(true);
+        }
+        assertThat(aggregationResult).hasSize(15);
+        assertThat(aggregationResult).isEqualTo(classicResult);
+        var anchorSummary = aggregationResult.stream().filter(e -> e.id().equals(anchorId)).findFirst();
+        assertThat(anchorSummary).isPresent();
+        assertThat(anchorSummary.get().referencedBy()).containsExactly(referencerId);
+        assertThat(anchorSummary.get().followUps()).containsExactly(followUpId);
+    }
+
+    @Test
+    public void searchWithCursorDoNotSkipEntriesWithSameDate() {
+        var logbook = getTestLogbook();
+        LocalDateTime sameEventAt = LocalDateTime.now().withNano(0);
+        Set<String> createdIds = new HashSet<>();
+        for (int idx = 0; idx < 7; idx++) {
+            int finalIdx = idx;
+            createdIds.add(
+                    assertDoesNotThrow(
+                            () -> entryService.createNew(
+                                    EntryNewDTO
+                                            .builder()
+                                            .logbooks(List.of(logbook.id()))
+                                            .text("This is a log for test")
+                                            .title("Entry with the same event date")
+                                            .note(String.valueOf(finalIdx))
+                                            .eventAt(sameEventAt)
+                                            .build(),
+                                    sharedUtilityService.getPersonForEmail("user1@slac.stanford.edu")
+                            )
+                    )
+            );
+        }
+
+        List<String> foundIds = new ArrayList<>();
+        String cursor = null;
+        do {
+            String finalCursor = cursor;
+            List<EntrySummaryDTO> page = assertDoesNotThrow(
+                    () -> entryService.findAll(
+                            QueryWithAnchorDTO
+                                    .builder()
+                                    .logbooks(emptyList())
+                                    .cursor(finalCursor)
+                                    .limit(3)
+                                    .build()
+                    )
+            );
+            if (page.isEmpty()) break;
+            page.forEach(e -> assertThat(e.cursor()).isNotNull());
+            page.forEach(e -> foundIds.add(e.id()));
+            cursor = page.get(page.size() - 1).cursor();
+        } while (foundIds.size() < 100);
+
+        assertThat(foundIds).hasSize(7).doesNotHaveDuplicates();
+        assertThat(foundIds).containsExactlyInAnyOrderElementsOf(createdIds);
+
+        // the cursor of an entry used with the context size return the entry itself and the newer ones
+        String thirdCursor = assertDoesNotThrow(
+                () -> entryService.findAll(
+                        QueryWithAnchorDTO
+                                .builder()
+                                .logbooks(emptyList())
+                                .limit(3)
+                                .build()
+                )
+        ).get(2).cursor();
+        List<EntrySummaryDTO> contextPage = assertDoesNotThrow(
+                () -> entryService.findAll(
+                        QueryWithAnchorDTO
+                                .builder()
+                                .logbooks(emptyList())
+                                .cursor(thirdCursor)
+                                .contextSize(10)
+                                .limit(10)
+                                .build()
+                )
+        );
+        assertThat(contextPage).extracting(EntrySummaryDTO::id).containsExactlyElementsOf(foundIds);
+    }
+
+    @Test
+    public void searchFailsWithMalformedCursor() {
+        assertThrows(
+                ControllerLogicException.class,
+                () -> entryService.findAll(
+                        QueryWithAnchorDTO
+                                .builder()
+                                .logbooks(emptyList())
+                                .cursor("not-a-cursor")
+                                .limit(3)
+                                .build()
+                )
+        );
+    }
+
+    @Test
+    public void bodyDerivedFieldsAreStoredOnCreate() {
+        var logbook = getTestLogbook();
+        String referencedEntryId = assertDoesNotThrow(
+                () -> entryService.createNew(
+                        EntryNewDTO
+                                .builder()
+                                .logbooks(List.of(logbook.id()))
+                                .title("Referenced entry")
+                                .text("")
+                                .build(),
+                        sharedUtilityService.getPersonForEmail("user1@slac.stanford.edu")
+                )
+        );
+        String referencerEntryId = assertDoesNotThrow(
+                () -> entryService.createNew(
+                        EntryNewDTO
+                                .builder()
+                                .logbooks(List.of(logbook.id()))
+                                .title("Referencer entry")
+                                .text(sharedUtilityService.createReferenceHtmlFragment("text with reference", List.of(referencedEntryId)))
+                                .build(),
+                        sharedUtilityService.getPersonForEmail("user1@slac.stanford.edu")
+                )
+        );
+
+        Entry referenced = mongoTemplate.findById(referencedEntryId, Entry.class);
+        assertThat(referenced).isNotNull();
+        assertThat(referenced.getTextEmpty()).isTrue();
+        assertThat(referenced.getReferencesInBody()).isFalse();
+        assertThat(referenced.getTextLength()).isEqualTo(0);
+
+        Entry referencer = mongoTemplate.findById(referencerEntryId, Entry.class);
+        assertThat(referencer).isNotNull();
+        assertThat(referencer.getTextEmpty()).isFalse();
+        assertThat(referencer.getReferencesInBody()).isTrue();
+        assertThat(referencer.getTextExcerpt()).isEqualTo("This is a text with reference");
+        assertThat(referencer.getTextLength()).isEqualTo(referencer.getText().length());
+
+        // the summary use the stored excerpt
+        EntrySummaryDTO summary = assertDoesNotThrow(
+                () -> entryService.findAll(
+                        QueryWithAnchorDTO
+                                .builder()
+                                .limit(10)
+                                .logbooks(List.of(logbook.id()))
+                                .build()
+                )
+        ).stream().filter(e -> e.id().equals(referencerEntryId)).findFirst().orElseThrow();
+        assertThat(summary.excerpt()).isEqualTo("This is a text with reference");
+        assertThat(summary.isEmpty()).isFalse();
+    }
+
+    @Test
+    public void accessMetadataFollowTheEntryChanges() {
+        var logbook = getTestLogbook();
+        String entryId = assertDoesNotThrow(
+                () -> entryService.createNew(
+                        EntryNewDTO
+                                .builder()
+                                .logbooks(List.of(logbook.id()))
+                                .title("An entry")
+                                .text("This is a log for test")
+                                .build(),
+                        sharedUtilityService.getPersonForEmail("user1@slac.stanford.edu")
+                )
+        );
+        var metadata = assertDoesNotThrow(() -> entryService.getAccessMetadata(entryId));
+        assertThat(metadata.logbooks()).containsExactly(logbook.id());
+        assertThat(entryService.getLogbooksForAnEntryId(entryId)).containsExactly(logbook.id());
+
+        // the supersede doesn't change the logbooks of the superseded entry
+        String supersedeId = assertDoesNotThrow(
+                () -> entryService.createNewSupersede(
+                        entryId,
+                        EntryNewDTO
+                                .builder()
+                                .logbooks(List.of(logbook.id()))
+                                .title("An updated entry")
+                                .text("This is a log for test")
+                                .build(),
+                        sharedUtilityService.getPersonForEmail("user1@slac.stanford.edu")
+                )
+        );
+        assertThat(entryService.getAccessMetadata(entryId).logbooks()).containsExactly(logbook.id());
+        assertThat(entryService.getAccessMetadata(supersedeId).logbooks()).containsExactly(logbook.id());
+
+        // the removal clears the cache
+        mongoTemplate.remove(new Query(Criteria.where("id").is(entryId)), Entry.class);
+        EntryNotFound exception = assertThrows(
+                EntryNotFound.class,
+                () -> entryService.getAccessMetadata(entryId)
+        );
+        assertThat(exception.getErrorCode()).isEqualTo(-2);
+    }
 }
@@ -0,0 +1,117 @@
+package edu.stanford.slac.elog_plus.service;
+
+import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
+import edu.stanford.slac.elog_plus.service.concurrent.FanOutExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@AutoConfigureMockMvc
+@SpringBootTest()
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles({"test"})
+public class FanOutExecutorTest {
+    @Autowired
+    private FanOutExecutor fanOutExecutor;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    public void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void mapKeepOrderAndPropagateTheSecurityContext() {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("user1@slac.stanford.edu", null)
+        );
+        long tasksBefore = meterRegistry.get("elog_plus_fan_out_task").timer().count();
+        List<Integer> items = IntStream.range(0, 100).boxed().toList();
+        var result = assertDoesNotThrow(
+                () -> fanOutExecutor.map(
+                        items,
+                        idx -> "%d-%s".formatted(idx, SecurityContextHolder.getContext().getAuthentication().getName())
+                )
+        );
+        assertThat(result).containsExactlyElementsOf(
+                items.stream().map("%d-user1@slac.stanford.edu"::formatted).toList()
+        );
+        assertThat(meterRegistry.get("elog_plus_fan_out_task").timer().count()).isEqualTo(tasksBefore + 100);
+        assertThat(meterRegistry.get("elog_plus_fan_out_queue_depth").gauge().value()).isEqualTo(0);
+    }
+
+    @Test
+    public void mapRethrowTheErrorOfTheTask() {
+        List<Integer> items = IntStream.range(0, 100).boxed().toList();
+        var error = assertThrows(
+                ControllerLogicException.class,
+                () -> fanOutExecutor.map(
+                        items,
+                        idx -> {
+                            if (idx == 50) {
+                                throw ControllerLogicException.builder().errorCode(-50).errorMessage("task error").build();
+                            }
+                            return idx;
+                        }
+                )
+        );
+        assertThat(error.getErrorCode()).isEqualTo(-50);
+    }
+
+    @Test
+    public void scopeJoinWithinTheDeadline() {
+        try (var scope = fanOutExecutor.openScope(Duration.ofSeconds(10), true)) {
+            var first = scope.fork(() -> "first");
+            var second = scope.fork(() -> Thread.currentThread().isVirtual());
+            assertThat(scope.join(first)).isEqualTo("first");
+            assertThat(scope.join(second)).isTrue();
+        }
+    }
+
+    @Test
+    public void scopeCancelTheTasksOverTheDeadline() throws InterruptedException {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        var error = assertThrows(
+                ControllerLogicException.class,
+                () -> {
+                    try (var scope = fanOutExecutor.openScope(Duration.ofMillis(100), true)) {
+                        var slow = scope.fork(
+                                () -> {
+                                    try {
+                                        Thread.sleep(30000);
+                                    } catch (InterruptedException e) {
+                                        interrupted.countDown();
+                                    }
+                                    return "slow";
+                                }
+                        );
+                        scope.join(slow);
+                    }
+                }
+        );
+        assertThat(error.getErrorCode()).isEqualTo(-2);
+        // the task still running is interrupted when the scope is closed
+        assertThat(interrupted.await(10, TimeUnit.SECONDS)).isTrue();
+    }
+}
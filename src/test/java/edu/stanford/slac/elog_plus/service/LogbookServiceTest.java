@@ -7,6 +7,8 @@ import edu.stanford.slac.ad.eed.baselib.model.Authorization;
 import edu.stanford.slac.elog_plus.api.v1.dto.*;
 import edu.stanford.slac.elog_plus.exception.*;
 import edu.stanford.slac.elog_plus.model.Logbook;
+import edu.stanford.slac.elog_plus.service.cache.LogbookSnapshotService;
+import io.micrometer.core.instrument.MeterRegistry;
 import edu.stanford.slac.elog_plus.utility.DateUtilities;
 import org.assertj.core.api.AssertionsForClassTypes;
 import org.junit.jupiter.api.BeforeEach;
@@ -18,6 +20,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
@@ -48,6 +51,10 @@ public class LogbookServiceTest {
     private LogbookService logbookService;
     @Autowired
     private MongoTemplate mongoTemplate;
+    @Autowired
+    private LogbookSnapshotService logbookSnapshotService;
+    @Autowired
+    private MeterRegistry meterRegistry;
 
     @BeforeEach
     public void preTest() {
@@ -189,6 +196,55 @@ public class LogbookServiceTest {
 
     }
 
+    @Test
+    public void ensureTagsConcurrentlyCreateEachTagOnce() {
+        String newLogbookID = sharedUtilityService.getTestLogbook();
+        AssertionsForClassTypes.assertThat(newLogbookID).isNotNull().isNotEmpty();
+        String existingTagId = assertDoesNotThrow(
+                () -> logbookService.ensureTag(newLogbookID, "tag-0")
+        );
+        List<String> tagsNameToInsert = List.of("Tag 0", "tag-1", "TAG 2", "tag-3", "tag-4");
+        // all the threads ensure the same tags at the same time
+        int numberOfThreads = 10;
+        List<Map<String, String>> returnedTagIdByName = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService service = Executors.newFixedThreadPool(numberOfThreads);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        CountDownLatch latch = new CountDownLatch(numberOfThreads);
+        for (int i = 0; i < numberOfThreads; i++) {
+            service.execute(() -> {
+                try {
+                    startLatch.await();
+                    returnedTagIdByName.add(
+                            logbookService.ensureTags(newLogbookID, tagsNameToInsert)
+                    );
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        startLatch.countDown();
+        assertDoesNotThrow(
+                () -> latch.await()
+        );
+        service.shutdown();
+
+        var allTags = assertDoesNotThrow(
+                () -> logbookService.getAllTags(newLogbookID)
+        );
+        assertThat(allTags)
+                .extracting(TagDTO::name)
+                .containsExactlyInAnyOrder("tag-0", "tag-1", "tag-2", "tag-3", "tag-4");
+        assertThat(returnedTagIdByName).hasSize(numberOfThreads);
+        // every thread gets the same ids, keyed by the names in input
+        for (Map<String, String> tagIdByName : returnedTagIdByName) {
+            assertThat(tagIdByName).containsOnlyKeys(tagsNameToInsert);
+            assertThat(tagIdByName.get("Tag 0")).isEqualTo(existingTagId);
+            assertThat(tagIdByName.values()).containsExactlyInAnyOrderElementsOf(allTags.stream().map(TagDTO::id).toList());
+        }
+    }
+
     @Test
     public void failAddingShiftWithBadTimeFrom() {
         String newLogbookID = sharedUtilityService.getTestLogbook();
@@ -1922,4 +1978,61 @@ public class LogbookServiceTest {
 
         assertThat(exception.getErrorCode()).isEqualTo(-2);
     }
+
+    @Test
+    public void snapshotIsInvalidatedByTheChanges() {
+        String newLogbookID = sharedUtilityService.getTestLogbook();
+        assertThat(logbookService.getAllTags(newLogbookID)).isEmpty();
+
+        // the tag is visible on the next read
+        String tagId = assertDoesNotThrow(
+                () -> logbookService.ensureTag(newLogbookID, "tag-a")
+        );
+        assertThat(logbookService.getAllTags(newLogbookID))
+                .extracting(TagDTO::id)
+                .containsExactly(tagId);
+        // the existing tag is returned without writing
+        assertThat(logbookService.ensureTag(newLogbookID, "tag-a")).isEqualTo(tagId);
+        assertThat(logbookService.getLogbookSummaryForTagId(tagId).id()).isEqualTo(newLogbookID);
+
+        // the update is visible on the next read
+        LogbookDTO lb = logbookService.getLogbook(newLogbookID);
+        assertDoesNotThrow(
+                () -> logbookService.update(
+                        newLogbookID,
+                        UpdateLogbookDTO
+                                .builder()
+                                .name("updated-name")
+                                .readAll(false)
+                                .writeAll(false)
+                                .tags(lb.tags())
+                                .shifts(emptyList())
+                                .build()
+                )
+        );
+        assertThat(logbookService.getLogbook(newLogbookID).name()).isEqualTo("updated-name");
+        assertThat(logbookService.existByName("updated-name")).isTrue();
+
+        // a removal done outside the service is visible on the next read
+        mongoTemplate.remove(new Query(Criteria.where("id").is(newLogbookID)), Logbook.class);
+        assertThat(logbookService.existById(newLogbookID)).isFalse();
+        assertThat(logbookService.getTagById(tagId)).isEmpty();
+    }
+
+    @Test
+    public void snapshotHitAndMissAreCounted() {
+        sharedUtilityService.getTestLogbook();
+        double hit = meterRegistry.get("elog_plus_logbook_snapshot").tag("result", "hit").counter().count();
+        double miss = meterRegistry.get("elog_plus_logbook_snapshot").tag("result", "miss").counter().count();
+
+        logbookSnapshotService.invalidate();
+        assertThat(logbookService.getAllLogbook()).hasSize(1);
+        assertThat(logbookService.getAllLogbook()).hasSize(1);
+
+        assertThat(meterRegistry.get("elog_plus_logbook_snapshot").tag("result", "miss").counter().count())
+                .isEqualTo(miss + 1);
+        assertThat(meterRegistry.get("elog_plus_logbook_snapshot").tag("result", "hit").counter().count())
+                .isEqualTo(hit + 1);
+        assertThat(meterRegistry.get("elog_plus_logbook_snapshot_load").timer().count()).isGreaterThan(0);
+    }
 }
@@ -0,0 +1,223 @@
+package edu.stanford.slac.elog_plus.service;
+
+import edu.stanford.slac.elog_plus.model.Entry;
+import edu.stanford.slac.elog_plus.model.FileObjectDescription;
+import edu.stanford.slac.elog_plus.model.Logbook;
+import edu.stanford.slac.elog_plus.service.cache.LogbookSnapshotService;
+import edu.stanford.slac.elog_plus.utility.EntryTextUtilities;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.log4j.Log4j2;
+import net.coobird.thumbnailator.Thumbnails;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+
+/**
+ * Check the code paths that run on virtual threads when the virtual thread execution mode is
+ * enabled, the downloads go to the local minio of the test environment.
+ * <p>
+ * The comparison of the attachment download under load on a pool of platform threads and on
+ * virtual threads is tagged as benchmark, so it is excluded from the test task and is run
+ * with the benchmark task.
+ */
+@Log4j2
+@AutoConfigureMockMvc
+@SpringBootTest()
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles({"test"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class VirtualThreadExecutionTest {
+    private static final int DOWNLOADS = 100;
+    // the default max number of threads of tomcat
+    private static final int PLATFORM_POOL_SIZE = 200;
+    private static final int BENCHMARK_REQUESTS = 2000;
+    @Autowired
+    private AttachmentService attachmentService;
+    @Autowired
+    private LogbookSnapshotService logbookSnapshotService;
+    @Autowired
+    private DocumentGenerationService documentGenerationService;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    private byte[] jpegBytes;
+    private String attachmentId;
+
+    @BeforeAll
+    public void initData() throws Exception {
+        mongoTemplate.remove(new Query(), Logbook.class);
+        for (int idx = 0; idx < 20; idx++) {
+            mongoTemplate.insert(Logbook.builder().name("logbook-%d".formatted(idx)).build());
+        }
+        try (InputStream is = documentGenerationService.getTestJpeg()) {
+            jpegBytes = is.readAllBytes();
+        }
+        attachmentId = assertDoesNotThrow(
+                () -> attachmentService.createAttachment(
+                        FileObjectDescription
+                                .builder()
+                                .fileName("jpegFileName")
+                                .contentType(MediaType.IMAGE_JPEG_VALUE)
+                                .is(new ByteArrayInputStream(jpegBytes))
+                                .build(),
+                        false
+                )
+        );
+    }
+
+    @Test
+    public void ownCodePathsDoNotPinTheCarrier() throws Exception {
+        String html = "<p>%s</p>".formatted("text ".repeat(10000));
+        List<RecordedEvent> pinnedEvents = new CopyOnWriteArrayList<>();
+        try (RecordingStream recordingStream = new RecordingStream()) {
+            recordingStream.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recordingStream.onEvent("jdk.VirtualThreadPinned", pinnedEvents::add);
+            recordingStream.startAsync();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int idx = 0; idx < 200; idx++) {
+                    int taskIdx = idx;
+                    futures.add(executor.submit(() -> {
+                        switch (taskIdx % 3) {
+                            case 0 -> {
+                                // the concurrent readers wait for the snapshot loaded from the database
+                                if (taskIdx % 30 == 0) logbookSnapshotService.invalidate();
+                                assertThat(logbookSnapshotService.get().getLogbooks()).hasSize(20);
+                            }
+                            case 1 -> {
+                                Entry entry = Entry.builder().text(html).build();
+                                EntryTextUtilities.fillDerivedFields(entry, true);
+                                assertThat(entry.getTextExcerpt()).isNotEmpty();
+                            }
+                            default -> {
+                                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                                Thumbnails.of(new ByteArrayInputStream(jpegBytes))
+                                        .size(1024, 1024)
+                                        .outputFormat("jpg")
+                                        .toOutputStream(baos);
+                                assertThat(baos.size()).isGreaterThan(0);
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get(60, TimeUnit.SECONDS);
+                }
+            }
+            recordingStream.stop();
+        }
+        pinnedEvents.forEach(e -> log.warn("[virtual thread] pinned for {}: {}", e.getDuration(), e.getStackTrace()));
+        assertThat(pinnedEvents).isEmpty();
+    }
+
+    @Test
+    public void concurrentAttachmentDownloadsOnVirtualThreads() throws Exception {
+        List<Future<byte[]>> futures = new ArrayList<>(DOWNLOADS);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int idx = 0; idx < DOWNLOADS; idx++) {
+                futures.add(executor.submit(() -> {
+                    try (InputStream is = attachmentService.getAttachmentContent(attachmentId).getIs()) {
+                        return is.readAllBytes();
+                    }
+                }));
+            }
+            // every download completes and returns the whole content
+            for (Future<byte[]> future : futures) {
+                assertThat(future.get(60, TimeUnit.SECONDS)).isEqualTo(jpegBytes);
+            }
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void benchmarkAttachmentDownloadPlatformVsVirtualThreads() throws Exception {
+        // warm up the storage client and the code paths
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            runDownloads(executor, 200);
+        }
+
+        LoadResult platform;
+        try (ExecutorService executor = Executors.newFixedThreadPool(PLATFORM_POOL_SIZE)) {
+            platform = runDownloads(executor, BENCHMARK_REQUESTS);
+        }
+        LoadResult virtual;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            virtual = runDownloads(executor, BENCHMARK_REQUESTS);
+        }
+        log.info(
+                "[virtual thread benchmark] {} attachment downloads, throughput platform/virtual: {}/{} req/s, p99 platform/virtual: {}/{} ms",
+                BENCHMARK_REQUESTS,
+                "%.1f".formatted(platform.throughput()),
+                "%.1f".formatted(virtual.throughput()),
+                "%.1f".formatted(platform.p99Millis()),
+                "%.1f".formatted(virtual.p99Millis())
+        );
+        assertThat(platform.errors()).isZero();
+        assertThat(virtual.errors()).isZero();
+    }
+
+    /**
+     * Submit all the downloads at once, the latency of each download include the time spent
+     * waiting for a thread as it happens to a request queued by tomcat
+     */
+    private LoadResult runDownloads(ExecutorService executor, int requests) throws Exception {
+        long start = System.nanoTime();
+        List<Future<Long>> futures = new ArrayList<>(requests);
+        for (int idx = 0; idx < requests; idx++) {
+            long submittedAt = System.nanoTime();
+            futures.add(executor.submit(() -> {
+                try (InputStream is = attachmentService.getAttachmentContent(attachmentId).getIs()) {
+                    is.transferTo(OutputStream.nullOutputStream());
+                }
+                return System.nanoTime() - submittedAt;
+            }));
+        }
+        List<Long> latencies = new ArrayList<>(requests);
+        int errors = 0;
+        for (Future<Long> future : futures) {
+            try {
+                latencies.add(future.get(120, TimeUnit.SECONDS));
+            } catch (Exception e) {
+                log.error("[virtual thread benchmark] download failed", e);
+                errors++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        Collections.sort(latencies);
+        double p99 = latencies.isEmpty() ? 0 : latencies.get((int) Math.ceil(latencies.size() * 0.99) - 1) / 1_000_000.0;
+        return new LoadResult(requests / (elapsed / 1_000_000_000.0), p99, errors);
+    }
+
+    private record LoadResult(double throughput, double p99Millis, int errors) {
+    }
+}
@@ -26,6 +26,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.MediaType;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
@@ -36,6 +37,7 @@ import java.util.Optional;
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @AutoConfigureMockMvc
@@ -127,6 +129,58 @@ public class ApplicationControllerControllerTest {
         assertThat(notFoundException.getErrorCode()).isEqualTo(-1);
     }
 
+    @Test
+    public void deletedAppTokenIsNotAccepted() throws Exception {
+        var resourceAppId = assertDoesNotThrow(
+                () -> testControllerHelperService.applicationControllerCreateNewApplication(
+                        mockMvc,
+                        status().isCreated(),
+                        Optional.of("user1@slac.stanford.edu"),
+                        NewApplicationDTO.builder()
+                                .name("app1")
+                                .expiration(LocalDate.of(2100, 1, 1))
+                                .build()
+                )
+        );
+        var appDetails = assertDoesNotThrow(
+                () -> testControllerHelperService.applicationControllerFindApplicationById(
+                        mockMvc,
+                        status().isOk(),
+                        Optional.of("user1@slac.stanford.edu"),
+                        resourceAppId.getPayload(),
+                        Optional.empty()
+                )
+        );
+        String appToken = appDetails.getPayload().token();
+        assertThat(appToken).isNotNull();
+
+        // the token is used more times, after the first the validated authentication is reused
+        for (int idx = 0; idx < 3; idx++) {
+            mockMvc.perform(
+                    get("/v1/logbooks")
+                            .header(appProperties.getUserHeaderName(), appToken)
+                            .accept(MediaType.APPLICATION_JSON)
+            ).andExpect(status().isOk());
+        }
+
+        var deleteAppResult = assertDoesNotThrow(
+                () -> testControllerHelperService.applicationControllerDeleteApplication(
+                        mockMvc,
+                        status().isOk(),
+                        Optional.of("user1@slac.stanford.edu"),
+                        resourceAppId.getPayload()
+                )
+        );
+        assertThat(deleteAppResult.getPayload()).isTrue();
+
+        // the deleted token has been evicted and is not accepted anymore
+        mockMvc.perform(
+                get("/v1/logbooks")
+                        .header(appProperties.getUserHeaderName(), appToken)
+                        .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(status().isUnauthorized());
+    }
+
     @Test
     public void createAppFailsWithNotRoot() {
         var notAuthorizedException = assertThrows(
@@ -379,6 +379,30 @@ public class EntriesControllerAuthorizationTest {
         );
         assertThat(entryForUser3.getErrorCode()).isEqualTo(0);
         assertThat(entryForUser3.getPayload().logbooks()).extracting("id").contains(newLogBookResult2.getPayload());
+
+        // the search return the entry only with the logbook readable by the user
+        var searchForUser2 = assertDoesNotThrow(
+                () -> testControllerHelperService.submitSearchByGetWithAnchor(
+                        mockMvc,
+                        status().isOk(),
+                        Optional.of(
+                                "user2@slac.stanford.edu"
+                        ),
+                        Optional.empty(),
+                        Optional.empty(),
+                        Optional.empty(),
+                        Optional.empty(),
+                        Optional.of(10),
+                        Optional.empty(),
+                        Optional.empty(),
+                        Optional.empty(),
+                        Optional.empty(),
+                        Optional.empty(),
+                        Optional.empty()
+                )
+        );
+        assertThat(searchForUser2.getPayload()).hasSize(1);
+        assertThat(searchForUser2.getPayload().get(0).logbooks()).extracting("id").containsExactly(newLogBookResult1.getPayload());
     }
 
     @Test
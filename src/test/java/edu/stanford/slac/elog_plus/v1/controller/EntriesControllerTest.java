@@ -2,6 +2,7 @@ package edu.stanford.slac.elog_plus.v1.controller;
 
 import edu.stanford.slac.ad.eed.baselib.api.v1.dto.ApiResultResponse;
 import edu.stanford.slac.ad.eed.baselib.config.AppProperties;
+import edu.stanford.slac.ad.eed.baselib.exception.NotAuthorized;
 import edu.stanford.slac.ad.eed.baselib.model.Authorization;
 import edu.stanford.slac.ad.eed.baselib.service.AuthService;
 import edu.stanford.slac.elog_plus.api.v1.dto.*;
@@ -37,6 +38,7 @@ import java.io.InputStream;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -118,6 +120,133 @@ public class EntriesControllerTest {
         AssertionsForClassTypes.assertThat(newLogID.getErrorCode()).isEqualTo(0);
     }
 
+    @Test
+    public void createNewLogsInBulk() throws Exception {
+        var newLogBookResult = testControllerHelperService.getTestLogbook(mockMvc);
+        ApiResultResponse<List<BulkEntryResultDTO>> bulkResult =
+                assertDoesNotThrow(
+                        () ->
+                                testControllerHelperService.createNewLogs(
+                                        mockMvc,
+                                        status().isCreated(),
+                                        Optional.of(
+                                                "user1@slac.stanford.edu"
+                                        ),
+                                        List.of(
+                                                EntryNewDTO
+                                                        .builder()
+                                                        .logbooks(List.of(newLogBookResult.getPayload().id()))
+                                                        .text("This is the first log of the bulk")
+                                                        .title("First log")
+                                                        .build(),
+                                                EntryNewDTO
+                                                        .builder()
+                                                        .logbooks(List.of(newLogBookResult.getPayload().id()))
+                                                        .text("This is a log with a wrong tag")
+                                                        .title("Wrong log")
+                                                        .tags(List.of("wrong id"))
+                                                        .build(),
+                                                EntryNewDTO
+                                                        .builder()
+                                                        .logbooks(List.of(newLogBookResult.getPayload().id()))
+                                                        .text("This is the last log of the bulk")
+                                                        .title("Last log")
+                                                        .build()
+                                        )
+                                )
+                );
+        assertThat(bulkResult.getErrorCode()).isEqualTo(0);
+        assertThat(bulkResult.getPayload()).extracting(BulkEntryResultDTO::index).containsExactly(0, 1, 2);
+        assertThat(bulkResult.getPayload()).extracting(BulkEntryResultDTO::errorCode).containsExactly(0, -4, 0);
+        assertThat(bulkResult.getPayload().get(1).id()).isNull();
+        assertThat(bulkResult.getPayload().get(1).errorMessage()).contains("wrong id");
+
+        ApiResultResponse<EntryDTO> lastLog = assertDoesNotThrow(
+                () -> testControllerHelperService.getFullLog(
+                        mockMvc,
+                        Optional.of(
+                                "user1@slac.stanford.edu"
+                        ),
+                        bulkResult.getPayload().get(2).id()
+                )
+        );
+        assertThat(lastLog.getPayload().title()).isEqualTo("Last log");
+        assertThat(mongoTemplate.count(new Query(), Entry.class)).isEqualTo(2);
+    }
+
+    @Test
+    public void createNewLogsInBulkReportEachInvalidEntry() throws Exception {
+        var newLogBookResult = testControllerHelperService.getTestLogbook(mockMvc);
+        List<EntryNewDTO> newEntries = new ArrayList<>();
+        for (int idx = 0; idx < 5; idx++) {
+            EntryNewDTO.EntryNewDTOBuilder builder = EntryNewDTO
+                    .builder()
+                    .logbooks(List.of(newLogBookResult.getPayload().id()))
+                    .text("This is the log %d of the bulk".formatted(idx))
+                    .title("Log %d".formatted(idx));
+            if (idx == 1) builder.attachments(List.of("wrong attachment id"));
+            if (idx == 3) builder.tags(List.of("wrong tag id"));
+            newEntries.add(builder.build());
+        }
+        ApiResultResponse<List<BulkEntryResultDTO>> bulkResult =
+                assertDoesNotThrow(
+                        () ->
+                                testControllerHelperService.createNewLogs(
+                                        mockMvc,
+                                        status().isCreated(),
+                                        Optional.of(
+                                                "user1@slac.stanford.edu"
+                                        ),
+                                        newEntries
+                                )
+                );
+        assertThat(bulkResult.getErrorCode()).isEqualTo(0);
+        assertThat(bulkResult.getPayload()).extracting(BulkEntryResultDTO::index).containsExactly(0, 1, 2, 3, 4);
+        assertThat(bulkResult.getPayload()).extracting(BulkEntryResultDTO::errorCode).containsExactly(0, -3, 0, -4, 0);
+        assertThat(bulkResult.getPayload().get(1).errorMessage()).contains("wrong attachment id");
+        assertThat(bulkResult.getPayload().get(3).errorMessage()).contains("wrong tag id");
+        assertThat(mongoTemplate.count(new Query(), Entry.class)).isEqualTo(3);
+        for (int idx : List.of(0, 2, 4)) {
+            ApiResultResponse<EntryDTO> createdLog = assertDoesNotThrow(
+                    () -> testControllerHelperService.getFullLog(
+                            mockMvc,
+                            Optional.of(
+                                    "user1@slac.stanford.edu"
+                            ),
+                            bulkResult.getPayload().get(idx).id()
+                    )
+            );
+            assertThat(createdLog.getPayload().title()).isEqualTo("Log %d".formatted(idx));
+        }
+    }
+
+    @Test
+    public void createNewLogsInBulkFailWithoutWriteAuthorization() throws Exception {
+        var newLogBookResult = testControllerHelperService.getTestLogbook(mockMvc);
+        NotAuthorized notAuthorized =
+                assertThrows(
+                        NotAuthorized.class,
+                        () ->
+                                testControllerHelperService.createNewLogs(
+                                        mockMvc,
+                                        status().isUnauthorized(),
+                                        Optional.of(
+                                                "user3@slac.stanford.edu"
+                                        ),
+                                        List.of(
+                                                EntryNewDTO
+                                                        .builder()
+                                                        .logbooks(List.of(newLogBookResult.getPayload().id()))
+                                                        .text("This is a log for test")
+                                                        .title("A very wonderful log")
+                                                        .build()
+                                        )
+                                )
+                );
+        assertThat(notAuthorized.getErrorCode()).isEqualTo(-1);
+        assertThat(mongoTemplate.count(new Query(), Entry.class)).isEqualTo(0);
+    }
+
     //@Test
     public void createNewLogUsingServiceJWT() throws Exception {
         var newLogBookResult = testControllerHelperService.getTestLogbook(mockMvc, appProperties.getInternalServiceTokenEmail());
@@ -230,7 +359,28 @@ public class EntriesControllerTest {
         );
         assertThat(logDto.getErrorCode()).isEqualTo(0);
         assertThat(logDto.getPayload().attachments().size()).isEqualTo(1);
-        assertThat(logDto.getPayload().attachments().get(0).miniPreview()).isNotNull();
+        assertThat(logDto.getPayload().attachments().get(0).miniPreviewUrl())
+                .isEqualTo("/v1/attachment/%s/mini-preview.jpg".formatted(logDto.getPayload().attachments().get(0).id()));
+        testControllerHelperService.checkDownloadedMiniPreview(
+                mockMvc,
+                status().isOk(),
+                Optional.of(
+                        "user1@slac.stanford.edu"
+                ),
+                logDto.getPayload().attachments().get(0).id()
+        );
+        ApiResultResponse<List<AttachmentMiniPreviewDTO>> miniPreviews = assertDoesNotThrow(
+                () -> testControllerHelperService.attachmentControllerFindMiniPreviews(
+                        mockMvc,
+                        status().isOk(),
+                        Optional.of(
+                                "user1@slac.stanford.edu"
+                        ),
+                        List.of(logDto.getPayload().attachments().get(0).id())
+                )
+        );
+        assertThat(miniPreviews.getPayload()).hasSize(1);
+        assertThat(miniPreviews.getPayload().get(0).miniPreview()).isNotEmpty();
     }
 
     @Test
@@ -232,4 +232,73 @@ public class LogbookControllerReadableWritableALLTest {
                         newLogbookApiResultTwo.getPayload()
                 );
     }
+
+    @Test
+    public void testAuthorizedLogbookFollowTheChanges() {
+        var newLogbookApiResult = testControllerHelperService.getNewLogbookWithNameWithAuthorization(
+                mockMvc,
+                Optional.of("user1@slac.stanford.edu"),
+                "new logbook",
+                emptyList()
+        );
+        String logbookId = newLogbookApiResult.getPayload();
+        // user 2 has no authorization
+        assertThat(getReadableLogbookIds("user2@slac.stanford.edu")).isEmpty();
+
+        // authorize user 2, the authorizations are saved by the base library
+        assertDoesNotThrow(
+                () -> authService.addNewAuthorization(
+                        edu.stanford.slac.ad.eed.baselib.api.v1.dto.NewAuthorizationDTO
+                                .builder()
+                                .owner("user2@slac.stanford.edu")
+                                .ownerType(AuthorizationOwnerTypeDTO.User)
+                                .authorizationType(Read)
+                                .resource("/logbook/%s".formatted(logbookId))
+                                .build()
+                )
+        );
+        assertThat(getReadableLogbookIds("user2@slac.stanford.edu")).containsExactly(logbookId);
+
+        // remove the authorization
+        assertDoesNotThrow(
+                () -> authService.deleteAuthorizationForResourcePrefix(
+                        "/logbook/%s".formatted(logbookId),
+                        AuthorizationOwnerTypeDTO.User
+                )
+        );
+        assertThat(getReadableLogbookIds("user2@slac.stanford.edu")).isEmpty();
+
+        // make the logbook readable to all
+        var updateLogbookReadAll = assertDoesNotThrow(
+                () -> testControllerHelperService.updateLogbook(
+                        mockMvc,
+                        status().isOk(),
+                        Optional.of("user1@slac.stanford.edu"),
+                        logbookId,
+                        UpdateLogbookDTO
+                                .builder()
+                                .name("new-logbook")
+                                .tags(emptyList())
+                                .shifts(emptyList())
+                                .readAll(true)
+                                .build()
+                )
+        );
+        assertThat(updateLogbookReadAll.getPayload()).isTrue();
+        assertThat(getReadableLogbookIds("user2@slac.stanford.edu")).containsExactly(logbookId);
+    }
+
+    private List<String> getReadableLogbookIds(String user) {
+        var allReadableLogbook = assertDoesNotThrow(
+                () -> testControllerHelperService.getAllLogbook(
+                        mockMvc,
+                        status().isOk(),
+                        Optional.of(user),
+                        Optional.empty(),
+                        Optional.of(Read.toString())
+                )
+        );
+        assertThat(allReadableLogbook).isNotNull();
+        return allReadableLogbook.getPayload().stream().map(LogbookDTO::id).toList();
+    }
 }
@@ -16,6 +16,7 @@ import edu.stanford.slac.elog_plus.service.LogbookService;
 import edu.stanford.slac.elog_plus.service.SharedUtilityService;
 import org.assertj.core.api.Assertions;
 import org.assertj.core.api.AssertionsForClassTypes;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.mock.web.MockPart;
@@ -215,6 +216,46 @@ public class TestControllerHelperService {
     }
 
 
+    public void checkDownloadedMiniPreview(
+            MockMvc mockMvc,
+            ResultMatcher resultMatcher,
+            Optional<String> userInfo,
+            String attachmentID) throws Exception {
+        var requestBuilder = get("/v1/attachment/{id}/mini-preview.jpg", attachmentID);
+        userInfo.ifPresent(login -> requestBuilder.header(appProperties.getUserHeaderName(), jwtHelper.generateJwt(login)));
+        MvcResult result = mockMvc.perform(
+                        requestBuilder
+                )
+                .andExpect(resultMatcher)
+                .andReturn();
+        Optional<ControllerLogicException> someException = Optional.ofNullable((ControllerLogicException) result.getResolvedException());
+        if (someException.isPresent()) {
+            throw someException.get();
+        }
+        AssertionsForClassTypes.assertThat(result.getResponse().getContentAsByteArray().length).isGreaterThan(0);
+        AssertionsForClassTypes.assertThat(result.getResponse().getContentType()).isEqualTo(MediaType.IMAGE_JPEG_VALUE);
+        AssertionsForClassTypes.assertThat(result.getResponse().getHeader(HttpHeaders.CACHE_CONTROL)).contains("immutable");
+    }
+
+    public ApiResultResponse<List<AttachmentMiniPreviewDTO>> attachmentControllerFindMiniPreviews(
+            MockMvc mockMvc,
+            ResultMatcher resultMatcher,
+            Optional<String> userInfo,
+            List<String> attachmentIds) throws Exception {
+        MockHttpServletRequestBuilder requestBuilder =
+                get("/v1/attachment/mini-preview")
+                        .param("attachmentIds", String.join(",", attachmentIds))
+                        .accept(MediaType.APPLICATION_JSON);
+        return executeHttpRequest(
+                new TypeReference<>() {
+                },
+                mockMvc,
+                resultMatcher,
+                userInfo,
+                requestBuilder
+        );
+    }
+
     public ApiResultResponse<List<AttachmentDTO>> attachmentControllerFindAllQueued(
             MockMvc mockMvc,
             ResultMatcher resultMatcher,
@@ -265,6 +306,33 @@ public class TestControllerHelperService {
                 });
     }
 
+    public ApiResultResponse<List<BulkEntryResultDTO>> createNewLogs(
+            MockMvc mockMvc,
+            ResultMatcher resultMatcher,
+            Optional<String> userInfo,
+            List<EntryNewDTO> newLogs) throws Exception {
+        var postBuilder = post("/v1/entries/bulk")
+                .content(
+                        new ObjectMapper().writeValueAsString(
+                                newLogs
+                        )
+                )
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON);
+        userInfo.ifPresent(login -> postBuilder.header(appProperties.getUserHeaderName(), jwtHelper.generateJwt(login)));
+        MvcResult result = mockMvc.perform(postBuilder)
+                .andExpect(resultMatcher)
+                .andReturn();
+        Optional<ControllerLogicException> someException = Optional.ofNullable((ControllerLogicException) result.getResolvedException());
+        if (someException.isPresent()) {
+            throw someException.get();
+        }
+        return new ObjectMapper().readValue(
+                result.getResponse().getContentAsString(),
+                new TypeReference<>() {
+                });
+    }
+
     public ApiResultResponse<String> importEntryV1(
             MockMvc mockMvc,
             ResultMatcher resultMatcher,
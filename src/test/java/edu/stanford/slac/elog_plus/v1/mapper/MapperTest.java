@@ -41,7 +41,7 @@ public class MapperTest {
                 .firstName("firstName")
                 .lastName("lastName")
                 .build();
-        var logDto = entryMapper.toSearchResult(log);
+        var logDto = entryMapper.toSearchResultWithoutRelations(log);
         assertThat(logDto.loggedBy()).isEqualTo("firstName lastName");
     }
 